@@ -0,0 +1,72 @@
+package com.timesheet.controller;
+
+import com.timesheet.dto.PivotResultDTO;
+import com.timesheet.enums.PivotDimension;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.service.AnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // managerId keeps the entries of the manager's whole team, direct reports and theirs, as the manager reports do
+    @GetMapping("/pivot")
+    public ResponseEntity<PivotResultDTO> pivot(
+            @RequestParam PivotDimension rows,
+            @RequestParam(required = false) PivotDimension columns,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long employeeId,
+            @RequestParam(required = false) Long managerId,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) TimesheetStatus status) {
+
+        try {
+            PivotResultDTO result = analyticsService.pivot(rows, columns, startDate, endDate, employeeId, managerId, projectId, status);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error running analytics pivot: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(analyticsService.getStats());
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        try {
+            int rows = analyticsService.reload();
+            Map<String, Object> result = new HashMap<>();
+            result.put("rows", rows);
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            System.err.println("Error reloading analytics engine: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
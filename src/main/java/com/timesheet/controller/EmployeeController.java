@@ -1,5 +1,6 @@
 package com.timesheet.controller;
 
+import com.timesheet.dto.CursorPageDTO;
 import com.timesheet.dto.EmployeeDTO;
 import com.timesheet.enums.UserRole;
 import com.timesheet.service.EmployeeService;
@@ -8,7 +9,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/employees")
@@ -43,12 +43,19 @@ public class EmployeeController {
         }
     }
 
+    // Keyset pages: without a cursor the first page comes back (app.pagination.page-size rows unless pageSize asks
+    // for up to 500); follow nextCursor with the same sort, direction and filters for the next one.
     @GetMapping
-    public ResponseEntity<?> getAllEmployees() {
+    public ResponseEntity<?> getAllEmployees(
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) Long managerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<EmployeeDTO> employees = employeeService.getAllEmployees();
-            System.out.println("Found " + employees.size() + " employees");
-            return ResponseEntity.ok(employees);
+            return ResponseEntity.ok(getEmployeePage(role, managerId, sort, direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             System.err.println("Error fetching employees: " + e.getMessage());
             e.printStackTrace();
@@ -57,20 +64,30 @@ public class EmployeeController {
     }
 
     @GetMapping("/role/{role}")
-    public ResponseEntity<?> getEmployeesByRole(@PathVariable UserRole role) {
+    public ResponseEntity<?> getEmployeesByRole(
+            @PathVariable UserRole role,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<EmployeeDTO> employees = employeeService.getEmployeesByRole(role);
-            return ResponseEntity.ok(employees);
+            return ResponseEntity.ok(getEmployeePage(role, null, sort, direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to fetch employees by role: " + e.getMessage());
         }
     }
 
     @GetMapping("/subordinates/{managerId}")
-    public ResponseEntity<?> getSubordinates(@PathVariable Long managerId) {
+    public ResponseEntity<?> getSubordinates(
+            @PathVariable Long managerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<EmployeeDTO> subordinates = employeeService.getSubordinates(managerId);
-            return ResponseEntity.ok(subordinates);
+            return ResponseEntity.ok(getEmployeePage(null, managerId, sort, direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to fetch subordinates: " + e.getMessage());
         }
@@ -97,4 +114,10 @@ public class EmployeeController {
             return ResponseEntity.badRequest().body("Failed to delete employee: " + e.getMessage());
         }
     }
+
+    private CursorPageDTO<EmployeeDTO> getEmployeePage(UserRole role, Long managerId, String sort, String direction,
+                                                       String cursor, Integer pageSize, Boolean includeTotal) {
+        return employeeService.getEmployeePage(role, managerId, sort != null ? sort : "id", direction != null ? direction : "asc",
+            cursor, pageSize, Boolean.TRUE.equals(includeTotal));
+    }
 }
@@ -1,5 +1,6 @@
 package com.timesheet.controller;
 
+import com.timesheet.dto.CursorPageDTO;
 import com.timesheet.dto.ProjectDTO;
 import com.timesheet.service.ProjectService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,7 +8,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/projects")
@@ -39,12 +39,19 @@ public class ProjectController {
         }
     }
 
+    // Keyset pages: without a cursor the first page comes back (app.pagination.page-size rows unless pageSize asks
+    // for up to 500); follow nextCursor with the same sort, direction and filters for the next one.
     @GetMapping
-    public ResponseEntity<?> getAllProjects() {
+    public ResponseEntity<?> getAllProjects(
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) Long managerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<ProjectDTO> projects = projectService.getAllProjects();
-            System.out.println("Found " + projects.size() + " projects");
-            return ResponseEntity.ok(projects);
+            return ResponseEntity.ok(getProjectPage(active, managerId, sort != null ? sort : "id", direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             System.err.println("Error fetching projects: " + e.getMessage());
             e.printStackTrace();
@@ -52,21 +59,31 @@ public class ProjectController {
         }
     }
 
+    // Sorted by name unless asked otherwise, as the project pickers list them
     @GetMapping("/active")
-    public ResponseEntity<?> getActiveProjects() {
+    public ResponseEntity<?> getActiveProjects(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<ProjectDTO> projects = projectService.getActiveProjects();
-            return ResponseEntity.ok(projects);
+            return ResponseEntity.ok(getProjectPage(true, null, sort != null ? sort : "name", direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to fetch active projects: " + e.getMessage());
         }
     }
 
     @GetMapping("/manager/{managerId}")
-    public ResponseEntity<?> getProjectsByManager(@PathVariable Long managerId) {
+    public ResponseEntity<?> getProjectsByManager(
+            @PathVariable Long managerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) Boolean includeTotal) {
         try {
-            List<ProjectDTO> projects = projectService.getProjectsByManager(managerId);
-            return ResponseEntity.ok(projects);
+            return ResponseEntity.ok(getProjectPage(null, managerId, sort != null ? sort : "id", direction, cursor, pageSize, includeTotal));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to fetch projects by manager: " + e.getMessage());
         }
@@ -89,4 +106,10 @@ public class ProjectController {
         projectService.deactivateProject(id);
         return ResponseEntity.ok().build();
     }
+
+    private CursorPageDTO<ProjectDTO> getProjectPage(Boolean active, Long managerId, String sort, String direction,
+                                                     String cursor, Integer pageSize, Boolean includeTotal) {
+        return projectService.getProjectPage(active, managerId, sort, direction != null ? direction : "asc",
+            cursor, pageSize, Boolean.TRUE.equals(includeTotal));
+    }
 }
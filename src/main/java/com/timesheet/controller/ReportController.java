@@ -1,15 +1,29 @@
 package com.timesheet.controller;
 
+import com.timesheet.dto.HoursSeriesDTO;
 import com.timesheet.dto.ReportDTO;
+import com.timesheet.dto.ReportEntryPageDTO;
+import com.timesheet.enums.ExportFormat;
+import com.timesheet.enums.SeriesGranularity;
+import com.timesheet.enums.SeriesSplit;
+import com.timesheet.service.ReportCacheService;
+import com.timesheet.service.ReportExportService;
 import com.timesheet.service.ReportService;
+import com.timesheet.service.RollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -19,14 +33,26 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
     @GetMapping("/employee/{employeeId}")
     public ResponseEntity<ReportDTO> getEmployeeReport(
             @PathVariable Long employeeId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) Integer pageSize) {
 
         try {
-            ReportDTO report = reportService.getEmployeeReport(employeeId, startDate, endDate);
+            // Summary maps plus the first page of line items; the rest is read through /entries with nextCursor
+            ReportDTO report = reportService.getEmployeeReport(employeeId, startDate, endDate, summaryOnly ? 0 : reportService.resolvePageSize(pageSize));
             return ResponseEntity.ok(report);
         } catch (Exception e) {
             // Log the error for debugging
@@ -40,10 +66,13 @@ public class ReportController {
     public ResponseEntity<ReportDTO> getProjectReport(
             @PathVariable Long projectId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) Integer pageSize) {
 
         try {
-            ReportDTO report = reportService.getProjectReport(projectId, startDate, endDate);
+            // Summary maps plus the first page of line items; the rest is read through /entries with nextCursor
+            ReportDTO report = reportService.getProjectReport(projectId, startDate, endDate, summaryOnly ? 0 : reportService.resolvePageSize(pageSize));
             return ResponseEntity.ok(report);
         } catch (Exception e) {
             // Log the error for debugging
@@ -70,23 +99,167 @@ public class ReportController {
         }
     }
 
-    @GetMapping("/employee/{employeeId}/export")
-    public ResponseEntity<byte[]> exportEmployeeReport(
+    @GetMapping("/organization")
+    public ResponseEntity<ReportDTO> getOrganizationReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean summaryOnly,
+            @RequestParam(required = false) Integer pageSize) {
+
+        try {
+            ReportDTO report = reportService.getOrganizationReport(startDate, endDate, summaryOnly ? 0 : reportService.resolvePageSize(pageSize));
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error generating organization report: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/employee/{employeeId}/entries")
+    public ResponseEntity<ReportEntryPageDTO> getEmployeeEntryPage(
             @PathVariable Long employeeId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+
+        try {
+            ReportEntryPageDTO page = reportService.getEmployeeEntryPage(employeeId, startDate, endDate, cursor, reportService.resolvePageSize(pageSize));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error reading employee report entries: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/project/{projectId}/entries")
+    public ResponseEntity<ReportEntryPageDTO> getProjectEntryPage(
+            @PathVariable Long projectId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+
+        try {
+            ReportEntryPageDTO page = reportService.getProjectEntryPage(projectId, startDate, endDate, cursor, reportService.resolvePageSize(pageSize));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error reading project report entries: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/organization/entries")
+    public ResponseEntity<ReportEntryPageDTO> getOrganizationEntryPage(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize) {
+
+        try {
+            ReportEntryPageDTO page = reportService.getOrganizationEntryPage(startDate, endDate, cursor, reportService.resolvePageSize(pageSize));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error reading organization report entries: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/employee/{employeeId}/series")
+    public ResponseEntity<HoursSeriesDTO> getEmployeeSeries(
+            @PathVariable Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "WEEK") SeriesGranularity granularity,
+            @RequestParam(defaultValue = "NONE") SeriesSplit splitBy) {
+
+        try {
+            HoursSeriesDTO series = reportService.getEmployeeSeries(employeeId, startDate, endDate, granularity, splitBy);
+            return ResponseEntity.ok(series);
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error generating employee hours series: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/project/{projectId}/series")
+    public ResponseEntity<HoursSeriesDTO> getProjectSeries(
+            @PathVariable Long projectId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "WEEK") SeriesGranularity granularity,
+            @RequestParam(defaultValue = "NONE") SeriesSplit splitBy) {
+
+        try {
+            HoursSeriesDTO series = reportService.getProjectSeries(projectId, startDate, endDate, granularity, splitBy);
+            return ResponseEntity.ok(series);
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error generating project hours series: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/manager/{managerId}/series")
+    public ResponseEntity<HoursSeriesDTO> getManagerSeries(
+            @PathVariable Long managerId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "WEEK") SeriesGranularity granularity,
+            @RequestParam(defaultValue = "NONE") SeriesSplit splitBy) {
 
         try {
-            ReportDTO report = reportService.getEmployeeReport(employeeId, startDate, endDate);
-            byte[] excelData = reportService.exportToExcel(report);
+            HoursSeriesDTO series = reportService.getManagerSeries(managerId, startDate, endDate, granularity, splitBy);
+            return ResponseEntity.ok(series);
+        } catch (Exception e) {
+            // Log the error for debugging
+            System.err.println("Error generating manager hours series: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "employee_report_" + employeeId + ".xlsx");
+    @GetMapping("/employee/{employeeId}/export")
+    public ResponseEntity<StreamingResponseBody> exportEmployeeReport(
+            @PathVariable Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+        ExportFormat exportFormat;
+        try {
+            exportFormat = resolveExportFormat(format, accept);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (exportFormat == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
+
+        try {
+            // Rows are read from a cursor and written straight to the response as they are produced
+            return buildExportResponse("employee_report_" + employeeId, exportFormat, useGzip(exportFormat, gzip, acceptEncoding),
+                    outputStream -> reportExportService.writeEmployeeReport(employeeId, startDate, endDate, exportFormat, outputStream, null));
         } catch (Exception e) {
             // Log the error for debugging
             System.err.println("Error exporting employee report: " + e.getMessage());
@@ -96,22 +269,29 @@ public class ReportController {
     }
 
     @GetMapping("/project/{projectId}/export")
-    public ResponseEntity<byte[]> exportProjectReport(
+    public ResponseEntity<StreamingResponseBody> exportProjectReport(
             @PathVariable Long projectId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
+        ExportFormat exportFormat;
         try {
-            ReportDTO report = reportService.getProjectReport(projectId, startDate, endDate);
-            byte[] excelData = reportService.exportToExcel(report);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "project_report_" + projectId + ".xlsx");
+            exportFormat = resolveExportFormat(format, accept);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (exportFormat == null) {
+            return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+        }
 
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(excelData);
+        try {
+            // Rows are read from a cursor and written straight to the response as they are produced
+            return buildExportResponse("project_report_" + projectId, exportFormat, useGzip(exportFormat, gzip, acceptEncoding),
+                    outputStream -> reportExportService.writeProjectReport(projectId, startDate, endDate, exportFormat, outputStream, null));
         } catch (Exception e) {
             // Log the error for debugging
             System.err.println("Error exporting project report: " + e.getMessage());
@@ -119,4 +299,87 @@ public class ReportController {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollup() {
+        try {
+            int rows = rollupService.rebuild();
+            Map<String, Object> result = new HashMap<>();
+            result.put("rows", rows);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            System.err.println("Error rebuilding report rollup: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(reportCacheService.getStats());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Void> clearCache() {
+        reportCacheService.clear();
+        return ResponseEntity.ok().build();
+    }
+
+    // An explicit ?format= wins; an unknown one, like a malformed Accept header, is an IllegalArgumentException (400).
+    // Otherwise the Accept header is read most specific and highest q first, and the first acceptable range (q > 0) that
+    // covers a format picks it; Excel first, so */* and application/* keep getting it. Without an Accept header the
+    // SPA's Excel download is the default; a header that rules out every format gives null (406).
+    private ExportFormat resolveExportFormat(String format, String accept) {
+        if (format != null && !format.isEmpty()) {
+            return ExportFormat.valueOf(format.toUpperCase());
+        }
+        if (accept == null || accept.isEmpty()) {
+            return ExportFormat.XLSX;
+        }
+
+        List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType range : acceptable) {
+            if (range.getQualityValue() <= 0) {
+                continue;
+            }
+            for (ExportFormat candidate : ExportFormat.values()) {
+                if (range.includes(MediaType.parseMediaType(candidate.getContentType()))) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    // XLSX is already a zip container, so only the text formats are compressed
+    private boolean useGzip(ExportFormat format, boolean gzip, String acceptEncoding) {
+        if (format == ExportFormat.XLSX) {
+            return false;
+        }
+        return gzip || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildExportResponse(String baseName, ExportFormat format, boolean gzip, StreamingResponseBody writer) {
+        StreamingResponseBody body = writer;
+        if (gzip) {
+            body = outputStream -> {
+                GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, 64 * 1024);
+                writer.writeTo(gzipStream);
+                gzipStream.finish();
+            };
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        // Excel keeps the generic download type the SPA has always received
+        headers.setContentType(format == ExportFormat.XLSX ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType(format.getResponseContentType()));
+        headers.setContentDispositionFormData("attachment", baseName + "." + format.getExtension());
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(body);
+    }
 }
@@ -0,0 +1,54 @@
+package com.timesheet.controller;
+
+import com.timesheet.dto.ReportJobDTO;
+import com.timesheet.dto.ReportJobRequestDTO;
+import com.timesheet.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/report-jobs")
+@CrossOrigin(origins = "*")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    @PostMapping
+    public ResponseEntity<?> submitJob(@Valid @RequestBody ReportJobRequestDTO request) {
+        try {
+            ReportJobDTO job = reportJobService.submitJob(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Report job queue is full, try again later");
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReportJobDTO> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(reportJobService.getJob(jobId));
+    }
+
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> downloadArtifact(@PathVariable String jobId) {
+        ReportJobDTO job = reportJobService.getJob(jobId);
+        Resource artifact = new FileSystemResource(reportJobService.getArtifact(jobId));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(reportJobService.getContentType(jobId)));
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(artifact);
+    }
+}
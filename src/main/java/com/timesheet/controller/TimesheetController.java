@@ -1,13 +1,29 @@
 package com.timesheet.controller;
 
+import com.timesheet.config.IdempotencyFilter;
 import com.timesheet.dto.*;
+import com.timesheet.entity.ArchivedEntryPartition;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.service.EntryPartitionService;
+import com.timesheet.service.EntryWriteBehindService;
+import com.timesheet.service.ImportJobService;
+import com.timesheet.service.IdempotencyService;
 import com.timesheet.service.TimesheetService;
+import com.timesheet.service.TimesheetTotalsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/timesheets")
@@ -17,6 +33,21 @@ public class TimesheetController {
     @Autowired
     private TimesheetService timesheetService;
 
+    @Autowired
+    private TimesheetTotalsService timesheetTotalsService;
+
+    @Autowired
+    private EntryWriteBehindService entryWriteBehindService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private EntryPartitionService entryPartitionService;
+
     @PostMapping
     public ResponseEntity<TimesheetDTO> createTimesheet(
             @RequestParam Long employeeId,
@@ -25,19 +56,88 @@ public class TimesheetController {
         return ResponseEntity.ok(timesheet);
     }
 
+    @PostMapping("/copy-previous-week")
+    public ResponseEntity<TimesheetDTO> copyPreviousWeek(
+            @RequestParam Long employeeId,
+            @RequestParam(defaultValue = "false") boolean projectsOnly,
+            @Valid @RequestBody TimesheetCreateDTO dto) {
+        TimesheetDTO timesheet = timesheetService.copyPreviousWeek(employeeId, dto, projectsOnly);
+        return ResponseEntity.ok(timesheet);
+    }
+
+    // Historical bulk load: columns employee_email, project_code, work_date, hours and optionally description.
+    // Runs as a background job; poll the returned job for progress and the result. Weeks without a timesheet are
+    // created; rejected rows are listed in the result and do not stop the import. Sending the same file again while
+    // its job is known returns that job with 200 instead of importing the rows twice.
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importEntries(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws Exception {
+        try {
+            ImportJobService.Submission submission = importJobService.submitImport(file, format);
+            if (submission.isDuplicate()) {
+                return ResponseEntity.ok().header(IdempotencyFilter.REPLAYED_HEADER, "true").body(submission.getJob());
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(submission.getJob());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Import queue is full, try again later");
+        }
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
     @PostMapping("/{id}/entries")
     public ResponseEntity<TimesheetEntryDTO> addEntry(
             @PathVariable Long id,
             @Valid @RequestBody EntryCreateDTO dto) {
-        TimesheetEntryDTO entry = timesheetService.addEntry(id, dto);
+        TimesheetEntryDTO entry = entryWriteBehindService.drainAndRun(id, () -> timesheetService.addEntry(id, dto));
         return ResponseEntity.ok(entry);
     }
 
+    @PostMapping("/{id}/entries/batch")
+    public ResponseEntity<List<TimesheetEntryDTO>> addEntries(
+            @PathVariable Long id,
+            @Valid @RequestBody EntryBatchCreateDTO dto) {
+        List<TimesheetEntryDTO> entries = entryWriteBehindService.drainAndRun(id, () -> timesheetService.addEntries(id, dto.getEntries()));
+        return ResponseEntity.ok(entries);
+    }
+
+    @PutMapping("/{id}/entries")
+    public ResponseEntity<WeekSaveResultDTO> saveWeek(
+            @PathVariable Long id,
+            @Valid @RequestBody WeekGridDTO dto) {
+        WeekSaveResultDTO result = entryWriteBehindService.drainAndRun(id, () -> timesheetService.saveWeek(id, dto.getCells(), dto.getVersion()));
+        return ResponseEntity.ok(result);
+    }
+
+    // Autosave: only the given cells change, 0 hours clears a cell. With write-behind enabled the edits are
+    // acknowledged from the write-ahead log with 202 and reach the database with the next flush; edits that carry a
+    // version are checked against it, so they are applied straight away.
+    @PatchMapping("/{id}/entries")
+    public ResponseEntity<?> editCells(
+            @PathVariable Long id,
+            @Valid @RequestBody WeekGridDTO dto) {
+        if (entryWriteBehindService.isEnabled() && dto.getVersion() == null) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("buffered", entryWriteBehindService.enqueue(id, dto.getCells()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        }
+        WeekSaveResultDTO result = entryWriteBehindService.drainAndRun(id, () -> timesheetService.applyCellEdits(id, dto.getCells(), dto.getVersion()));
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}/submit")
     public ResponseEntity<Void> submitTimesheet(
             @PathVariable Long id,
             @RequestParam Long employeeId) {
-        timesheetService.submitTimesheet(id, employeeId);
+        // Under the timesheet's write-behind lock, so no edit is acknowledged between the last flush and the submit
+        entryWriteBehindService.drainAndRun(id, () -> {
+            timesheetService.submitTimesheet(id, employeeId);
+            return null;
+        });
         return ResponseEntity.ok().build();
     }
 
@@ -58,21 +158,89 @@ public class TimesheetController {
         return ResponseEntity.ok().build();
     }
 
+    @PutMapping("/bulk/approve")
+    public ResponseEntity<BulkReviewResultDTO> approveTimesheets(
+            @RequestParam Long managerId,
+            @Valid @RequestBody BulkReviewDTO dto) {
+        BulkReviewResultDTO result = timesheetService.approveTimesheets(dto.getTimesheetIds(), managerId);
+        return ResponseEntity.ok(result);
+    }
+
+    @PutMapping("/bulk/reject")
+    public ResponseEntity<BulkReviewResultDTO> rejectTimesheets(
+            @RequestParam Long managerId,
+            @Valid @RequestBody BulkReviewDTO dto) {
+        BulkReviewResultDTO result = timesheetService.rejectTimesheets(dto.getTimesheetIds(), managerId, dto.getComment());
+        return ResponseEntity.ok(result);
+    }
+
+    // view=summary (the default) returns the weekly totals only; view=detail also includes every entry.
+    // Keyset pages: without a cursor the first page comes back; follow nextCursor with the same sort, direction and filters.
     @GetMapping("/employee/{employeeId}")
-    public ResponseEntity<List<TimesheetDTO>> getEmployeeTimesheets(@PathVariable Long employeeId) {
-        List<TimesheetDTO> timesheets = timesheetService.getEmployeeTimesheets(employeeId);
-        return ResponseEntity.ok(timesheets);
+    public ResponseEntity<CursorPageDTO<TimesheetDTO>> getEmployeeTimesheets(
+            @PathVariable Long employeeId,
+            @RequestParam(defaultValue = "summary") String view,
+            @RequestParam(required = false) TimesheetStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        if (!view.equals("summary") && !view.equals("detail")) {
+            throw new IllegalArgumentException("Unknown view: " + view + " (expected summary or detail)");
+        }
+        CursorPageDTO<TimesheetDTO> page = timesheetService.getEmployeeTimesheetPage(employeeId, view.equals("detail"), status, from, to,
+            sort, direction, cursor, pageSize, includeTotal);
+        return ResponseEntity.ok(page);
     }
 
     @GetMapping("/pending-approvals")
-    public ResponseEntity<List<TimesheetDTO>> getPendingApprovals(@RequestParam Long managerId) {
-        List<TimesheetDTO> timesheets = timesheetService.getPendingApprovalsForManager(managerId);
-        return ResponseEntity.ok(timesheets);
+    public ResponseEntity<CursorPageDTO<TimesheetDTO>> getPendingApprovals(
+            @RequestParam Long managerId,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPageDTO<TimesheetDTO> page = timesheetService.getPendingApprovalPage(managerId, sort, direction, cursor, pageSize, includeTotal);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/write-behind/stats")
+    public ResponseEntity<Map<String, Object>> getWriteBehindStats() {
+        return ResponseEntity.ok(entryWriteBehindService.getStats());
+    }
+
+    @GetMapping("/idempotency/stats")
+    public ResponseEntity<Map<String, Object>> getIdempotencyStats() {
+        return ResponseEntity.ok(idempotencyService.getStats());
+    }
+
+    @PostMapping("/totals/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileTotals() {
+        int repaired = timesheetTotalsService.reconcile();
+        Map<String, Object> result = new HashMap<>();
+        result.put("repaired", repaired);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/entry-partitions")
+    public ResponseEntity<Map<String, Object>> getEntryPartitions() {
+        return ResponseEntity.ok(entryPartitionService.describe());
+    }
+
+    // Detaches the monthly entry partitions ending on or before the month of 'before' (PostgreSQL only)
+    @PostMapping("/entry-partitions/archive")
+    public ResponseEntity<List<ArchivedEntryPartition>> archiveEntryPartitions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before) {
+        return ResponseEntity.ok(entryPartitionService.archiveBefore(before));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<TimesheetDTO> getTimesheet(@PathVariable Long id) {
-        TimesheetDTO timesheet = timesheetService.getTimesheetById(id);
+        TimesheetDTO timesheet = entryWriteBehindService.readThrough(id, () -> timesheetService.getTimesheetById(id));
         return ResponseEntity.ok(timesheet);
     }
 }
@@ -0,0 +1,30 @@
+package com.timesheet.dto;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class BulkReviewDTO {
+    @NotEmpty(message = "At least one timesheet id is required")
+    @Size(max = 500, message = "At most 500 timesheets can be reviewed at once")
+    private List<@NotNull Long> timesheetIds;
+
+    // Only used for rejections
+    private String comment;
+
+    // Constructors
+    public BulkReviewDTO() {}
+
+    public BulkReviewDTO(List<Long> timesheetIds, String comment) {
+        this.timesheetIds = timesheetIds;
+        this.comment = comment;
+    }
+
+    // Getters and Setters
+    public List<Long> getTimesheetIds() { return timesheetIds; }
+    public void setTimesheetIds(List<Long> timesheetIds) { this.timesheetIds = timesheetIds; }
+
+    public String getComment() { return comment; }
+    public void setComment(String comment) { this.comment = comment; }
+}
@@ -0,0 +1,65 @@
+package com.timesheet.dto;
+
+import com.timesheet.enums.TimesheetStatus;
+import java.util.List;
+
+public class BulkReviewResultDTO {
+    private TimesheetStatus targetStatus;
+    private Integer succeeded;
+    private Integer conflicts;
+    private List<ReviewOutcome> results;
+
+    // Constructors
+    public BulkReviewResultDTO() {}
+
+    public BulkReviewResultDTO(TimesheetStatus targetStatus, Integer succeeded, Integer conflicts, List<ReviewOutcome> results) {
+        this.targetStatus = targetStatus;
+        this.succeeded = succeeded;
+        this.conflicts = conflicts;
+        this.results = results;
+    }
+
+    // Getters and Setters
+    public TimesheetStatus getTargetStatus() { return targetStatus; }
+    public void setTargetStatus(TimesheetStatus targetStatus) { this.targetStatus = targetStatus; }
+
+    public Integer getSucceeded() { return succeeded; }
+    public void setSucceeded(Integer succeeded) { this.succeeded = succeeded; }
+
+    public Integer getConflicts() { return conflicts; }
+    public void setConflicts(Integer conflicts) { this.conflicts = conflicts; }
+
+    public List<ReviewOutcome> getResults() { return results; }
+    public void setResults(List<ReviewOutcome> results) { this.results = results; }
+
+    // Inner class for the outcome of one timesheet; status is what the timesheet is in now, null if it does not exist
+    public static class ReviewOutcome {
+        private Long timesheetId;
+        private Boolean success;
+        private TimesheetStatus status;
+        private String message;
+
+        // Constructors
+        public ReviewOutcome() {}
+
+        public ReviewOutcome(Long timesheetId, Boolean success, TimesheetStatus status, String message) {
+            this.timesheetId = timesheetId;
+            this.success = success;
+            this.status = status;
+            this.message = message;
+        }
+
+        // Getters and Setters
+        public Long getTimesheetId() { return timesheetId; }
+        public void setTimesheetId(Long timesheetId) { this.timesheetId = timesheetId; }
+
+        public Boolean getSuccess() { return success; }
+        public void setSuccess(Boolean success) { this.success = success; }
+
+        public TimesheetStatus getStatus() { return status; }
+        public void setStatus(TimesheetStatus status) { this.status = status; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -0,0 +1,28 @@
+package com.timesheet.dto;
+
+import java.util.List;
+
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+    private Long totalCount;
+
+    // Constructors
+    public CursorPageDTO() {}
+
+    public CursorPageDTO(List<T> items, String nextCursor, Long totalCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Long getTotalCount() { return totalCount; }
+    public void setTotalCount(Long totalCount) { this.totalCount = totalCount; }
+}
@@ -37,6 +37,13 @@ public class EmployeeDTO {
         this.fullName = firstName + " " + lastName;
     }
 
+    // Used by the list projections in EmployeeRepository; the name is dropped when there is no manager, since CONCAT of nulls is not null on every database
+    public EmployeeDTO(Long id, String email, String firstName, String lastName, UserRole role, Long managerId, String managerName) {
+        this(id, email, firstName, lastName, role);
+        this.managerId = managerId;
+        this.managerName = managerId != null ? managerName : null;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,23 @@
+package com.timesheet.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class EntryBatchCreateDTO {
+    @NotEmpty(message = "At least one entry is required")
+    @Size(max = 500, message = "At most 500 entries can be saved at once")
+    private List<@Valid EntryCreateDTO> entries;
+
+    // Constructors
+    public EntryBatchCreateDTO() {}
+
+    public EntryBatchCreateDTO(List<EntryCreateDTO> entries) {
+        this.entries = entries;
+    }
+
+    // Getters and Setters
+    public List<EntryCreateDTO> getEntries() { return entries; }
+    public void setEntries(List<EntryCreateDTO> entries) { this.entries = entries; }
+}
@@ -0,0 +1,85 @@
+package com.timesheet.dto;
+
+import com.timesheet.enums.SeriesGranularity;
+import com.timesheet.enums.SeriesSplit;
+import java.time.LocalDate;
+import java.util.List;
+
+public class HoursSeriesDTO {
+    private Long employeeId;
+    private Long projectId;
+    private Long managerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private SeriesGranularity granularity;
+    private SeriesSplit splitBy;
+    private Double totalHours;
+    private List<SeriesBucket> buckets;
+
+    // Constructors
+    public HoursSeriesDTO() {}
+
+    // Getters and Setters
+    public Long getEmployeeId() { return employeeId; }
+    public void setEmployeeId(Long employeeId) { this.employeeId = employeeId; }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public Long getManagerId() { return managerId; }
+    public void setManagerId(Long managerId) { this.managerId = managerId; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public SeriesGranularity getGranularity() { return granularity; }
+    public void setGranularity(SeriesGranularity granularity) { this.granularity = granularity; }
+
+    public SeriesSplit getSplitBy() { return splitBy; }
+    public void setSplitBy(SeriesSplit splitBy) { this.splitBy = splitBy; }
+
+    public Double getTotalHours() { return totalHours; }
+    public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
+
+    public List<SeriesBucket> getBuckets() { return buckets; }
+    public void setBuckets(List<SeriesBucket> buckets) { this.buckets = buckets; }
+
+    // Inner class for series buckets; seriesId and seriesName are null when the series is not split
+    public static class SeriesBucket {
+        private LocalDate bucketStart;
+        private Long seriesId;
+        private String seriesName;
+        private Double hours;
+        private Double cumulativeHours;
+
+        // Constructors
+        public SeriesBucket() {}
+
+        public SeriesBucket(LocalDate bucketStart, Long seriesId, String seriesName, Double hours, Double cumulativeHours) {
+            this.bucketStart = bucketStart;
+            this.seriesId = seriesId;
+            this.seriesName = seriesName;
+            this.hours = hours;
+            this.cumulativeHours = cumulativeHours;
+        }
+
+        // Getters and Setters
+        public LocalDate getBucketStart() { return bucketStart; }
+        public void setBucketStart(LocalDate bucketStart) { this.bucketStart = bucketStart; }
+
+        public Long getSeriesId() { return seriesId; }
+        public void setSeriesId(Long seriesId) { this.seriesId = seriesId; }
+
+        public String getSeriesName() { return seriesName; }
+        public void setSeriesName(String seriesName) { this.seriesName = seriesName; }
+
+        public Double getHours() { return hours; }
+        public void setHours(Double hours) { this.hours = hours; }
+
+        public Double getCumulativeHours() { return cumulativeHours; }
+        public void setCumulativeHours(Double cumulativeHours) { this.cumulativeHours = cumulativeHours; }
+    }
+}
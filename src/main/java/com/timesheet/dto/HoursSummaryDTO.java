@@ -0,0 +1,37 @@
+package com.timesheet.dto;
+
+public class HoursSummaryDTO {
+    private Long id;
+    private String label;
+    private Double hours;
+    private Long entryCount;
+
+    // Constructors
+    public HoursSummaryDTO() {}
+
+    public HoursSummaryDTO(Long id, String label, Double hours) {
+        this.id = id;
+        this.label = label;
+        this.hours = hours;
+    }
+
+    public HoursSummaryDTO(Long id, String label, Double hours, Long entryCount) {
+        this.id = id;
+        this.label = label;
+        this.hours = hours;
+        this.entryCount = entryCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public Double getHours() { return hours; }
+    public void setHours(Double hours) { this.hours = hours; }
+
+    public Long getEntryCount() { return entryCount; }
+    public void setEntryCount(Long entryCount) { this.entryCount = entryCount; }
+}
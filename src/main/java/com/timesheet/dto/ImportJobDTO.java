@@ -0,0 +1,59 @@
+package com.timesheet.dto;
+
+import com.timesheet.enums.ImportJobStatus;
+import java.time.LocalDateTime;
+
+public class ImportJobDTO {
+    private String id;
+    private String fileName;
+    private String format;
+    private String uploadHash;
+    private ImportJobStatus status;
+    private Long rowsRead;
+    private ImportResultDTO result;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;
+
+    // Constructors
+    public ImportJobDTO() {}
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+
+    public String getUploadHash() { return uploadHash; }
+    public void setUploadHash(String uploadHash) { this.uploadHash = uploadHash; }
+
+    public ImportJobStatus getStatus() { return status; }
+    public void setStatus(ImportJobStatus status) { this.status = status; }
+
+    public Long getRowsRead() { return rowsRead; }
+    public void setRowsRead(Long rowsRead) { this.rowsRead = rowsRead; }
+
+    public ImportResultDTO getResult() { return result; }
+    public void setResult(ImportResultDTO result) { this.result = result; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,70 @@
+package com.timesheet.dto;
+
+import java.util.List;
+
+public class ImportResultDTO {
+    private Long rowsRead;
+    private Long rowsImported;
+    private Long rowsFailed;
+    private Integer timesheetsCreated;
+    private Long durationMs;
+    private List<RowError> errors;
+    private Boolean errorsTruncated;
+
+    // Constructors
+    public ImportResultDTO() {}
+
+    public ImportResultDTO(Long rowsRead, Long rowsImported, Long rowsFailed, Integer timesheetsCreated, Long durationMs,
+                           List<RowError> errors, Boolean errorsTruncated) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsFailed = rowsFailed;
+        this.timesheetsCreated = timesheetsCreated;
+        this.durationMs = durationMs;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    // Getters and Setters
+    public Long getRowsRead() { return rowsRead; }
+    public void setRowsRead(Long rowsRead) { this.rowsRead = rowsRead; }
+
+    public Long getRowsImported() { return rowsImported; }
+    public void setRowsImported(Long rowsImported) { this.rowsImported = rowsImported; }
+
+    public Long getRowsFailed() { return rowsFailed; }
+    public void setRowsFailed(Long rowsFailed) { this.rowsFailed = rowsFailed; }
+
+    public Integer getTimesheetsCreated() { return timesheetsCreated; }
+    public void setTimesheetsCreated(Integer timesheetsCreated) { this.timesheetsCreated = timesheetsCreated; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
+    public List<RowError> getErrors() { return errors; }
+    public void setErrors(List<RowError> errors) { this.errors = errors; }
+
+    public Boolean getErrorsTruncated() { return errorsTruncated; }
+    public void setErrorsTruncated(Boolean errorsTruncated) { this.errorsTruncated = errorsTruncated; }
+
+    // Inner class for a rejected row; row numbers are 1-based and count the header row
+    public static class RowError {
+        private Long row;
+        private String message;
+
+        // Constructors
+        public RowError() {}
+
+        public RowError(Long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        // Getters and Setters
+        public Long getRow() { return row; }
+        public void setRow(Long row) { this.row = row; }
+
+        public String getMessage() { return message; }
+        public void setMessage(String message) { this.message = message; }
+    }
+}
@@ -0,0 +1,66 @@
+package com.timesheet.dto;
+
+import com.timesheet.enums.PivotDimension;
+import java.util.List;
+
+public class PivotResultDTO {
+    private PivotDimension rowDimension;
+    private PivotDimension columnDimension;
+    private Double totalHours;
+    private Long totalEntries;
+    private Long rowsScanned;
+    private List<PivotCell> cells;
+
+    // Constructors
+    public PivotResultDTO() {}
+
+    // Getters and Setters
+    public PivotDimension getRowDimension() { return rowDimension; }
+    public void setRowDimension(PivotDimension rowDimension) { this.rowDimension = rowDimension; }
+
+    public PivotDimension getColumnDimension() { return columnDimension; }
+    public void setColumnDimension(PivotDimension columnDimension) { this.columnDimension = columnDimension; }
+
+    public Double getTotalHours() { return totalHours; }
+    public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
+
+    public Long getTotalEntries() { return totalEntries; }
+    public void setTotalEntries(Long totalEntries) { this.totalEntries = totalEntries; }
+
+    public Long getRowsScanned() { return rowsScanned; }
+    public void setRowsScanned(Long rowsScanned) { this.rowsScanned = rowsScanned; }
+
+    public List<PivotCell> getCells() { return cells; }
+    public void setCells(List<PivotCell> cells) { this.cells = cells; }
+
+    // Inner class for pivot cells
+    public static class PivotCell {
+        private String row;
+        private String column;
+        private Double hours;
+        private Integer entries;
+
+        // Constructors
+        public PivotCell() {}
+
+        public PivotCell(String row, String column, Double hours, Integer entries) {
+            this.row = row;
+            this.column = column;
+            this.hours = hours;
+            this.entries = entries;
+        }
+
+        // Getters and Setters
+        public String getRow() { return row; }
+        public void setRow(String row) { this.row = row; }
+
+        public String getColumn() { return column; }
+        public void setColumn(String column) { this.column = column; }
+
+        public Double getHours() { return hours; }
+        public void setHours(Double hours) { this.hours = hours; }
+
+        public Integer getEntries() { return entries; }
+        public void setEntries(Integer entries) { this.entries = entries; }
+    }
+}
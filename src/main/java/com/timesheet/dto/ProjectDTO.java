@@ -29,6 +29,17 @@ public class ProjectDTO {
         this.description = description;
     }
 
+    // Used by the list projections in ProjectRepository
+    public ProjectDTO(Long id, String projectCode, String projectName, String description, LocalDate startDate, LocalDate endDate,
+                      Boolean isActive, Long projectManagerId, String projectManagerName) {
+        this(id, projectCode, projectName, description);
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.isActive = isActive;
+        this.projectManagerId = projectManagerId;
+        this.projectManagerName = projectManagerId != null ? projectManagerName : null;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
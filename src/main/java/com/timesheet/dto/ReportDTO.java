@@ -13,7 +13,10 @@ public class ReportDTO {
     private Double totalHours;
     private Map<String, Double> projectHours;
     private Map<String, Double> employeeHours;
+    private Map<String, Double> weeklyHours;
     private List<ReportItem> entries;
+    private Long totalEntries;
+    private String nextCursor;
 
     // Constructors
     public ReportDTO() {}
@@ -43,11 +46,21 @@ public class ReportDTO {
     public Map<String, Double> getEmployeeHours() { return employeeHours; }
     public void setEmployeeHours(Map<String, Double> employeeHours) { this.employeeHours = employeeHours; }
 
+    public Map<String, Double> getWeeklyHours() { return weeklyHours; }
+    public void setWeeklyHours(Map<String, Double> weeklyHours) { this.weeklyHours = weeklyHours; }
+
     public List<ReportItem> getEntries() { return entries; }
     public void setEntries(List<ReportItem> entries) { this.entries = entries; }
 
+    public Long getTotalEntries() { return totalEntries; }
+    public void setTotalEntries(Long totalEntries) { this.totalEntries = totalEntries; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
     // Inner class for report items
     public static class ReportItem {
+        private Long id;
         private LocalDate workDate;
         private String employeeName;
         private String projectName;
@@ -58,7 +71,20 @@ public class ReportDTO {
         // Constructors
         public ReportItem() {}
 
+        public ReportItem(Long id, LocalDate workDate, String employeeName, String projectName, String projectCode, Double hoursWorked, String taskDescription) {
+            this.id = id;
+            this.workDate = workDate;
+            this.employeeName = employeeName;
+            this.projectName = projectName;
+            this.projectCode = projectCode;
+            this.hoursWorked = hoursWorked;
+            this.taskDescription = taskDescription;
+        }
+
         // Getters and Setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+
         public LocalDate getWorkDate() { return workDate; }
         public void setWorkDate(LocalDate workDate) { this.workDate = workDate; }
 
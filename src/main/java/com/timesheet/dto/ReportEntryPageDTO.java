@@ -0,0 +1,23 @@
+package com.timesheet.dto;
+
+import java.util.List;
+
+public class ReportEntryPageDTO {
+    private List<ReportDTO.ReportItem> entries;
+    private String nextCursor;
+
+    // Constructors
+    public ReportEntryPageDTO() {}
+
+    public ReportEntryPageDTO(List<ReportDTO.ReportItem> entries, String nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<ReportDTO.ReportItem> getEntries() { return entries; }
+    public void setEntries(List<ReportDTO.ReportItem> entries) { this.entries = entries; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
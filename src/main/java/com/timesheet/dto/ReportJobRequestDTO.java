@@ -0,0 +1,50 @@
+package com.timesheet.dto;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+public class ReportJobRequestDTO {
+    // EMPLOYEE, PROJECT, MANAGER or ORGANIZATION
+    @NotBlank(message = "Report type is required")
+    private String reportType;
+
+    // Not used for ORGANIZATION reports
+    private Long targetId;
+
+    @NotNull(message = "Start date is required")
+    private LocalDate startDate;
+
+    @NotNull(message = "End date is required")
+    private LocalDate endDate;
+
+    // JSON, XLSX, CSV or NDJSON; defaults to JSON
+    private String format;
+
+    // Constructors
+    public ReportJobRequestDTO() {}
+
+    public ReportJobRequestDTO(String reportType, Long targetId, LocalDate startDate, LocalDate endDate, String format) {
+        this.reportType = reportType;
+        this.targetId = targetId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.format = format;
+    }
+
+    // Getters and Setters
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+
+    public Long getTargetId() { return targetId; }
+    public void setTargetId(Long targetId) { this.targetId = targetId; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+}
@@ -4,6 +4,7 @@ import com.timesheet.enums.TimesheetStatus;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
 public class TimesheetDTO {
@@ -18,6 +19,7 @@ public class TimesheetDTO {
     private LocalDate weekEndDate;
 
     private TimesheetStatus status;
+    private Long version;
     private List<TimesheetEntryDTO> entries;
     private String rejectionComment;
     private Long approvedById;
@@ -25,6 +27,7 @@ public class TimesheetDTO {
     private LocalDateTime submittedAt;
     private LocalDateTime approvedAt;
     private Double totalHours;
+    private List<Double> dailyHours;
 
     // Constructors
     public TimesheetDTO() {}
@@ -38,6 +41,28 @@ public class TimesheetDTO {
         this.status = status;
     }
 
+    // Used by the summary projections in TimesheetRepository; stored hours that were never set read as 0
+    // and the approver name is dropped when nobody approved (CONCAT of nulls is not null on every database)
+    public TimesheetDTO(Long id, Long employeeId, String employeeName, LocalDate weekStartDate, LocalDate weekEndDate, TimesheetStatus status,
+                        Long version, String rejectionComment, LocalDateTime submittedAt, LocalDateTime approvedAt,
+                        Long approvedById, String approvedByName, Double totalHours,
+                        Double day1Hours, Double day2Hours, Double day3Hours, Double day4Hours, Double day5Hours, Double day6Hours, Double day7Hours) {
+        this(id, employeeId, employeeName, weekStartDate, weekEndDate, status);
+        this.version = version;
+        this.rejectionComment = rejectionComment;
+        this.submittedAt = submittedAt;
+        this.approvedAt = approvedAt;
+        this.approvedById = approvedById;
+        this.approvedByName = approvedById != null ? approvedByName : null;
+        this.totalHours = totalHours != null ? totalHours : 0.0;
+        this.dailyHours = Arrays.asList(hoursOrZero(day1Hours), hoursOrZero(day2Hours), hoursOrZero(day3Hours), hoursOrZero(day4Hours),
+            hoursOrZero(day5Hours), hoursOrZero(day6Hours), hoursOrZero(day7Hours));
+    }
+
+    private static Double hoursOrZero(Double hours) {
+        return hours != null ? hours : 0.0;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -57,6 +82,9 @@ public class TimesheetDTO {
     public TimesheetStatus getStatus() { return status; }
     public void setStatus(TimesheetStatus status) { this.status = status; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public List<TimesheetEntryDTO> getEntries() { return entries; }
     public void setEntries(List<TimesheetEntryDTO> entries) { this.entries = entries; }
 
@@ -77,4 +105,7 @@ public class TimesheetDTO {
 
     public Double getTotalHours() { return totalHours; }
     public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
+
+    public List<Double> getDailyHours() { return dailyHours; }
+    public void setDailyHours(List<Double> dailyHours) { this.dailyHours = dailyHours; }
 }
@@ -0,0 +1,31 @@
+package com.timesheet.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+// The full desired state of a timesheet week: one cell per project and day, anything not listed is removed
+public class WeekGridDTO {
+    @NotNull(message = "Cells are required")
+    @Size(max = 500, message = "At most 500 cells can be saved at once")
+    private List<@Valid EntryCreateDTO> cells;
+
+    // Version of the timesheet the grid was built from (TimesheetDTO.version); optional. When given, a timesheet that
+    // has changed since is not overwritten and the save answers 409.
+    private Long version;
+
+    // Constructors
+    public WeekGridDTO() {}
+
+    public WeekGridDTO(List<EntryCreateDTO> cells) {
+        this.cells = cells;
+    }
+
+    // Getters and Setters
+    public List<EntryCreateDTO> getCells() { return cells; }
+    public void setCells(List<EntryCreateDTO> cells) { this.cells = cells; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -0,0 +1,50 @@
+package com.timesheet.dto;
+
+import java.util.List;
+
+public class WeekSaveResultDTO {
+    private Integer inserted;
+    private Integer updated;
+    private Integer deleted;
+    private Integer unchanged;
+    private Double totalHours;
+    // Version of the timesheet after the save; send it with the next grid
+    private Long version;
+    private List<TimesheetEntryDTO> entries;
+
+    // Constructors
+    public WeekSaveResultDTO() {}
+
+    public WeekSaveResultDTO(Integer inserted, Integer updated, Integer deleted, Integer unchanged, Double totalHours, Long version,
+                             List<TimesheetEntryDTO> entries) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.unchanged = unchanged;
+        this.totalHours = totalHours;
+        this.version = version;
+        this.entries = entries;
+    }
+
+    // Getters and Setters
+    public Integer getInserted() { return inserted; }
+    public void setInserted(Integer inserted) { this.inserted = inserted; }
+
+    public Integer getUpdated() { return updated; }
+    public void setUpdated(Integer updated) { this.updated = updated; }
+
+    public Integer getDeleted() { return deleted; }
+    public void setDeleted(Integer deleted) { this.deleted = deleted; }
+
+    public Integer getUnchanged() { return unchanged; }
+    public void setUnchanged(Integer unchanged) { this.unchanged = unchanged; }
+
+    public Double getTotalHours() { return totalHours; }
+    public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public List<TimesheetEntryDTO> getEntries() { return entries; }
+    public void setEntries(List<TimesheetEntryDTO> entries) { this.entries = entries; }
+}
@@ -0,0 +1,54 @@
+package com.timesheet.entity;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// A monthly timesheet_entries partition detached from the live table and moved to the timesheet_archive schema
+@Entity
+@Table(name = "archived_entry_partitions")
+public class ArchivedEntryPartition {
+    @Id
+    @Column(name = "partition_name", length = 63)
+    private String partitionName;
+
+    @Column(name = "range_start", nullable = false)
+    private LocalDate rangeStart;
+
+    // Exclusive, like the partition bound
+    @Column(name = "range_end", nullable = false)
+    private LocalDate rangeEnd;
+
+    @Column(name = "row_count", nullable = false)
+    private Long rowCount;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructors
+    public ArchivedEntryPartition() {}
+
+    public ArchivedEntryPartition(String partitionName, LocalDate rangeStart, LocalDate rangeEnd, Long rowCount, LocalDateTime archivedAt) {
+        this.partitionName = partitionName;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+        this.rowCount = rowCount;
+        this.archivedAt = archivedAt;
+    }
+
+    // Getters and Setters
+    public String getPartitionName() { return partitionName; }
+    public void setPartitionName(String partitionName) { this.partitionName = partitionName; }
+
+    public LocalDate getRangeStart() { return rangeStart; }
+    public void setRangeStart(LocalDate rangeStart) { this.rangeStart = rangeStart; }
+
+    public LocalDate getRangeEnd() { return rangeEnd; }
+    public void setRangeEnd(LocalDate rangeEnd) { this.rangeEnd = rangeEnd; }
+
+    public Long getRowCount() { return rowCount; }
+    public void setRowCount(Long rowCount) { this.rowCount = rowCount; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
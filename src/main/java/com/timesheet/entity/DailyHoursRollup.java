@@ -0,0 +1,65 @@
+package com.timesheet.entity;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_hours_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_hours_rollups_employee_project_date", columnNames = {"employee_id", "project_id", "work_date"}),
+       indexes = {
+           @Index(name = "idx_daily_hours_rollups_employee_date", columnList = "employee_id, work_date, project_id, total_hours, entry_count"),
+           @Index(name = "idx_daily_hours_rollups_project_date", columnList = "project_id, work_date, employee_id, total_hours, entry_count"),
+           @Index(name = "idx_daily_hours_rollups_work_date", columnList = "work_date")
+       })
+public class DailyHoursRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", nullable = false)
+    private Employee employee;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private Project project;
+
+    @Column(name = "work_date", nullable = false)
+    private LocalDate workDate;
+
+    @Column(name = "total_hours", nullable = false)
+    private Double totalHours = 0.0;
+
+    @Column(name = "entry_count", nullable = false)
+    private Integer entryCount = 0;
+
+    // Constructors
+    public DailyHoursRollup() {}
+
+    public DailyHoursRollup(Employee employee, Project project, LocalDate workDate, Double totalHours, Integer entryCount) {
+        this.employee = employee;
+        this.project = project;
+        this.workDate = workDate;
+        this.totalHours = totalHours;
+        this.entryCount = entryCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Employee getEmployee() { return employee; }
+    public void setEmployee(Employee employee) { this.employee = employee; }
+
+    public Project getProject() { return project; }
+    public void setProject(Project project) { this.project = project; }
+
+    public LocalDate getWorkDate() { return workDate; }
+    public void setWorkDate(LocalDate workDate) { this.workDate = workDate; }
+
+    public Double getTotalHours() { return totalHours; }
+    public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
+
+    public Integer getEntryCount() { return entryCount; }
+    public void setEntryCount(Integer entryCount) { this.entryCount = entryCount; }
+}
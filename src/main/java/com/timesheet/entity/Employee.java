@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+    @Index(name = "idx_employees_name_id", columnList = "lastName, firstName, id"),
+    @Index(name = "idx_employees_manager_id", columnList = "manager_id, id")
+})
 public class Employee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -6,7 +6,10 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "projects")
+@Table(name = "projects", indexes = {
+    @Index(name = "idx_projects_name_id", columnList = "projectName, id"),
+    @Index(name = "idx_projects_manager_id", columnList = "manager_id, id")
+})
 public class Project {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,14 +1,40 @@
 package com.timesheet.entity;
 
 import com.timesheet.enums.TimesheetStatus;
+import org.hibernate.annotations.BatchSize;
+
 import javax.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Set;
 
 @Entity
-@Table(name = "timesheets")
+// Fetch plans for the read views, applied through TimesheetRepository: lists show the employee and approver names,
+// the detail view also every entry with its project
+@NamedEntityGraph(name = Timesheet.SUMMARY_GRAPH, attributeNodes = {
+    @NamedAttributeNode("employee"),
+    @NamedAttributeNode("approvedBy")
+})
+@NamedEntityGraph(name = Timesheet.DETAIL_GRAPH, attributeNodes = {
+    @NamedAttributeNode("employee"),
+    @NamedAttributeNode("approvedBy"),
+    @NamedAttributeNode(value = "entries", subgraph = "entries")
+}, subgraphs = @NamedSubgraph(name = "entries", attributeNodes = @NamedAttributeNode("project")))
+// One timesheet per employee and week, enforced by the database so concurrent creates cannot both insert
+@Table(name = "timesheets",
+       uniqueConstraints = @UniqueConstraint(name = "uk_timesheets_employee_week", columnNames = {"employee_id", "weekStartDate"}),
+       indexes = {
+           @Index(name = "idx_timesheets_status_employee", columnList = "status, employee_id"),
+           @Index(name = "idx_timesheets_employee_updated_at", columnList = "employee_id, updatedAt"),
+           @Index(name = "idx_timesheets_approved_by_approved_at", columnList = "approved_by, approvedAt"),
+           @Index(name = "idx_timesheets_week_start_date", columnList = "weekStartDate")
+       })
 public class Timesheet {
+    public static final int DAYS_PER_WEEK = 7;
+    public static final String SUMMARY_GRAPH = "Timesheet.summary";
+    public static final String DETAIL_GRAPH = "Timesheet.detail";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -27,12 +53,44 @@ public class Timesheet {
     @Column(nullable = false)
     private TimesheetStatus status = TimesheetStatus.DRAFT;
 
+    // Bumped by entity saves and by every workflow transition, which are conditional updates rather than entity saves.
+    // The column default fills rows created before the column existed.
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long version;
+
+    // Paths that still load entries lazily for several timesheets initialize them in batches, not one query each
     @OneToMany(mappedBy = "timesheet", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private Set<TimesheetEntry> entries;
 
-    @Column(name = "total_hours")
+    // Denormalized from the entries and only ever changed by in-place increments (see TimesheetTotalsService).
+    // Not updatable through the entity, so flushing a stale copy cannot overwrite a concurrent increment.
+    @Column(name = "total_hours", updatable = false)
     private Double totalHours = 0.0;
 
+    // Hours per day of the week, day 1 being weekStartDate; maintained the same way as totalHours
+    @Column(name = "day1_hours", updatable = false)
+    private Double day1Hours = 0.0;
+
+    @Column(name = "day2_hours", updatable = false)
+    private Double day2Hours = 0.0;
+
+    @Column(name = "day3_hours", updatable = false)
+    private Double day3Hours = 0.0;
+
+    @Column(name = "day4_hours", updatable = false)
+    private Double day4Hours = 0.0;
+
+    @Column(name = "day5_hours", updatable = false)
+    private Double day5Hours = 0.0;
+
+    @Column(name = "day6_hours", updatable = false)
+    private Double day6Hours = 0.0;
+
+    @Column(name = "day7_hours", updatable = false)
+    private Double day7Hours = 0.0;
+
     private String rejectionComment;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -83,12 +141,51 @@ public class Timesheet {
     public TimesheetStatus getStatus() { return status; }
     public void setStatus(TimesheetStatus status) { this.status = status; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Set<TimesheetEntry> getEntries() { return entries; }
     public void setEntries(Set<TimesheetEntry> entries) { this.entries = entries; }
 
     public Double getTotalHours() { return totalHours; }
     public void setTotalHours(Double totalHours) { this.totalHours = totalHours; }
 
+    // Index into the per-day hours for a work date, or -1 if the date is outside this timesheet's week
+    public int dayIndexOf(LocalDate workDate) {
+        if (workDate.isBefore(weekStartDate) || workDate.isAfter(weekEndDate)) {
+            return -1;
+        }
+        long index = ChronoUnit.DAYS.between(weekStartDate, workDate);
+        return index < DAYS_PER_WEEK ? (int) index : -1;
+    }
+
+    public double[] getDailyHours() {
+        Double[] days = { day1Hours, day2Hours, day3Hours, day4Hours, day5Hours, day6Hours, day7Hours };
+        double[] hours = new double[DAYS_PER_WEEK];
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            hours[i] = days[i] != null ? days[i] : 0.0;
+        }
+        return hours;
+    }
+
+    // Mirrors an in-place increment already written to the database onto this instance
+    public void addHours(double[] dayDeltas) {
+        double[] hours = getDailyHours();
+        double total = totalHours != null ? totalHours : 0.0;
+        for (int i = 0; i < DAYS_PER_WEEK; i++) {
+            hours[i] += dayDeltas[i];
+            total += dayDeltas[i];
+        }
+        day1Hours = hours[0];
+        day2Hours = hours[1];
+        day3Hours = hours[2];
+        day4Hours = hours[3];
+        day5Hours = hours[4];
+        day6Hours = hours[5];
+        day7Hours = hours[6];
+        totalHours = total;
+    }
+
     public String getRejectionComment() { return rejectionComment; }
     public void setRejectionComment(String rejectionComment) { this.rejectionComment = rejectionComment; }
 
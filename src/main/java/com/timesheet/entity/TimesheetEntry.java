@@ -8,10 +8,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "timesheet_entries")
+@Table(name = "timesheet_entries", indexes = {
+    @Index(name = "idx_timesheet_entries_work_date_id", columnList = "workDate, id"),
+    @Index(name = "idx_timesheet_entries_project_work_date_cover", columnList = "project_id, workDate, id, timesheet_id, hoursWorked"),
+    @Index(name = "idx_timesheet_entries_timesheet_work_date", columnList = "timesheet_id, workDate, project_id, hoursWorked")
+})
 public class TimesheetEntry {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY: ids are known before the insert, so Hibernate can batch the inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "timesheet_entries_seq")
+    @SequenceGenerator(name = "timesheet_entries_seq", sequenceName = "timesheet_entries_seq", allocationSize = TimesheetEntry.ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,24 @@
+package com.timesheet.enums;
+
+public enum ExportFormat {
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx"),
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+
+    // What responses declare: the text formats are always written as UTF-8
+    public String getResponseContentType() {
+        return this == XLSX ? contentType : contentType + ";charset=UTF-8";
+    }
+
+    public String getExtension() { return extension; }
+}
@@ -0,0 +1,5 @@
+package com.timesheet.enums;
+
+public enum ImportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
@@ -0,0 +1,5 @@
+package com.timesheet.enums;
+
+public enum PivotDimension {
+    EMPLOYEE, MANAGER, PROJECT, WEEK, MONTH, STATUS
+}
@@ -0,0 +1,5 @@
+package com.timesheet.enums;
+
+public enum ReportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
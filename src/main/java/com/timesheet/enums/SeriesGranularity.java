@@ -0,0 +1,5 @@
+package com.timesheet.enums;
+
+public enum SeriesGranularity {
+    DAY, WEEK, MONTH
+}
@@ -0,0 +1,5 @@
+package com.timesheet.enums;
+
+public enum SeriesSplit {
+    NONE, PROJECT, EMPLOYEE
+}
@@ -0,0 +1,27 @@
+package com.timesheet.repository;
+
+import com.timesheet.entity.ArchivedEntryPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ArchivedEntryPartitionRepository extends JpaRepository<ArchivedEntryPartition, String> {
+
+    // Lower bound of the entries still in the live table when nothing has been archived
+    LocalDate NOTHING_ARCHIVED = LocalDate.of(1900, 1, 1);
+
+    List<ArchivedEntryPartition> findAllByOrderByRangeStart();
+
+    @Query("SELECT MAX(a.rangeEnd) FROM ArchivedEntryPartition a")
+    LocalDate findArchivedBefore();
+
+    // Entries before this date have been archived; jobs that compare entries with the totals or the rollup start here
+    default LocalDate findLiveEntriesFrom() {
+        LocalDate archivedBefore = findArchivedBefore();
+        return archivedBefore != null ? archivedBefore : NOTHING_ARCHIVED;
+    }
+}
@@ -0,0 +1,152 @@
+package com.timesheet.repository;
+
+import com.timesheet.dto.HoursSummaryDTO;
+import com.timesheet.entity.DailyHoursRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyHoursRollupRepository extends JpaRepository<DailyHoursRollup, Long> {
+
+    // Time series building blocks. Each rollup row is mapped to its bucket start (Monday for ISO weeks) and series key,
+    // then grouped; the window sums the grouped hours into a running total per series.
+    // Columns: bucket start, series id, hours, cumulative hours
+    String SERIES_SELECT =
+        "SELECT s.bucket_start, s.series_id, SUM(s.total_hours) AS hours, " +
+        "SUM(SUM(s.total_hours)) OVER (PARTITION BY s.series_id ORDER BY s.bucket_start) AS cumulative_hours " +
+        "FROM (" +
+        "  SELECT CASE :granularity" +
+        "    WHEN 'DAY' THEN r.work_date" +
+        "    WHEN 'WEEK' THEN CAST(r.work_date - CAST(EXTRACT(ISODOW FROM r.work_date) AS INTEGER) + 1 AS DATE)" +
+        "    ELSE CAST(DATE_TRUNC('month', r.work_date) AS DATE) END AS bucket_start," +
+        "  CASE :splitBy WHEN 'PROJECT' THEN r.project_id WHEN 'EMPLOYEE' THEN r.employee_id ELSE 0 END AS series_id," +
+        "  r.employee_id, r.total_hours" +
+        "  FROM daily_hours_rollups r" +
+        "  WHERE r.work_date BETWEEN :startDate AND :endDate ";
+
+    String SERIES_GROUP =
+        " GROUP BY s.bucket_start, s.series_id " +
+        "ORDER BY s.series_id, s.bucket_start";
+
+    // Rollup statements only touch rollup rows, which are never left pending in the session, so they skip the auto-flush
+    // that would otherwise dirty-check every entity in a large write before each delta
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("UPDATE DailyHoursRollup r SET r.totalHours = r.totalHours + :hoursDelta, r.entryCount = r.entryCount + :countDelta " +
+           "WHERE r.employee.id = :employeeId AND r.project.id = :projectId AND r.workDate = :workDate")
+    int applyDelta(@Param("employeeId") Long employeeId, @Param("projectId") Long projectId, @Param("workDate") LocalDate workDate,
+                   @Param("hoursDelta") Double hoursDelta, @Param("countDelta") Integer countDelta);
+
+    // Adds to the row for the key or creates it, in one statement, so two transactions writing the first entry for a key
+    // both succeed instead of one failing on the unique constraint. The syntax differs: PostgreSQL has ON CONFLICT, H2 MERGE.
+    // Bulk writers batch the same statements through JDBC.
+    String UPSERT_DELTA_ON_CONFLICT =
+        "INSERT INTO daily_hours_rollups (employee_id, project_id, work_date, total_hours, entry_count) " +
+        "VALUES (:employeeId, :projectId, :workDate, :hoursDelta, :countDelta) " +
+        "ON CONFLICT (employee_id, project_id, work_date) DO UPDATE SET " +
+        "total_hours = daily_hours_rollups.total_hours + EXCLUDED.total_hours, " +
+        "entry_count = daily_hours_rollups.entry_count + EXCLUDED.entry_count";
+
+    String UPSERT_DELTA_MERGE =
+        "MERGE INTO daily_hours_rollups r " +
+        "USING (VALUES (CAST(:employeeId AS BIGINT), CAST(:projectId AS BIGINT), CAST(:workDate AS DATE), " +
+        "CAST(:hoursDelta AS DOUBLE PRECISION), CAST(:countDelta AS INTEGER))) " +
+        "AS d (employee_id, project_id, work_date, total_hours, entry_count) " +
+        "ON r.employee_id = d.employee_id AND r.project_id = d.project_id AND r.work_date = d.work_date " +
+        "WHEN MATCHED THEN UPDATE SET total_hours = r.total_hours + d.total_hours, entry_count = r.entry_count + d.entry_count " +
+        "WHEN NOT MATCHED THEN INSERT (employee_id, project_id, work_date, total_hours, entry_count) " +
+        "VALUES (d.employee_id, d.project_id, d.work_date, d.total_hours, d.entry_count)";
+
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query(value = UPSERT_DELTA_ON_CONFLICT, nativeQuery = true)
+    int upsertDeltaOnConflict(@Param("employeeId") Long employeeId, @Param("projectId") Long projectId, @Param("workDate") LocalDate workDate,
+                              @Param("hoursDelta") Double hoursDelta, @Param("countDelta") Integer countDelta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query(value = UPSERT_DELTA_MERGE, nativeQuery = true)
+    int upsertDeltaMerge(@Param("employeeId") Long employeeId, @Param("projectId") Long projectId, @Param("workDate") LocalDate workDate,
+                         @Param("hoursDelta") Double hoursDelta, @Param("countDelta") Integer countDelta);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("DELETE FROM DailyHoursRollup r WHERE r.employee.id = :employeeId AND r.project.id = :projectId AND r.workDate = :workDate AND r.entryCount <= 0")
+    int deleteIfEmpty(@Param("employeeId") Long employeeId, @Param("projectId") Long projectId, @Param("workDate") LocalDate workDate);
+
+    // Full rebuild from the live entries; rollup rows of archived months are left as they are
+    @Modifying
+    @Query(value = "DELETE FROM daily_hours_rollups WHERE work_date >= :fromDate", nativeQuery = true)
+    int deleteFrom(@Param("fromDate") LocalDate fromDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_hours_rollups (employee_id, project_id, work_date, total_hours, entry_count) " +
+                   "SELECT ts.employee_id, te.project_id, te.work_date, SUM(te.hours_worked), COUNT(*) " +
+                   "FROM timesheet_entries te JOIN timesheets ts ON ts.id = te.timesheet_id " +
+                   "WHERE te.work_date >= :fromDate " +
+                   "GROUP BY ts.employee_id, te.project_id, te.work_date",
+           nativeQuery = true)
+    int rebuildFromEntriesFrom(@Param("fromDate") LocalDate fromDate);
+
+    @Query("SELECT new com.timesheet.dto.HoursSummaryDTO(p.id, p.projectName, SUM(r.totalHours), SUM(r.entryCount)) " +
+           "FROM DailyHoursRollup r JOIN r.project p " +
+           "WHERE r.employee.id = :employeeId AND r.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY p.id, p.projectName")
+    List<HoursSummaryDTO> sumHoursByProjectForEmployee(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.timesheet.dto.HoursSummaryDTO(e.id, CONCAT(e.firstName, ' ', e.lastName), SUM(r.totalHours), SUM(r.entryCount)) " +
+           "FROM DailyHoursRollup r JOIN r.employee e " +
+           "WHERE r.project.id = :projectId AND r.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.id, e.firstName, e.lastName")
+    List<HoursSummaryDTO> sumHoursByEmployeeForProject(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Organization-wide breakdown for one employee id range; columns: project name, first name, last name, hours, entry count
+    @Query("SELECT p.projectName, e.firstName, e.lastName, SUM(r.totalHours), SUM(r.entryCount) " +
+           "FROM DailyHoursRollup r JOIN r.project p JOIN r.employee e " +
+           "WHERE e.id BETWEEN :minEmployeeId AND :maxEmployeeId AND r.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY p.id, p.projectName, e.id, e.firstName, e.lastName")
+    List<Object[]> sumHoursByProjectAndEmployeeForEmployeeRange(@Param("minEmployeeId") Long minEmployeeId, @Param("maxEmployeeId") Long maxEmployeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Manager roll-up: resolves the whole reporting subtree with a recursive CTE and reads its rollup rows in the same pass.
+    // Columns: employee id, first name, last name, project id, project name, work date, hours
+    @Query(value = "WITH RECURSIVE team(id) AS (" +
+                   "  SELECT id FROM employees WHERE manager_id = :managerId" +
+                   "  UNION" +
+                   "  SELECT e.id FROM employees e JOIN team ON e.manager_id = team.id" +
+                   ") " +
+                   "SELECT e.id AS employee_id, e.first_name, e.last_name, p.id AS project_id, p.project_name, r.work_date, r.total_hours " +
+                   "FROM team " +
+                   "JOIN employees e ON e.id = team.id " +
+                   "JOIN daily_hours_rollups r ON r.employee_id = team.id " +
+                   "JOIN projects p ON p.id = r.project_id " +
+                   "WHERE r.work_date BETWEEN :startDate AND :endDate",
+           nativeQuery = true)
+    List<Object[]> findTeamRollups(@Param("managerId") Long managerId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = SERIES_SELECT + "AND r.employee_id = :employeeId) s" + SERIES_GROUP, nativeQuery = true)
+    List<Object[]> findHoursSeriesForEmployee(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                              @Param("granularity") String granularity, @Param("splitBy") String splitBy);
+
+    @Query(value = SERIES_SELECT + "AND r.project_id = :projectId) s" + SERIES_GROUP, nativeQuery = true)
+    List<Object[]> findHoursSeriesForProject(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                             @Param("granularity") String granularity, @Param("splitBy") String splitBy);
+
+    @Query(value = "WITH RECURSIVE team(id) AS (" +
+                   "  SELECT id FROM employees WHERE manager_id = :managerId" +
+                   "  UNION" +
+                   "  SELECT e.id FROM employees e JOIN team ON e.manager_id = team.id" +
+                   ") " +
+                   // Joined outside the bucketing subquery: H2 cannot see the CTE from inside a derived table
+                   SERIES_SELECT + ") s JOIN team ON team.id = s.employee_id" + SERIES_GROUP,
+           nativeQuery = true)
+    List<Object[]> findHoursSeriesForTeam(@Param("managerId") Long managerId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                                          @Param("granularity") String granularity, @Param("splitBy") String splitBy);
+}
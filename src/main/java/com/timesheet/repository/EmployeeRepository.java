@@ -13,6 +13,11 @@ import java.util.Optional;
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
+    // List projections: only the displayed columns, straight into the DTO - no entities, no password hashes
+    String SUMMARY_COLUMNS =
+        "SELECT new com.timesheet.dto.EmployeeDTO(e.id, e.email, e.firstName, e.lastName, e.role, m.id, CONCAT(m.firstName, ' ', m.lastName)) ";
+    String SUMMARY_FROM = "FROM Employee e LEFT JOIN e.manager m ";
+
     Optional<Employee> findByEmail(String email);
 
     boolean existsByEmail(String email);
@@ -24,4 +29,15 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     @Query("SELECT e FROM Employee e WHERE e.role = :role AND e.manager.id = :managerId")
     List<Employee> findByRoleAndManagerId(@Param("role") UserRole role, @Param("managerId") Long managerId);
+
+    @Query("SELECT MIN(e.id), MAX(e.id) FROM Employee e")
+    List<Object[]> findIdBounds();
+
+    // Columns: id, first name, last name, manager id
+    @Query("SELECT e.id, e.firstName, e.lastName, m.id FROM Employee e LEFT JOIN e.manager m")
+    List<Object[]> findAllNamesAndManagers();
+
+    // Columns: email, id
+    @Query("SELECT e.email, e.id FROM Employee e")
+    List<Object[]> findAllEmails();
 }
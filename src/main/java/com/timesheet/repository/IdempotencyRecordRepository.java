@@ -0,0 +1,55 @@
+package com.timesheet.repository;
+
+import com.timesheet.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // A plain insert rather than save(): with an assigned id save() would merge, and two nodes racing on one key must
+    // collide on the primary key instead
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, completed, created_at, heartbeat_at) " +
+                   "VALUES (:idempotencyKey, :requestHash, FALSE, :createdAt, :createdAt)",
+           nativeQuery = true)
+    int claim(@Param("idempotencyKey") String idempotencyKey, @Param("requestHash") String requestHash, @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.completed = TRUE, r.statusCode = :statusCode, r.contentType = :contentType, r.responseBody = :responseBody " +
+           "WHERE r.idempotencyKey = :idempotencyKey")
+    int complete(@Param("idempotencyKey") String idempotencyKey, @Param("statusCode") Integer statusCode,
+                 @Param("contentType") String contentType, @Param("responseBody") String responseBody);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :idempotencyKey")
+    int release(@Param("idempotencyKey") String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+
+    // Keeps claims whose request is still running on this node from being taken for abandoned ones; createdAt, which
+    // the TTL counts from, is left alone so a long request does not extend how long its response is replayed
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.heartbeatAt = :now WHERE r.completed = FALSE AND r.idempotencyKey IN :idempotencyKeys")
+    int heartbeat(@Param("idempotencyKeys") Collection<String> idempotencyKeys, @Param("now") LocalDateTime now);
+
+    // Claims whose node died before completing them; without this a retry would be refused until the key expires
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.completed = FALSE AND r.heartbeatAt < :cutoff")
+    int deleteAbandonedClaims(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,187 @@
+package com.timesheet.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timesheet.dto.CursorPageDTO;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Seek ("keyset") paging over the summary projections: a page is the rows strictly after the last row of the previous
+// page in sort key order, so there is no OFFSET and a deep page costs what the first one does. The last key of every
+// sort must be unique (normally the id), which makes the order total and a cursor point at exactly one row.
+public final class KeysetQuery<T> {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+
+    private final EntityManager entityManager;
+    private final Class<T> resultType;
+    private final String select;
+    private final String from;
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new HashMap<>();
+
+    // select is the constructor expression, from the FROM clause with its joins; see the SUMMARY_ constants of the repositories
+    public KeysetQuery(EntityManager entityManager, Class<T> resultType, String select, String from) {
+        this.entityManager = entityManager;
+        this.resultType = resultType;
+        this.select = select;
+        this.from = from;
+    }
+
+    // One sort column: its JPQL path, the type of its values (String, Long or LocalDate) and how to read it from a row
+    public static final class Key<T> {
+        private final String path;
+        private final Class<?> type;
+        private final Function<T, Object> value;
+
+        private Key(String path, Class<?> type, Function<T, Object> value) {
+            this.path = path;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    public static <T> Key<T> key(String path, Class<?> type, Function<T, Object> value) {
+        return new Key<>(path, type, value);
+    }
+
+    // Falls back to the configured page size and caps what a client may ask for
+    public static int resolvePageSize(Integer requested, int defaultPageSize) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
+
+    // Filters without a value are left out of the query
+    public KeysetQuery<T> where(String condition, String parameter, Object value) {
+        if (value != null) {
+            conditions.add(condition);
+            parameters.put(parameter, value);
+        }
+        return this;
+    }
+
+    // One row more than the page is fetched; if it comes back there is a next page, starting after the last row shown.
+    // The total is a separate count over the filters only, run when the client asks for it.
+    public CursorPageDTO<T> page(Map<String, List<Key<T>>> sorts, String sort, String direction, String cursor, int pageSize, boolean includeTotal) {
+        List<Key<T>> keys = sorts.get(sort);
+        if (keys == null) {
+            throw new IllegalArgumentException("Unknown sort: " + sort + " (expected one of " + sorts.keySet() + ")");
+        }
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new IllegalArgumentException("Unknown direction: " + direction + " (expected asc or desc)");
+        }
+        boolean descending = direction.equals("desc");
+
+        List<String> pageConditions = new ArrayList<>(conditions);
+        Map<String, Object> pageParameters = new HashMap<>(parameters);
+        if (cursor != null && !cursor.isEmpty()) {
+            List<Object> after = decodeCursor(cursor, sort, direction, keys);
+            for (int i = 0; i < keys.size(); i++) {
+                pageParameters.put("after" + i, after.get(i));
+            }
+            // The plain bound on the first key lets its index seek straight to the page; the nested test breaks the ties
+            pageConditions.add(keys.get(0).path + (descending ? " <= :after0" : " >= :after0"));
+            pageConditions.add(seekCondition(keys, 0, descending ? " < " : " > "));
+        }
+
+        StringBuilder order = new StringBuilder(" ORDER BY ");
+        for (int i = 0; i < keys.size(); i++) {
+            order.append(i > 0 ? ", " : "").append(keys.get(i).path).append(descending ? " DESC" : "");
+        }
+
+        TypedQuery<T> query = entityManager.createQuery(select + from + whereClause(pageConditions) + order, resultType);
+        pageParameters.forEach(query::setParameter);
+        List<T> rows = query.setMaxResults(pageSize + 1).getResultList();
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = encodeCursor(sort, direction, keys, rows.get(pageSize - 1));
+        }
+        return new CursorPageDTO<>(rows, nextCursor, includeTotal ? count() : null);
+    }
+
+    private long count() {
+        TypedQuery<Long> query = entityManager.createQuery("SELECT COUNT(*) " + from + whereClause(conditions), Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private static String whereClause(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions);
+    }
+
+    // (k0 > :after0 OR (k0 = :after0 AND (k1 > :after1 OR ...))) - the expanded form of (k0, k1, ...) > (:after0, :after1, ...)
+    private static <T> String seekCondition(List<Key<T>> keys, int index, String comparison) {
+        String path = keys.get(index).path;
+        String beyond = path + comparison + ":after" + index;
+        if (index == keys.size() - 1) {
+            return beyond;
+        }
+        return "(" + beyond + " OR (" + path + " = :after" + index + " AND " + seekCondition(keys, index + 1, comparison) + "))";
+    }
+
+    // Cursors are opaque to clients: base64url of a JSON array holding the sort, the direction and the last row's key values
+    private static <T> String encodeCursor(String sort, String direction, List<Key<T>> keys, T last) {
+        List<String> position = new ArrayList<>();
+        position.add(sort);
+        position.add(direction);
+        for (Key<T> key : keys) {
+            position.add(String.valueOf(key.value.apply(last)));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(CURSOR_MAPPER.writeValueAsBytes(position));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    private static <T> List<Object> decodeCursor(String cursor, String sort, String direction, List<Key<T>> keys) {
+        List<String> position;
+        try {
+            position = CURSOR_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<List<String>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (position.size() != keys.size() + 2) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        // A cursor only means something in the order it was issued for
+        if (!position.get(0).equals(sort) || !position.get(1).equals(direction)) {
+            throw new IllegalArgumentException("Cursor was issued for sort " + position.get(0) + " " + position.get(1));
+        }
+
+        List<Object> values = new ArrayList<>();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                values.add(parseValue(keys.get(i).type, position.get(i + 2)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        return values;
+    }
+
+    private static Object parseValue(Class<?> type, String value) {
+        if (type == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        return value;
+    }
+}
@@ -12,6 +12,12 @@ import java.util.Optional;
 @Repository
 public interface ProjectRepository extends JpaRepository<Project, Long> {
 
+    // List projections: only the displayed columns, straight into the DTO
+    String SUMMARY_COLUMNS =
+        "SELECT new com.timesheet.dto.ProjectDTO(p.id, p.projectCode, p.projectName, p.description, p.startDate, p.endDate, p.isActive, " +
+        "m.id, CONCAT(m.firstName, ' ', m.lastName)) ";
+    String SUMMARY_FROM = "FROM Project p LEFT JOIN p.projectManager m ";
+
     Optional<Project> findByProjectCode(String projectCode);
 
     boolean existsByProjectCode(String projectCode);
@@ -23,4 +29,12 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
 
     @Query("SELECT p FROM Project p WHERE p.isActive = true ORDER BY p.projectName")
     List<Project> findAllActiveProjects();
+
+    // Columns: id, project name
+    @Query("SELECT p.id, p.projectName FROM Project p")
+    List<Object[]> findAllNames();
+
+    // Columns: project code, id
+    @Query("SELECT p.projectCode, p.id FROM Project p")
+    List<Object[]> findAllCodes();
 }
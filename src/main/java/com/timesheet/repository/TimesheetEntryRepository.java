@@ -1,20 +1,31 @@
 package com.timesheet.repository;
 
+import com.timesheet.dto.HoursSummaryDTO;
+import com.timesheet.dto.ReportDTO;
 import com.timesheet.entity.TimesheetEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.domain.Pageable;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TimesheetEntryRepository extends JpaRepository<TimesheetEntry, Long> {
 
     List<TimesheetEntry> findByTimesheetId(Long timesheetId);
 
+    // Stored side of the save-week diff, projects included so mapping the result needs no further queries. The week
+    // bounds are redundant with the timesheet but let a partitioned table read only the months the week falls in.
+    @Query("SELECT te FROM TimesheetEntry te JOIN FETCH te.project " +
+           "WHERE te.timesheet.id = :timesheetId AND te.workDate BETWEEN :weekStart AND :weekEnd ORDER BY te.id")
+    List<TimesheetEntry> findByTimesheetIdWithProject(@Param("timesheetId") Long timesheetId, @Param("weekStart") LocalDate weekStart, @Param("weekEnd") LocalDate weekEnd);
+
     List<TimesheetEntry> findByProjectId(Long projectId);
 
     @Query("SELECT te FROM TimesheetEntry te WHERE te.timesheet.employee.id = :employeeId")
@@ -35,6 +46,86 @@ public interface TimesheetEntryRepository extends JpaRepository<TimesheetEntry,
     @Query("SELECT SUM(te.hoursWorked) FROM TimesheetEntry te WHERE te.project.id = :projectId AND te.workDate BETWEEN :startDate AND :endDate")
     Double getTotalHoursByProjectAndDateRange(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT te FROM TimesheetEntry te WHERE te.timesheet.employee.id = :employeeId ORDER BY te.timesheet.updatedAt DESC")
-    List<TimesheetEntry> findRecentEntriesByEmployee(@Param("employeeId") Long employeeId, Pageable pageable);
+    @Query("SELECT MAX(te.id) FROM TimesheetEntry te")
+    Long findMaxId();
+
+    // The work date bound keeps the scan to the latest monthly partitions on PostgreSQL
+    @Query("SELECT te FROM TimesheetEntry te WHERE te.timesheet.employee.id = :employeeId AND te.workDate >= :since ORDER BY te.timesheet.updatedAt DESC")
+    List<TimesheetEntry> findRecentEntriesByEmployee(@Param("employeeId") Long employeeId, @Param("since") LocalDate since, Pageable pageable);
+
+    // Aggregate projections used by reports - grouped in the database, no entities are loaded
+    @Query("SELECT new com.timesheet.dto.HoursSummaryDTO(p.id, p.projectName, SUM(te.hoursWorked)) " +
+           "FROM TimesheetEntry te JOIN te.project p " +
+           "WHERE te.timesheet.employee.id = :employeeId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY p.id, p.projectName")
+    List<HoursSummaryDTO> sumHoursByProjectForEmployee(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.timesheet.dto.HoursSummaryDTO(e.id, CONCAT(e.firstName, ' ', e.lastName), SUM(te.hoursWorked)) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e " +
+           "WHERE te.project.id = :projectId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY e.id, e.firstName, e.lastName")
+    List<HoursSummaryDTO> sumHoursByEmployeeForProject(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Line item projections - a single fetch-joined select straight into ReportItem
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE e.id = :employeeId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemsByEmployeeIdAndDateRange(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE p.id = :projectId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemsByProjectIdAndDateRange(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE e.id BETWEEN :minEmployeeId AND :maxEmployeeId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemsByEmployeeIdRangeAndDateRange(@Param("minEmployeeId") Long minEmployeeId, @Param("maxEmployeeId") Long maxEmployeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Cursor variants of the line item projections for exports - must be consumed inside a transaction and closed
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE e.id = :employeeId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY te.workDate, te.id")
+    Stream<ReportDTO.ReportItem> streamReportItemsByEmployeeIdAndDateRange(@Param("employeeId") Long employeeId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE p.id = :projectId AND te.workDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY te.workDate, te.id")
+    Stream<ReportDTO.ReportItem> streamReportItemsByProjectIdAndDateRange(@Param("projectId") Long projectId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    // Keyset pages of the line item projections: rows strictly after (afterDate, afterId) in (workDate, id) order.
+    // The lower bound on workDate lets the date index seek straight to the page; the id test only applies on that first day.
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE e.id = :employeeId AND te.workDate BETWEEN :afterDate AND :endDate " +
+           "AND (te.workDate > :afterDate OR te.id > :afterId) " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemPageByEmployeeId(@Param("employeeId") Long employeeId, @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, @Param("endDate") LocalDate endDate, Pageable pageable);
+
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE p.id = :projectId AND te.workDate BETWEEN :afterDate AND :endDate " +
+           "AND (te.workDate > :afterDate OR te.id > :afterId) " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemPageByProjectId(@Param("projectId") Long projectId, @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, @Param("endDate") LocalDate endDate, Pageable pageable);
+
+    @Query("SELECT new com.timesheet.dto.ReportDTO$ReportItem(te.id, te.workDate, CONCAT(e.firstName, ' ', e.lastName), p.projectName, p.projectCode, te.hoursWorked, te.taskDescription) " +
+           "FROM TimesheetEntry te JOIN te.timesheet t JOIN t.employee e JOIN te.project p " +
+           "WHERE te.workDate BETWEEN :afterDate AND :endDate " +
+           "AND (te.workDate > :afterDate OR te.id > :afterId) " +
+           "ORDER BY te.workDate, te.id")
+    List<ReportDTO.ReportItem> findReportItemPage(@Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId, @Param("endDate") LocalDate endDate, Pageable pageable);
+
+    // Flat rows for the in-memory analytics engine; columns: entry id, timesheet id, employee id, project id, work date, hours, status
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "5000"))
+    @Query("SELECT te.id, t.id, t.employee.id, te.project.id, te.workDate, te.hoursWorked, t.status " +
+           "FROM TimesheetEntry te JOIN te.timesheet t")
+    Stream<Object[]> streamAnalyticsRows();
 }
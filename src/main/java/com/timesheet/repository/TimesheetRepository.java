@@ -4,20 +4,193 @@ import com.timesheet.entity.Employee;
 import com.timesheet.entity.Timesheet;
 import com.timesheet.enums.TimesheetStatus;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TimesheetRepository extends JpaRepository<Timesheet, Long> {
 
+    // Denormalized hours recomputed from the entries, joined to what is stored; a stored null always counts as drift.
+    // Weeks starting before :liveFrom have (some of) their entries archived and keep the totals they were archived with.
+    String DRIFTED_TOTALS =
+        "SELECT t.id FROM timesheets t LEFT JOIN (" +
+        "SELECT e.timesheet_id, SUM(e.hours_worked) AS total_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date THEN e.hours_worked ELSE 0 END) AS day1_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 1 THEN e.hours_worked ELSE 0 END) AS day2_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 2 THEN e.hours_worked ELSE 0 END) AS day3_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 3 THEN e.hours_worked ELSE 0 END) AS day4_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 4 THEN e.hours_worked ELSE 0 END) AS day5_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 5 THEN e.hours_worked ELSE 0 END) AS day6_hours, " +
+        "SUM(CASE WHEN e.work_date = s.week_start_date + 6 THEN e.hours_worked ELSE 0 END) AS day7_hours " +
+        "FROM timesheet_entries e JOIN timesheets s ON s.id = e.timesheet_id " +
+        "WHERE e.work_date >= :liveFrom AND s.week_start_date >= :liveFrom " +
+        "GROUP BY e.timesheet_id) x ON x.timesheet_id = t.id " +
+        "WHERE t.week_start_date >= :liveFrom AND (" +
+        "ABS(COALESCE(t.total_hours, -1) - COALESCE(x.total_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day1_hours, -1) - COALESCE(x.day1_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day2_hours, -1) - COALESCE(x.day2_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day3_hours, -1) - COALESCE(x.day3_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day4_hours, -1) - COALESCE(x.day4_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day5_hours, -1) - COALESCE(x.day5_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day6_hours, -1) - COALESCE(x.day6_hours, 0)) > 0.001 OR " +
+        "ABS(COALESCE(t.day7_hours, -1) - COALESCE(x.day7_hours, 0)) > 0.001)";
+
+    String RECOMPUTE_TOTALS =
+        "UPDATE timesheets SET total_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id), " +
+        "day1_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date), " +
+        "day2_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 1), " +
+        "day3_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 2), " +
+        "day4_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 3), " +
+        "day5_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 4), " +
+        "day6_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 5), " +
+        "day7_hours = (SELECT COALESCE(SUM(e.hours_worked), 0) FROM timesheet_entries e WHERE e.timesheet_id = timesheets.id AND e.work_date = timesheets.week_start_date + 6) " +
+        "WHERE id IN (:timesheetIds)";
+
+    // In-place increment of the denormalized hours, in the same transaction as the entry write. Bumps the version like
+    // any other change to the timesheet and, given the version the writer loaded, only matches while it is unchanged:
+    // an edit, transition or entity save that committed in between makes this a conflict the caller reports for retry.
+    // A day that would go over 24 hours, or a timesheet that has left draft, matches no row either. A null version
+    // (writers that only hold the id) skips the version check. Skips the auto-flush like the rollup deltas: the
+    // columns are never written through the entity.
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("UPDATE Timesheet t SET t.totalHours = COALESCE(t.totalHours, 0) + :totalDelta, " +
+           "t.day1Hours = COALESCE(t.day1Hours, 0) + :day1Delta, " +
+           "t.day2Hours = COALESCE(t.day2Hours, 0) + :day2Delta, " +
+           "t.day3Hours = COALESCE(t.day3Hours, 0) + :day3Delta, " +
+           "t.day4Hours = COALESCE(t.day4Hours, 0) + :day4Delta, " +
+           "t.day5Hours = COALESCE(t.day5Hours, 0) + :day5Delta, " +
+           "t.day6Hours = COALESCE(t.day6Hours, 0) + :day6Delta, " +
+           "t.day7Hours = COALESCE(t.day7Hours, 0) + :day7Delta, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id = :timesheetId AND t.status = :draft AND (:version IS NULL OR t.version = :version) " +
+           "AND (:day1Delta <= 0 OR COALESCE(t.day1Hours, 0) + :day1Delta <= 24.0) " +
+           "AND (:day2Delta <= 0 OR COALESCE(t.day2Hours, 0) + :day2Delta <= 24.0) " +
+           "AND (:day3Delta <= 0 OR COALESCE(t.day3Hours, 0) + :day3Delta <= 24.0) " +
+           "AND (:day4Delta <= 0 OR COALESCE(t.day4Hours, 0) + :day4Delta <= 24.0) " +
+           "AND (:day5Delta <= 0 OR COALESCE(t.day5Hours, 0) + :day5Delta <= 24.0) " +
+           "AND (:day6Delta <= 0 OR COALESCE(t.day6Hours, 0) + :day6Delta <= 24.0) " +
+           "AND (:day7Delta <= 0 OR COALESCE(t.day7Hours, 0) + :day7Delta <= 24.0)")
+    int applyHoursDelta(@Param("timesheetId") Long timesheetId,
+                        @Param("version") Long version,
+                        @Param("draft") TimesheetStatus draft,
+                        @Param("totalDelta") Double totalDelta,
+                        @Param("day1Delta") Double day1Delta,
+                        @Param("day2Delta") Double day2Delta,
+                        @Param("day3Delta") Double day3Delta,
+                        @Param("day4Delta") Double day4Delta,
+                        @Param("day5Delta") Double day5Delta,
+                        @Param("day6Delta") Double day6Delta,
+                        @Param("day7Delta") Double day7Delta);
+
+    // Workflow transitions as compare-and-set: each matches only while the timesheet is still in the expected status,
+    // so of two concurrent transitions exactly one updates the row. 0 means the transition did not happen.
+    @Modifying
+    @Query("UPDATE Timesheet t SET t.status = :submitted, t.submittedAt = :submittedAt, t.updatedAt = :submittedAt, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id = :timesheetId AND t.employee.id = :employeeId AND t.status = :draft")
+    int submitIfDraft(@Param("timesheetId") Long timesheetId, @Param("employeeId") Long employeeId, @Param("submittedAt") LocalDateTime submittedAt,
+                      @Param("draft") TimesheetStatus draft, @Param("submitted") TimesheetStatus submitted);
+
+    @Modifying
+    @Query("UPDATE Timesheet t SET t.status = :approved, t.approvedBy = :manager, t.approvedAt = :approvedAt, t.updatedAt = :approvedAt, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id = :timesheetId AND t.status = :submitted AND EXISTS (SELECT m.id FROM Employee m WHERE m.id = :managerId)")
+    int approveIfSubmitted(@Param("timesheetId") Long timesheetId, @Param("manager") Employee manager, @Param("managerId") Long managerId,
+                           @Param("approvedAt") LocalDateTime approvedAt, @Param("submitted") TimesheetStatus submitted, @Param("approved") TimesheetStatus approved);
+
+    @Modifying
+    @Query("UPDATE Timesheet t SET t.status = :rejected, t.rejectionComment = :comment, t.updatedAt = :rejectedAt, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id = :timesheetId AND t.status = :submitted")
+    int rejectIfSubmitted(@Param("timesheetId") Long timesheetId, @Param("comment") String comment, @Param("rejectedAt") LocalDateTime rejectedAt,
+                          @Param("submitted") TimesheetStatus submitted, @Param("rejected") TimesheetStatus rejected);
+
+    @Query("SELECT t.status FROM Timesheet t WHERE t.id = :timesheetId")
+    Optional<TimesheetStatus> findStatusById(@Param("timesheetId") Long timesheetId);
+
+    @Query("SELECT t.version FROM Timesheet t WHERE t.id = :timesheetId")
+    Optional<Long> findVersionById(@Param("timesheetId") Long timesheetId);
+
+    // Grid saves: the row lock queues concurrent saves of one week, so each diffs against what the previous one wrote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Timesheet t WHERE t.id = :timesheetId")
+    Optional<Timesheet> findByIdForUpdate(@Param("timesheetId") Long timesheetId);
+
+    // Bulk review: lock the requested rows first so the conditional update below changes exactly the ones seen as submitted
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Timesheet t WHERE t.id IN :timesheetIds")
+    List<Timesheet> findAllByIdForUpdate(@Param("timesheetIds") Collection<Long> timesheetIds);
+
+    // Of the given timesheets, those a manager may review in bulk: the ones of their direct reports, as pending approvals lists them
+    @Query("SELECT t.id FROM Timesheet t WHERE t.id IN :timesheetIds AND t.employee.manager.id = :managerId")
+    List<Long> findIdsReviewableBy(@Param("timesheetIds") Collection<Long> timesheetIds, @Param("managerId") Long managerId);
+
+    // The bulk updates repeat the direct-report check, so an id the caller did not filter out still cannot slip through
+    @Modifying
+    @Query("UPDATE Timesheet t SET t.status = :approved, t.approvedBy = :manager, t.approvedAt = :reviewedAt, t.updatedAt = :reviewedAt, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id IN :timesheetIds AND t.status = :submitted " +
+           "AND t.employee.id IN (SELECT e.id FROM Employee e WHERE e.manager = :manager)")
+    int approveSubmitted(@Param("timesheetIds") Collection<Long> timesheetIds, @Param("manager") Employee manager, @Param("reviewedAt") LocalDateTime reviewedAt,
+                         @Param("approved") TimesheetStatus approved, @Param("submitted") TimesheetStatus submitted);
+
+    @Modifying
+    @Query("UPDATE Timesheet t SET t.status = :rejected, t.rejectionComment = :comment, t.updatedAt = :reviewedAt, " +
+           "t.version = t.version + 1 " +
+           "WHERE t.id IN :timesheetIds AND t.status = :submitted " +
+           "AND t.employee.id IN (SELECT e.id FROM Employee e WHERE e.manager.id = :managerId)")
+    int rejectSubmitted(@Param("timesheetIds") Collection<Long> timesheetIds, @Param("managerId") Long managerId, @Param("comment") String comment,
+                        @Param("reviewedAt") LocalDateTime reviewedAt, @Param("rejected") TimesheetStatus rejected, @Param("submitted") TimesheetStatus submitted);
+
+    @Query(value = DRIFTED_TOTALS, nativeQuery = true)
+    List<Number> findTimesheetIdsWithDriftedTotals(@Param("liveFrom") LocalDate liveFrom);
+
+    // Taken before recomputeTotals, in the same transaction, so the sums are read after every entry write holding one of
+    // these rows has committed; see TimesheetTotalsService.reconcile
+    @Query(value = "SELECT id FROM timesheets WHERE id IN (:timesheetIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Number> lockForRecompute(@Param("timesheetIds") List<Long> timesheetIds);
+
+    @Modifying
+    @Query(value = RECOMPUTE_TOTALS, nativeQuery = true)
+    int recomputeTotals(@Param("timesheetIds") List<Long> timesheetIds);
+
+    // Summary projections for the list views: timesheet columns and the two names, no entities and no entries
+    String SUMMARY_COLUMNS =
+        "SELECT new com.timesheet.dto.TimesheetDTO(t.id, e.id, CONCAT(e.firstName, ' ', e.lastName), t.weekStartDate, t.weekEndDate, t.status, " +
+        "t.version, t.rejectionComment, t.submittedAt, t.approvedAt, a.id, CONCAT(a.firstName, ' ', a.lastName), t.totalHours, " +
+        "t.day1Hours, t.day2Hours, t.day3Hours, t.day4Hours, t.day5Hours, t.day6Hours, t.day7Hours) ";
+    String SUMMARY_FROM = "FROM Timesheet t JOIN t.employee e LEFT JOIN t.approvedBy a ";
+
+    @EntityGraph(Timesheet.DETAIL_GRAPH)
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("SELECT DISTINCT t FROM Timesheet t WHERE t.id IN :timesheetIds")
+    List<Timesheet> findDetailsByIdIn(@Param("timesheetIds") Collection<Long> timesheetIds);
+
+    // Entity graphs load exactly what the mapped view reads, so a list costs one statement whatever its length
+    @EntityGraph(Timesheet.SUMMARY_GRAPH)
     List<Timesheet> findByEmployeeId(Long employeeId);
 
+    // The entries are join-fetched, so DISTINCT folds the repeated timesheet rows; it is not needed in the SQL itself
+    @EntityGraph(Timesheet.DETAIL_GRAPH)
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    @Query("SELECT DISTINCT t FROM Timesheet t WHERE t.id = :timesheetId")
+    Optional<Timesheet> findDetailById(@Param("timesheetId") Long timesheetId);
+
     List<Timesheet> findByStatus(TimesheetStatus status);
 
     @Query("SELECT t FROM Timesheet t WHERE t.employee.id = :employeeId AND t.status = :status")
@@ -29,6 +202,7 @@ public interface TimesheetRepository extends JpaRepository<Timesheet, Long> {
     @Query("SELECT t FROM Timesheet t WHERE t.employee = :employee AND t.weekStartDate = :weekStartDate")
     List<Timesheet> findByEmployeeAndWeekStartDate(@Param("employee") Employee employee, @Param("weekStartDate") LocalDate weekStartDate);
 
+    @EntityGraph(Timesheet.SUMMARY_GRAPH)
     @Query("SELECT t FROM Timesheet t WHERE t.employee.manager.id = :managerId AND t.status = :status")
     List<Timesheet> findPendingTimesheetsByManagerId(@Param("managerId") Long managerId, @Param("status") TimesheetStatus status);
 
@@ -41,6 +215,7 @@ public interface TimesheetRepository extends JpaRepository<Timesheet, Long> {
     @Query("SELECT t FROM Timesheet t WHERE t.employee.id = :employeeId ORDER BY t.updatedAt DESC")
     List<Timesheet> findRecentTimesheetsByEmployee(@Param("employeeId") Long employeeId, Pageable pageable);
 
+    @EntityGraph(Timesheet.SUMMARY_GRAPH)
     @Query("SELECT t FROM Timesheet t WHERE t.approvedBy.id = :managerId AND t.approvedAt IS NOT NULL ORDER BY t.approvedAt DESC")
     List<Timesheet> findRecentApprovalsByManager(@Param("managerId") Long managerId, Pageable pageable);
 }
@@ -14,6 +14,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -24,6 +25,9 @@ import java.util.Optional;
 @Service
 public class ActivityService {
 
+    // Entries logged for older days are not recent activity
+    private static final int RECENT_ENTRY_DAYS = 90;
+
     @Autowired
     private TimesheetRepository timesheetRepository;
 
@@ -70,7 +74,8 @@ public class ActivityService {
             }
 
             // Get recent timesheet entries
-            List<TimesheetEntry> recentEntries = timesheetEntryRepository.findRecentEntriesByEmployee(userId, PageRequest.of(0, limit));
+            List<TimesheetEntry> recentEntries = timesheetEntryRepository.findRecentEntriesByEmployee(userId,
+                LocalDate.now().minusDays(RECENT_ENTRY_DAYS), PageRequest.of(0, limit));
 
             for (TimesheetEntry entry : recentEntries) {
                 ActivityDTO activity = new ActivityDTO();
@@ -0,0 +1,744 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.PivotResultDTO;
+import com.timesheet.entity.Employee;
+import com.timesheet.entity.Project;
+import com.timesheet.entity.Timesheet;
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.enums.PivotDimension;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
+import com.timesheet.repository.TimesheetEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Keeps every timesheet entry in primitive column arrays so pivots can be answered by a scan in memory
+// instead of a GROUP BY per combination of dimensions.
+@Service
+public class AnalyticsService {
+
+    // Hours are stored as hundredths so the scan sums longs instead of doubles
+    private static final int HOURS_SCALE = 100;
+
+    // Upper bound on rows x columns; each cell costs a long and an int per scan chunk
+    private static final int MAX_CELLS = 4_000_000;
+
+    // Above this many cells the per-chunk accumulators cost more than splitting the scan saves
+    private static final int MAX_PARALLEL_CELLS = 65_536;
+
+    private static final int ANY = Integer.MIN_VALUE;
+    private static final int NONE = Integer.MIN_VALUE + 1;
+
+    private static final TimesheetStatus[] STATUSES = TimesheetStatus.values();
+
+    @Autowired
+    private TimesheetEntryRepository timesheetEntryRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.analytics.parallel-threshold:100000}")
+    private int parallelThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Entry columns; row i of every array describes the same entry
+    private long[] entryIds = new long[0];
+    private long[] timesheetIds = new long[0];
+    private int[] employeeColumn = new int[0];
+    private int[] projectColumn = new int[0];
+    private int[] dayColumn = new int[0];
+    private int[] hoursColumn = new int[0];
+    private byte[] statusColumn = new byte[0];
+    private int size;
+    private int minDay;
+    private int maxDay;
+    private final Map<Long, Integer> rowByEntryId = new HashMap<>();
+    // Rows of each timesheet, so a status change touches its own rows instead of scanning all of them
+    private final Map<Long, RowSet> rowsByTimesheetId = new HashMap<>();
+
+    // Dictionaries mapping database ids to the dense indexes stored in the columns
+    private long[] employeeIds = new long[0];
+    private String[] employeeNames = new String[0];
+    private int[] managerOf = new int[0];
+    private int employeeCount;
+    private final Map<Long, Integer> employeeIndex = new HashMap<>();
+
+    private long[] projectIds = new long[0];
+    private String[] projectNames = new String[0];
+    private int projectCount;
+    private final Map<Long, Integer> projectIndex = new HashMap<>();
+
+    private volatile boolean loaded;
+    private volatile LocalDateTime loadedAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("Could not load analytics columns: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Rebuilds the columns from the database. Writers block on the lock meanwhile and are re-applied afterwards;
+    // every change is applied as an absolute value keyed by entry id, so one the load already saw is harmless.
+    public int reload() {
+        if (!enabled) {
+            throw new IllegalStateException("Analytics engine is disabled");
+        }
+
+        long started = System.currentTimeMillis();
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+
+        lock.writeLock().lock();
+        try {
+            reset();
+            template.executeWithoutResult(status -> {
+                for (Object[] row : employeeRepository.findAllNamesAndManagers()) {
+                    registerEmployee(((Number) row[0]).longValue(), row[1] + " " + row[2]);
+                }
+                for (Object[] row : employeeRepository.findAllNamesAndManagers()) {
+                    if (row[3] != null) {
+                        managerOf[employeeIndex.get(((Number) row[0]).longValue())] = employeeIndex.get(((Number) row[3]).longValue());
+                    }
+                }
+                for (Object[] row : projectRepository.findAllNames()) {
+                    registerProject(((Number) row[0]).longValue(), (String) row[1]);
+                }
+
+                try (Stream<Object[]> rows = timesheetEntryRepository.streamAnalyticsRows()) {
+                    rows.forEach(row -> upsertRow(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        employeeIndex.get(((Number) row[2]).longValue()),
+                        projectIndex.get(((Number) row[3]).longValue()),
+                        (int) ((LocalDate) row[4]).toEpochDay(),
+                        toFixedPoint((Double) row[5]),
+                        (byte) ((TimesheetStatus) row[6]).ordinal()));
+                }
+            });
+            loaded = true;
+            loadedAt = LocalDateTime.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        System.out.println("Loaded " + size + " timesheet entries into the analytics engine in " + (System.currentTimeMillis() - started) + " ms");
+        return size;
+    }
+
+    // Called from inside the write transaction; the columns only change once it has committed
+    public void recordEntry(TimesheetEntry entry) {
+        if (!enabled) {
+            return;
+        }
+
+        Timesheet timesheet = entry.getTimesheet();
+        Employee employee = timesheet.getEmployee();
+        Project project = entry.getProject();
+
+        EntryChange change = new EntryChange();
+        change.entryId = entry.getId();
+        change.timesheetId = timesheet.getId();
+        change.employeeId = employee.getId();
+        change.projectId = project.getId();
+        change.day = (int) entry.getWorkDate().toEpochDay();
+        change.hours = toFixedPoint(entry.getHoursWorked());
+        change.status = (byte) timesheet.getStatus().ordinal();
+
+        // Names are only resolved for ids the dictionaries have not seen, so the common case loads nothing
+        if (!isKnown(employeeIndex, change.employeeId)) {
+            change.employeeName = employee.getFullName();
+            Employee manager = employee.getManager();
+            if (manager != null) {
+                change.managerId = manager.getId();
+                if (!isKnown(employeeIndex, manager.getId())) {
+                    change.managerName = manager.getFullName();
+                }
+            }
+        }
+        if (!isKnown(projectIndex, change.projectId)) {
+            change.projectName = project.getProjectName();
+        }
+
+        afterCommit(() -> applyEntryChange(change));
+    }
+
+    public void removeEntry(Long entryId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer row = rowByEntryId.remove(entryId);
+                if (row != null) {
+                    removeRow(row);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void updateTimesheetStatus(Long timesheetId, TimesheetStatus status) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            byte code = (byte) status.ordinal();
+            lock.writeLock().lock();
+            try {
+                RowSet rows = rowsByTimesheetId.get(timesheetId);
+                if (rows != null) {
+                    for (int i = 0; i < rows.count; i++) {
+                        statusColumn[rows.rows[i]] = code;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public PivotResultDTO pivot(PivotDimension rows, PivotDimension columns, LocalDate startDate, LocalDate endDate,
+                                Long employeeId, Long managerId, Long projectId, TimesheetStatus status) {
+        if (!loaded) {
+            throw new IllegalStateException("Analytics engine is not loaded");
+        }
+        if (rows == null) {
+            throw new IllegalArgumentException("A row dimension is required");
+        }
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+
+        lock.readLock().lock();
+        try {
+            PivotResultDTO result = new PivotResultDTO();
+            result.setRowDimension(rows);
+            result.setColumnDimension(columns);
+            result.setRowsScanned((long) size);
+
+            if (size == 0) {
+                result.setTotalHours(0.0);
+                result.setTotalEntries(0L);
+                result.setCells(new ArrayList<>());
+                return result;
+            }
+
+            Scan scan = new Scan();
+            scan.employees = employeeColumn;
+            scan.projects = projectColumn;
+            scan.days = dayColumn;
+            scan.hours = hoursColumn;
+            scan.statuses = statusColumn;
+            scan.managers = managerOf;
+            scan.fromDay = startDate != null ? (int) startDate.toEpochDay() : minDay;
+            scan.toDay = endDate != null ? (int) endDate.toEpochDay() : maxDay;
+            scan.employeeFilter = employeeId == null ? ANY : employeeIndex.getOrDefault(employeeId, NONE);
+            scan.team = managerId == null ? null : teamOf(employeeIndex.getOrDefault(managerId, NONE));
+            scan.projectFilter = projectId == null ? ANY : projectIndex.getOrDefault(projectId, NONE);
+            scan.statusFilter = status == null ? ANY : status.ordinal();
+            scan.rowDimension = rows;
+            scan.rowBase = base(rows, scan.fromDay);
+            scan.columnDimension = columns;
+            scan.columnBase = columns != null ? base(columns, scan.fromDay) : 0;
+            scan.columnCount = columns != null ? cardinality(columns, scan.fromDay, scan.toDay) : 1;
+
+            long cellCount = (long) cardinality(rows, scan.fromDay, scan.toDay) * scan.columnCount;
+            if (cellCount > MAX_CELLS) {
+                throw new IllegalArgumentException("Pivot has too many cells (" + cellCount + "); narrow the date range or pick coarser dimensions");
+            }
+            int cells = (int) Math.max(0, cellCount);
+
+            long[] hourTotals = new long[cells];
+            int[] entryCounts = new int[cells];
+            if (size >= parallelThreshold && cells <= MAX_PARALLEL_CELLS) {
+                scanParallel(scan, size, hourTotals, entryCounts);
+            } else {
+                scan.run(0, size, hourTotals, entryCounts);
+            }
+
+            List<PivotResultDTO.PivotCell> resultCells = new ArrayList<>();
+            long totalHours = 0;
+            long totalEntries = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (entryCounts[cell] == 0) {
+                    continue;
+                }
+                int rowCode = cell / scan.columnCount;
+                int columnCode = cell % scan.columnCount;
+                resultCells.add(new PivotResultDTO.PivotCell(
+                    label(rows, rowCode + scan.rowBase),
+                    columns != null ? label(columns, columnCode + scan.columnBase) : null,
+                    (double) hourTotals[cell] / HOURS_SCALE,
+                    entryCounts[cell]));
+                totalHours += hourTotals[cell];
+                totalEntries += entryCounts[cell];
+            }
+
+            result.setTotalHours((double) totalHours / HOURS_SCALE);
+            result.setTotalEntries(totalEntries);
+            result.setCells(resultCells);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("loaded", loaded);
+            stats.put("loadedAt", loadedAt);
+            stats.put("rows", size);
+            stats.put("capacity", entryIds.length);
+            stats.put("employees", employeeCount);
+            stats.put("projects", projectCount);
+            // Two longs, four ints and a byte per row
+            stats.put("columnBytes", (long) entryIds.length * (2 * 8 + 4 * 4 + 1));
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Splits the rows into one contiguous chunk per core, each with its own accumulators, and adds them up at the end.
+    // The caller holds the read lock for the whole scan, so the workers see a stable set of columns.
+    private void scanParallel(Scan scan, int rowCount, long[] hourTotals, int[] entryCounts) {
+        int chunks = Math.max(1, Runtime.getRuntime().availableProcessors());
+        int chunkSize = (rowCount + chunks - 1) / chunks;
+        int cells = hourTotals.length;
+
+        List<ChunkTotals> partials = IntStream.range(0, chunks).parallel()
+            .mapToObj(chunk -> {
+                ChunkTotals totals = new ChunkTotals(cells);
+                scan.run(chunk * chunkSize, Math.min(rowCount, (chunk + 1) * chunkSize), totals.hours, totals.counts);
+                return totals;
+            })
+            .collect(Collectors.toList());
+
+        for (ChunkTotals partial : partials) {
+            for (int cell = 0; cell < cells; cell++) {
+                hourTotals[cell] += partial.hours[cell];
+                entryCounts[cell] += partial.counts[cell];
+            }
+        }
+    }
+
+    // Everyone under the manager, directly or through other managers, the same team the manager reports resolve with
+    // WITH RECURSIVE; the manager's own entries are not part of it. Walking up from each employee stops after
+    // employeeCount steps in case the hierarchy loops.
+    private boolean[] teamOf(int manager) {
+        boolean[] team = new boolean[employeeCount];
+        if (manager == NONE) {
+            return team;
+        }
+        for (int employee = 0; employee < employeeCount; employee++) {
+            int above = managerOf[employee];
+            for (int steps = 0; above >= 0 && steps < employeeCount; steps++) {
+                if (above == manager) {
+                    team[employee] = true;
+                    break;
+                }
+                above = managerOf[above];
+            }
+        }
+        return team;
+    }
+
+    private boolean isKnown(Map<Long, Integer> dictionary, Long id) {
+        lock.readLock().lock();
+        try {
+            return dictionary.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void applyEntryChange(EntryChange change) {
+        lock.writeLock().lock();
+        try {
+            if (change.managerName != null && !employeeIndex.containsKey(change.managerId)) {
+                registerEmployee(change.managerId, change.managerName);
+            }
+            if (change.employeeName != null && !employeeIndex.containsKey(change.employeeId)) {
+                int index = registerEmployee(change.employeeId, change.employeeName);
+                if (change.managerId != null) {
+                    managerOf[index] = employeeIndex.getOrDefault(change.managerId, -1);
+                }
+            }
+            if (change.projectName != null && !projectIndex.containsKey(change.projectId)) {
+                registerProject(change.projectId, change.projectName);
+            }
+
+            Integer employee = employeeIndex.get(change.employeeId);
+            Integer project = projectIndex.get(change.projectId);
+            if (employee == null || project == null) {
+                // Only happens when a reload raced the change; the reload read the row from the database itself
+                return;
+            }
+            upsertRow(change.entryId, change.timesheetId, employee, project, change.day, change.hours, change.status);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertRow(long entryId, long timesheetId, int employee, int project, int day, int hours, byte status) {
+        Integer existing = rowByEntryId.get(entryId);
+        int row;
+        if (existing != null) {
+            row = existing;
+            if (timesheetIds[row] != timesheetId) {
+                rowsOf(timesheetIds[row]).remove(row);
+                rowsOf(timesheetId).add(row);
+            }
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowByEntryId.put(entryId, row);
+            rowsOf(timesheetId).add(row);
+        }
+
+        entryIds[row] = entryId;
+        timesheetIds[row] = timesheetId;
+        employeeColumn[row] = employee;
+        projectColumn[row] = project;
+        dayColumn[row] = day;
+        hoursColumn[row] = hours;
+        statusColumn[row] = status;
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+    }
+
+    // Moves the last row into the hole so the columns stay dense
+    private void removeRow(int row) {
+        RowSet rows = rowsByTimesheetId.get(timesheetIds[row]);
+        rows.remove(row);
+        if (rows.count == 0) {
+            rowsByTimesheetId.remove(timesheetIds[row]);
+        }
+        int last = --size;
+        if (row != last) {
+            rowsByTimesheetId.get(timesheetIds[last]).replace(last, row);
+            entryIds[row] = entryIds[last];
+            timesheetIds[row] = timesheetIds[last];
+            employeeColumn[row] = employeeColumn[last];
+            projectColumn[row] = projectColumn[last];
+            dayColumn[row] = dayColumn[last];
+            hoursColumn[row] = hoursColumn[last];
+            statusColumn[row] = statusColumn[last];
+            rowByEntryId.put(entryIds[row], row);
+        }
+    }
+
+    private RowSet rowsOf(long timesheetId) {
+        return rowsByTimesheetId.computeIfAbsent(timesheetId, id -> new RowSet());
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= entryIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, Math.max(1024, entryIds.length + (entryIds.length >> 1)));
+        entryIds = Arrays.copyOf(entryIds, capacity);
+        timesheetIds = Arrays.copyOf(timesheetIds, capacity);
+        employeeColumn = Arrays.copyOf(employeeColumn, capacity);
+        projectColumn = Arrays.copyOf(projectColumn, capacity);
+        dayColumn = Arrays.copyOf(dayColumn, capacity);
+        hoursColumn = Arrays.copyOf(hoursColumn, capacity);
+        statusColumn = Arrays.copyOf(statusColumn, capacity);
+    }
+
+    private int registerEmployee(long id, String name) {
+        if (employeeCount == employeeIds.length) {
+            int capacity = Math.max(64, employeeCount * 2);
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            employeeNames = Arrays.copyOf(employeeNames, capacity);
+            managerOf = Arrays.copyOf(managerOf, capacity);
+        }
+        int index = employeeCount++;
+        employeeIds[index] = id;
+        employeeNames[index] = name;
+        managerOf[index] = -1;
+        employeeIndex.put(id, index);
+        return index;
+    }
+
+    private int registerProject(long id, String name) {
+        if (projectCount == projectIds.length) {
+            int capacity = Math.max(64, projectCount * 2);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            projectNames = Arrays.copyOf(projectNames, capacity);
+        }
+        int index = projectCount++;
+        projectIds[index] = id;
+        projectNames[index] = name;
+        projectIndex.put(id, index);
+        return index;
+    }
+
+    private void reset() {
+        loaded = false;
+        size = 0;
+        minDay = Integer.MAX_VALUE;
+        maxDay = Integer.MIN_VALUE;
+        rowByEntryId.clear();
+        rowsByTimesheetId.clear();
+        employeeCount = 0;
+        employeeIndex.clear();
+        projectCount = 0;
+        projectIndex.clear();
+    }
+
+    private int base(PivotDimension dimension, int fromDay) {
+        switch (dimension) {
+            case WEEK:
+                return weekIndex(fromDay);
+            case MONTH:
+                return monthIndex(fromDay);
+            case MANAGER:
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+    private int cardinality(PivotDimension dimension, int fromDay, int toDay) {
+        switch (dimension) {
+            case EMPLOYEE:
+                return employeeCount;
+            case MANAGER:
+                // Slot 0 collects employees without a manager
+                return employeeCount + 1;
+            case PROJECT:
+                return projectCount;
+            case WEEK:
+                return Math.max(0, weekIndex(toDay) - weekIndex(fromDay) + 1);
+            case MONTH:
+                return Math.max(0, monthIndex(toDay) - monthIndex(fromDay) + 1);
+            default:
+                return STATUSES.length;
+        }
+    }
+
+    private String label(PivotDimension dimension, int code) {
+        switch (dimension) {
+            case EMPLOYEE:
+                return employeeNames[code];
+            case MANAGER:
+                return code >= 0 ? employeeNames[code] : "(none)";
+            case PROJECT:
+                return projectNames[code];
+            case WEEK:
+                return LocalDate.ofEpochDay(code * 7L - 3).toString();
+            case MONTH:
+                return YearMonth.of(Math.floorDiv(code, 12), Math.floorMod(code, 12) + 1).toString();
+            default:
+                return STATUSES[code].name();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static int toFixedPoint(Double hours) {
+        return hours != null ? (int) Math.round(hours * HOURS_SCALE) : 0;
+    }
+
+    // Weeks start on Monday; epoch day 0 is a Thursday, so day -3 starts week 0
+    private static int weekIndex(int epochDay) {
+        return Math.floorDiv(epochDay + 3, 7);
+    }
+
+    // year * 12 + (month - 1) straight from the epoch day, without building a LocalDate per row
+    private static int monthIndex(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    // One pivot's filters and column references; run() is the hot loop and allocates nothing
+    private static final class Scan {
+        private int[] employees;
+        private int[] projects;
+        private int[] days;
+        private int[] hours;
+        private byte[] statuses;
+        private int[] managers;
+        private int fromDay;
+        private int toDay;
+        private int employeeFilter;
+        // Indexed by employee; null when not filtering by manager
+        private boolean[] team;
+        private int projectFilter;
+        private int statusFilter;
+        private PivotDimension rowDimension;
+        private int rowBase;
+        private PivotDimension columnDimension;
+        private int columnBase;
+        private int columnCount;
+
+        void run(int from, int to, long[] hourTotals, int[] entryCounts) {
+            for (int i = from; i < to; i++) {
+                int day = days[i];
+                if (day < fromDay || day > toDay) {
+                    continue;
+                }
+                int employee = employees[i];
+                if (employeeFilter != ANY && employee != employeeFilter) {
+                    continue;
+                }
+                if (team != null && !team[employee]) {
+                    continue;
+                }
+                int project = projects[i];
+                if (projectFilter != ANY && project != projectFilter) {
+                    continue;
+                }
+                int status = statuses[i];
+                if (statusFilter != ANY && status != statusFilter) {
+                    continue;
+                }
+
+                int rowCode = code(rowDimension, employee, project, day, status) - rowBase;
+                int columnCode = columnDimension != null ? code(columnDimension, employee, project, day, status) - columnBase : 0;
+                int cell = rowCode * columnCount + columnCode;
+                hourTotals[cell] += hours[i];
+                entryCounts[cell]++;
+            }
+        }
+
+        private int code(PivotDimension dimension, int employee, int project, int day, int status) {
+            switch (dimension) {
+                case EMPLOYEE:
+                    return employee;
+                case MANAGER:
+                    return managers[employee];
+                case PROJECT:
+                    return project;
+                case WEEK:
+                    return weekIndex(day);
+                case MONTH:
+                    return monthIndex(day);
+                default:
+                    return status;
+            }
+        }
+    }
+
+    private static final class ChunkTotals {
+        private final long[] hours;
+        private final int[] counts;
+
+        ChunkTotals(int cells) {
+            this.hours = new long[cells];
+            this.counts = new int[cells];
+        }
+    }
+
+    // Row numbers of one timesheet's entries; a week holds a few dozen, so the linear remove is cheap
+    private static final class RowSet {
+        private int[] rows = new int[8];
+        private int count;
+
+        void add(int row) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+            }
+            rows[count++] = row;
+        }
+
+        void remove(int row) {
+            for (int i = 0; i < count; i++) {
+                if (rows[i] == row) {
+                    rows[i] = rows[--count];
+                    return;
+                }
+            }
+        }
+
+        void replace(int from, int to) {
+            for (int i = 0; i < count; i++) {
+                if (rows[i] == from) {
+                    rows[i] = to;
+                    return;
+                }
+            }
+        }
+    }
+
+    // Values captured inside the write transaction and applied after it commits
+    private static final class EntryChange {
+        private long entryId;
+        private long timesheetId;
+        private long employeeId;
+        private long projectId;
+        private int day;
+        private int hours;
+        private byte status;
+        private String employeeName;
+        private Long managerId;
+        private String managerName;
+        private String projectName;
+    }
+}
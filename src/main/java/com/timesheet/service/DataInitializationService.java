@@ -37,6 +37,12 @@ public class DataInitializationService implements CommandLineRunner {
     @Autowired
     private TimesheetEntryRepository timesheetEntryRepository;
 
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private TimesheetTotalsService timesheetTotalsService;
+
     @Override
     public void run(String... args) throws Exception {
         initializeData();
@@ -130,6 +136,10 @@ public class DataInitializationService implements CommandLineRunner {
         // Create sample timesheet entries for testing reports
         createSampleTimesheetData();
 
+        // Sample entries are saved directly, so seed the report rollup and the timesheet hours from them
+        rollupService.rebuildIfEmpty();
+        timesheetTotalsService.reconcile();
+
         System.out.println("Sample data initialized successfully!");
         System.out.println("Login credentials:");
         System.out.println("Admin: admin@timesheet.com / admin123");
@@ -182,10 +192,6 @@ public class DataInitializationService implements CommandLineRunner {
                     entry3.setHoursWorked(7.0);
                     entry3.setTaskDescription("Database schema updates");
                     timesheetEntryRepository.save(entry3);
-
-                    // Update timesheet total hours
-                    timesheet1.setTotalHours(21.5);
-                    timesheetRepository.save(timesheet1);
                 }
             }
 
@@ -218,10 +224,6 @@ public class DataInitializationService implements CommandLineRunner {
                     entry5.setHoursWorked(4.0);
                     entry5.setTaskDescription("Code review and bug fixes");
                     timesheetEntryRepository.save(entry5);
-
-                    // Update timesheet total hours
-                    timesheet2.setTotalHours(12.0);
-                    timesheetRepository.save(timesheet2);
                 }
             }
 
@@ -1,27 +1,46 @@
 package com.timesheet.service;
 
+import com.timesheet.dto.CursorPageDTO;
 import com.timesheet.dto.EmployeeDTO;
 import com.timesheet.entity.Employee;
 import com.timesheet.enums.UserRole;
 import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.KeysetQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @Transactional
 public class EmployeeService {
 
+    // Sorts for the paged list; each ends with a unique column so the keyset order is total
+    private static final Map<String, List<KeysetQuery.Key<EmployeeDTO>>> PAGE_SORTS = Map.of(
+        "id", List.of(KeysetQuery.key("e.id", Long.class, EmployeeDTO::getId)),
+        "name", List.of(KeysetQuery.key("e.lastName", String.class, EmployeeDTO::getLastName),
+                        KeysetQuery.key("e.firstName", String.class, EmployeeDTO::getFirstName),
+                        KeysetQuery.key("e.id", Long.class, EmployeeDTO::getId)),
+        "email", List.of(KeysetQuery.key("e.email", String.class, EmployeeDTO::getEmail)));
+
     @Autowired
     private EmployeeRepository employeeRepository;
 
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.pagination.page-size:50}")
+    private int defaultPageSize;
+
     public EmployeeDTO authenticateUser(String email, String password) {
         Employee employee = employeeRepository.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Invalid email or password"));
@@ -67,19 +86,14 @@ public class EmployeeService {
         return mapToDTO(employee);
     }
 
-    public List<EmployeeDTO> getAllEmployees() {
-        List<Employee> employees = employeeRepository.findAll();
-        return employees.stream().map(this::mapToDTO).collect(Collectors.toList());
-    }
-
-    public List<EmployeeDTO> getEmployeesByRole(UserRole role) {
-        List<Employee> employees = employeeRepository.findByRole(role);
-        return employees.stream().map(this::mapToDTO).collect(Collectors.toList());
-    }
-
-    public List<EmployeeDTO> getSubordinates(Long managerId) {
-        List<Employee> subordinates = employeeRepository.findSubordinatesByManagerId(managerId);
-        return subordinates.stream().map(this::mapToDTO).collect(Collectors.toList());
+    // Lists are projected straight into DTOs, so no entities (or password hashes) are loaded and nothing is dirty-checked
+    @Transactional(readOnly = true)
+    public CursorPageDTO<EmployeeDTO> getEmployeePage(UserRole role, Long managerId, String sort, String direction,
+                                                      String cursor, Integer pageSize, boolean includeTotal) {
+        return new KeysetQuery<>(entityManager, EmployeeDTO.class, EmployeeRepository.SUMMARY_COLUMNS, EmployeeRepository.SUMMARY_FROM)
+            .where("e.role = :role", "role", role)
+            .where("m.id = :managerId", "managerId", managerId)
+            .page(PAGE_SORTS, sort, direction, cursor, KeysetQuery.resolvePageSize(pageSize, defaultPageSize), includeTotal);
     }
 
     public EmployeeDTO updateEmployee(Long id, EmployeeDTO dto) {
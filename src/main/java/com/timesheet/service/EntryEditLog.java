@@ -0,0 +1,238 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.EntryCreateDTO;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only log of buffered entry edits, kept in memory-mapped segment files numbered by generation.
+// Record layout: payload length, CRC32 of the payload, payload. A zero length or a bad checksum marks the end of a
+// segment, so a record torn by a crash is ignored on replay. Not thread-safe; EntryWriteBehindService serializes access.
+final class EntryEditLog {
+
+    private static final int MAGIC = 0x54534557;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("entry-edits-(\\d+)\\.wal");
+
+    // sun.misc.Unsafe.invokeCleaner, the only way to release a mapping before the buffer is garbage collected;
+    // null where it is not available, in which case sealed segments stay mapped until then
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field instance = type.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            unsafe = instance.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Write-ahead log segments will be unmapped by the garbage collector: " + e);
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+
+    private long generation;
+    private MappedByteBuffer buffer;
+
+    EntryEditLog(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    static final class LoggedEdit {
+        final long timesheetId;
+        final EntryCreateDTO cell;
+
+        LoggedEdit(long timesheetId, EntryCreateDTO cell) {
+            this.timesheetId = timesheetId;
+            this.cell = cell;
+        }
+    }
+
+    // Reads every existing segment in generation order, then starts a fresh segment after them
+    List<LoggedEdit> open() throws IOException {
+        Files.createDirectories(directory);
+        List<LoggedEdit> edits = new ArrayList<>();
+        TreeMap<Long, Path> existing = segments();
+        for (Path segment : existing.values()) {
+            readSegment(segment, edits);
+        }
+        startSegment(existing.isEmpty() ? 1 : existing.lastKey() + 1);
+        return edits;
+    }
+
+    void append(long timesheetId, EntryCreateDTO cell) throws IOException {
+        byte[] payload = encode(timesheetId, cell);
+        if (HEADER_BYTES + RECORD_HEADER_BYTES + payload.length > segmentBytes) {
+            throw new IllegalArgumentException("Entry edit is too large for the write-ahead log");
+        }
+        if (buffer.remaining() < RECORD_HEADER_BYTES + payload.length) {
+            rotate();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        // The length goes in last, so a record only becomes visible to replay once it is complete
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        buffer.putInt(start, payload.length);
+    }
+
+    void sync() {
+        buffer.force();
+    }
+
+    // Seals the current segment; edits appended from now on go to a new one. The sealed segment is only read again by
+    // replay, from the file, so its mapping is released right away instead of holding address space until a GC.
+    void rotate() throws IOException {
+        MappedByteBuffer sealed = buffer;
+        sealed.force();
+        startSegment(generation + 1);
+        unmap(sealed);
+    }
+
+    void close() {
+        if (buffer != null) {
+            buffer.force();
+            unmap(buffer);
+            buffer = null;
+        }
+    }
+
+    boolean hasSealedSegments() throws IOException {
+        return segments().firstKey() < generation;
+    }
+
+    // Called once everything in the sealed segments is in the database
+    void deleteSealedSegments() throws IOException {
+        for (Map.Entry<Long, Path> segment : segments().entrySet()) {
+            if (segment.getKey() < generation) {
+                Files.deleteIfExists(segment.getValue());
+            }
+        }
+    }
+
+    private void startSegment(long nextGeneration) throws IOException {
+        Path path = directory.resolve("entry-edits-" + nextGeneration + ".wal");
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+             FileChannel channel = file.getChannel()) {
+            file.setLength(segmentBytes);
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putInt(MAGIC);
+        buffer.putInt(0);
+        buffer.putLong(nextGeneration);
+        buffer.force();
+        generation = nextGeneration;
+    }
+
+    // The buffer must not be touched afterwards; callers drop their reference first
+    private static void unmap(MappedByteBuffer mapped) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, mapped);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Could not unmap a write-ahead log segment: " + e);
+        }
+    }
+
+    private TreeMap<Long, Path> segments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), path);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private void readSegment(Path segment, List<LoggedEdit> edits) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+            System.err.println("Ignoring unreadable write-ahead log segment " + segment);
+            return;
+        }
+        data.position(HEADER_BYTES);
+
+        while (data.remaining() >= RECORD_HEADER_BYTES) {
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            data.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            edits.add(decode(payload));
+        }
+    }
+
+    private static byte[] encode(long timesheetId, EntryCreateDTO cell) {
+        byte[] description = cell.getTaskDescription() != null ? cell.getTaskDescription().getBytes(StandardCharsets.UTF_8) : null;
+        ByteBuffer payload = ByteBuffer.allocate(36 + (description != null ? description.length : 0));
+        payload.putLong(timesheetId);
+        payload.putLong(cell.getProjectId());
+        payload.putLong(cell.getWorkDate().toEpochDay());
+        payload.putDouble(cell.getHoursWorked());
+        payload.putInt(description != null ? description.length : -1);
+        if (description != null) {
+            payload.put(description);
+        }
+        return payload.array();
+    }
+
+    private static LoggedEdit decode(byte[] bytes) {
+        ByteBuffer payload = ByteBuffer.wrap(bytes);
+        long timesheetId = payload.getLong();
+        long projectId = payload.getLong();
+        LocalDate workDate = LocalDate.ofEpochDay(payload.getLong());
+        double hours = payload.getDouble();
+        int descriptionLength = payload.getInt();
+        String description = null;
+        if (descriptionLength >= 0) {
+            byte[] text = new byte[descriptionLength];
+            payload.get(text);
+            description = new String(text, StandardCharsets.UTF_8);
+        }
+        return new LoggedEdit(timesheetId, new EntryCreateDTO(projectId, workDate, hours, description));
+    }
+}
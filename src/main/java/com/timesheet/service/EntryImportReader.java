@@ -0,0 +1,166 @@
+package com.timesheet.service;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+// Streaming row readers for entry imports: both formats push one row at a time to the handler and never hold the file.
+// XLSX goes through POI's event API (shared strings and styles only, the sheet itself is parsed as SAX events).
+final class EntryImportReader {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    interface RowHandler {
+        // rowNumber is 1-based and counts the header row, matching what a spreadsheet shows
+        void row(long rowNumber, List<String> cells);
+    }
+
+    private EntryImportReader() {}
+
+    // RFC 4180: quoted fields may contain commas, doubled quotes and line breaks
+    static void readCsv(InputStream inputStream, RowHandler handler) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        boolean rowHasContent = false;
+        long rowNumber = 1;
+
+        int c = reader.read();
+        if (c == '\uFEFF') {
+            c = reader.read();
+        }
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        cell.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+                continue;
+            }
+
+            if (c == '"') {
+                quoted = true;
+                rowHasContent = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+                rowHasContent = true;
+            } else if (c == '\n') {
+                cells.add(cell.toString());
+                if (rowHasContent || cell.length() > 0) {
+                    handler.row(rowNumber, cells);
+                }
+                rowNumber++;
+                cells = new ArrayList<>();
+                cell.setLength(0);
+                rowHasContent = false;
+            } else if (c != '\r') {
+                cell.append((char) c);
+            }
+        }
+
+        if (rowHasContent || cell.length() > 0) {
+            cells.add(cell.toString());
+            handler.row(rowNumber, cells);
+        }
+    }
+
+    // Reads the first sheet. Dates come out as ISO dates whatever their cell format, numbers without grouping or rounding.
+    static void readXlsx(File file, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+
+            Iterator<InputStream> sheets = xssfReader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new SheetRows(handler), new IsoDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+
+        SheetRows(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!cells.isEmpty()) {
+                handler.row(rowNum + 1, new ArrayList<>(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // Empty cells are not reported; pad up to this cell's column so values stay under their headers
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : cells.size();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue);
+        }
+    }
+
+    private static final class IsoDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return NumberToTextConverter.toText(value);
+        }
+    }
+
+    static List<String> normalizeHeaders(List<String> headers) {
+        String[] normalized = new String[headers.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = headers.get(i).trim().toLowerCase().replace(' ', '_');
+        }
+        return Arrays.asList(normalized);
+    }
+}
@@ -0,0 +1,432 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.ImportResultDTO;
+import com.timesheet.entity.Employee;
+import com.timesheet.entity.Timesheet;
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.repository.ArchivedEntryPartitionRepository;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
+import com.timesheet.repository.TimesheetRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bulk load of historical entries. Rows are validated as they are read, against employee and project maps loaded once
+// and per-employee week maps loaded on first use, then written in chunks: each chunk is one transaction holding the
+// weeks it creates, its entry inserts (plain JDBC batches with ids taken from the sequence in one block per chunk),
+// one totals update per touched timesheet and one batch of rollup upserts, a delta per employee, project and day. A
+// failed chunk is reported against its rows and the import carries on.
+@Service
+public class EntryImportService {
+
+    private static final String[] REQUIRED_COLUMNS = {"employee_email", "project_code", "work_date", "hours"};
+    private static final String DESCRIPTION_COLUMN = "description";
+    private static final int MAX_DESCRIPTION_LENGTH = 500;
+    private static final String ENTRY_SEQUENCE = "timesheet_entries_seq";
+
+    private static final String INSERT_ENTRY =
+        "INSERT INTO timesheet_entries (id, timesheet_id, project_id, work_date, hours_worked, task_description, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private ArchivedEntryPartitionRepository archivedEntryPartitionRepository;
+
+    @Autowired
+    private TimesheetTotalsService timesheetTotalsService;
+
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${app.import.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // First day of the weeks created for dates no existing timesheet covers
+    @Value("${app.import.week-start-day:MONDAY}")
+    private DayOfWeek weekStartDay;
+
+    private volatile String entryIdBlockQuery;
+
+    // rowsRead is advanced as rows are read, for progress reporting
+    public ImportResultDTO importCsv(InputStream inputStream, AtomicLong rowsRead) throws IOException {
+        Import run = new Import(rowsRead);
+        EntryImportReader.readCsv(inputStream, run::row);
+        return run.finish();
+    }
+
+    public ImportResultDTO importXlsx(File file, AtomicLong rowsRead) throws Exception {
+        Import run = new Import(rowsRead);
+        EntryImportReader.readXlsx(file, run::row);
+        return run.finish();
+    }
+
+    // Ids for 'count' entries. Each sequence value is the top of a block of ID_ALLOCATION_SIZE ids, the same way the
+    // pooled optimizer reads it, so these never collide with ids Hibernate hands out; one query fetches every block.
+    private long[] allocateEntryIds(int count) {
+        int blocks = (count + TimesheetEntry.ID_ALLOCATION_SIZE - 1) / TimesheetEntry.ID_ALLOCATION_SIZE;
+        List<Long> tops = jdbcTemplate.queryForList(entryIdBlockQuery(), Long.class, blocks);
+        long[] ids = new long[count];
+        int next = 0;
+        for (Long top : tops) {
+            for (long id = top - TimesheetEntry.ID_ALLOCATION_SIZE + 1; id <= top && next < count; id++) {
+                ids[next++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private String entryIdBlockQuery() {
+        if (entryIdBlockQuery == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            String rows = dialect instanceof PostgreSQL81Dialect ? "generate_series(1, ?)" : "SYSTEM_RANGE(1, ?)";
+            entryIdBlockQuery = "SELECT " + dialect.getSelectSequenceNextValString(ENTRY_SEQUENCE) + " FROM " + rows;
+        }
+        return entryIdBlockQuery;
+    }
+
+    // State of one import run; not shared between requests
+    private final class Import {
+        private final long started = System.currentTimeMillis();
+        private final Map<String, Long> employeeIds = new HashMap<>();
+        private final Map<String, Long> projectIds = new HashMap<>();
+        private final Map<Long, TreeMap<LocalDate, Week>> weeksByEmployee = new HashMap<>();
+        private final List<ImportResultDTO.RowError> errors = new ArrayList<>();
+        private final List<PendingEntry> chunk = new ArrayList<>();
+        private final AtomicLong progress;
+        private final LocalDate liveEntriesFrom = archivedEntryPartitionRepository.findLiveEntriesFrom();
+
+        private int[] columns;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+        private int timesheetsCreated;
+
+        Import(AtomicLong progress) {
+            this.progress = progress;
+            for (Object[] row : employeeRepository.findAllEmails()) {
+                employeeIds.put(((String) row[0]).trim().toLowerCase(), ((Number) row[1]).longValue());
+            }
+            for (Object[] row : projectRepository.findAllCodes()) {
+                projectIds.put(((String) row[0]).trim().toUpperCase(), ((Number) row[1]).longValue());
+            }
+        }
+
+        void row(long rowNumber, List<String> cells) {
+            if (columns == null) {
+                columns = resolveColumns(cells);
+                return;
+            }
+
+            rowsRead++;
+            progress.set(rowsRead);
+            try {
+                chunk.add(parse(rowNumber, cells));
+            } catch (IllegalArgumentException e) {
+                fail(rowNumber, e.getMessage());
+                return;
+            }
+            if (chunk.size() >= chunkSize) {
+                writeChunk();
+            }
+        }
+
+        ImportResultDTO finish() {
+            if (columns == null) {
+                throw new IllegalArgumentException("The file is empty");
+            }
+            writeChunk();
+
+            if (rowsImported > 0) {
+                // An import touches arbitrary weeks, so everything cached is suspect
+                reportCacheService.clear();
+                if (analyticsService.isEnabled()) {
+                    analyticsService.reload();
+                }
+            }
+
+            long duration = System.currentTimeMillis() - started;
+            System.out.println("Imported " + rowsImported + " of " + rowsRead + " timesheet entry rows in " + duration + " ms");
+            return new ImportResultDTO(rowsRead, rowsImported, rowsFailed, timesheetsCreated, duration,
+                errors, rowsFailed > errors.size());
+        }
+
+        private int[] resolveColumns(List<String> headers) {
+            List<String> normalized = EntryImportReader.normalizeHeaders(headers);
+            int[] resolved = new int[REQUIRED_COLUMNS.length + 1];
+            for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+                resolved[i] = normalized.indexOf(REQUIRED_COLUMNS[i]);
+                if (resolved[i] < 0) {
+                    throw new IllegalArgumentException("Missing column " + REQUIRED_COLUMNS[i] + "; expected "
+                        + String.join(", ", REQUIRED_COLUMNS) + " and optionally " + DESCRIPTION_COLUMN);
+                }
+            }
+            resolved[REQUIRED_COLUMNS.length] = normalized.indexOf(DESCRIPTION_COLUMN);
+            return resolved;
+        }
+
+        private PendingEntry parse(long rowNumber, List<String> cells) {
+            String email = cell(cells, columns[0]);
+            Long employeeId = employeeIds.get(email.toLowerCase());
+            if (employeeId == null) {
+                throw new IllegalArgumentException("Unknown employee email: " + email);
+            }
+
+            String projectCode = cell(cells, columns[1]);
+            Long projectId = projectIds.get(projectCode.toUpperCase());
+            if (projectId == null) {
+                throw new IllegalArgumentException("Unknown project code: " + projectCode);
+            }
+
+            LocalDate workDate;
+            try {
+                workDate = LocalDate.parse(cell(cells, columns[2]));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Work date must be an ISO date (yyyy-MM-dd): " + cell(cells, columns[2]));
+            }
+            if (workDate.isBefore(liveEntriesFrom)) {
+                throw new IllegalArgumentException("Work date " + workDate + " is in an archived month; entries before " + liveEntriesFrom + " can no longer be imported");
+            }
+
+            double hours;
+            try {
+                hours = Double.parseDouble(cell(cells, columns[3]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Hours must be a number: " + cell(cells, columns[3]));
+            }
+            if (!(hours >= 0.0 && hours <= 24.0)) {
+                throw new IllegalArgumentException("Hours worked must be between 0 and 24");
+            }
+
+            String description = columns[4] >= 0 ? cell(cells, columns[4]) : "";
+            if (description.length() > MAX_DESCRIPTION_LENGTH) {
+                throw new IllegalArgumentException("Description cannot exceed " + MAX_DESCRIPTION_LENGTH + " characters");
+            }
+
+            Week week = weekFor(employeeId, workDate);
+            if (!week.draft) {
+                throw new IllegalArgumentException("Timesheet for the week of " + week.startDate + " is not in draft status");
+            }
+            int day = week.dayIndexOf(workDate);
+            if (day < 0) {
+                throw new IllegalArgumentException("Work date " + workDate + " is outside the timesheet week");
+            }
+            if (week.dailyHours[day] + hours > 24.0) {
+                throw new IllegalArgumentException("Hours worked on " + workDate + " cannot exceed 24 hours");
+            }
+            week.dailyHours[day] += hours;
+
+            return new PendingEntry(rowNumber, employeeId, projectId, week, day, workDate, hours,
+                description.isEmpty() ? null : description);
+        }
+
+        // The timesheet covering the date, or a new week to be created with the chunk that first needs it
+        private Week weekFor(Long employeeId, LocalDate workDate) {
+            TreeMap<LocalDate, Week> weeks = weeksByEmployee.computeIfAbsent(employeeId, this::loadWeeks);
+            Map.Entry<LocalDate, Week> floor = weeks.floorEntry(workDate);
+            if (floor != null && !floor.getValue().endDate.isBefore(workDate)) {
+                return floor.getValue();
+            }
+
+            LocalDate startDate = workDate.with(TemporalAdjusters.previousOrSame(weekStartDay));
+            Week week = new Week(null, startDate, startDate.plusDays(Timesheet.DAYS_PER_WEEK - 1), true, new double[Timesheet.DAYS_PER_WEEK]);
+            weeks.put(startDate, week);
+            return week;
+        }
+
+        private TreeMap<LocalDate, Week> loadWeeks(Long employeeId) {
+            TreeMap<LocalDate, Week> weeks = new TreeMap<>();
+            for (Timesheet timesheet : timesheetRepository.findByEmployeeId(employeeId)) {
+                weeks.put(timesheet.getWeekStartDate(), new Week(timesheet.getId(), timesheet.getWeekStartDate(), timesheet.getWeekEndDate(),
+                    timesheet.getStatus() == TimesheetStatus.DRAFT, timesheet.getDailyHours()));
+            }
+            // Nothing from here on reads the loaded entities again
+            entityManager.clear();
+            return weeks;
+        }
+
+        private void writeChunk() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            Set<Week> created = new LinkedHashSet<>();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> insertChunk(created));
+                rowsImported += chunk.size();
+                timesheetsCreated += created.size();
+            } catch (RuntimeException e) {
+                // Nothing of the chunk was kept: forget the weeks it created and the hours it counted
+                for (Week week : created) {
+                    week.id = null;
+                }
+                for (PendingEntry entry : chunk) {
+                    entry.week.dailyHours[entry.day] -= entry.hours;
+                    fail(entry.rowNumber, "Not imported, the batch containing this row failed: " + e.getMessage());
+                }
+            } finally {
+                chunk.clear();
+            }
+        }
+
+        private void insertChunk(Set<Week> created) {
+            Map<Week, double[]> dayDeltas = new LinkedHashMap<>();
+            RollupService.NewEntries rollupDeltas = new RollupService.NewEntries();
+
+            for (PendingEntry entry : chunk) {
+                Week week = entry.week;
+                if (week.id == null) {
+                    Timesheet timesheet = new Timesheet();
+                    timesheet.setEmployee(entityManager.getReference(Employee.class, entry.employeeId));
+                    timesheet.setWeekStartDate(week.startDate);
+                    timesheet.setWeekEndDate(week.endDate);
+                    timesheet.setStatus(TimesheetStatus.DRAFT);
+                    entityManager.persist(timesheet);
+                    week.id = timesheet.getId();
+                    created.add(week);
+                }
+
+                dayDeltas.computeIfAbsent(week, key -> new double[Timesheet.DAYS_PER_WEEK])[entry.day] += entry.hours;
+                rollupDeltas.add(entry.employeeId, entry.projectId, entry.workDate, entry.hours);
+            }
+            // New weeks go in before the entries that reference them
+            entityManager.flush();
+            entityManager.clear();
+
+            // The entries skip the persistence context altogether: no entity instances, no dirty checking
+            long[] ids = allocateEntryIds(chunk.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int[] index = {0};
+            jdbcTemplate.batchUpdate(INSERT_ENTRY, chunk, jdbcBatchSize, (statement, entry) -> {
+                statement.setLong(1, ids[index[0]++]);
+                statement.setLong(2, entry.week.id);
+                statement.setLong(3, entry.projectId);
+                statement.setDate(4, Date.valueOf(entry.workDate));
+                statement.setDouble(5, entry.hours);
+                if (entry.description != null) {
+                    statement.setString(6, entry.description);
+                } else {
+                    statement.setNull(6, Types.VARCHAR);
+                }
+                statement.setTimestamp(7, now);
+                statement.setTimestamp(8, now);
+            });
+
+            dayDeltas.forEach((week, deltas) -> timesheetTotalsService.applyDayDeltas(week.id, deltas));
+            rollupService.applyNewEntries(rollupDeltas);
+        }
+
+        private void fail(long rowNumber, String message) {
+            rowsFailed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportResultDTO.RowError(rowNumber, message));
+            }
+        }
+    }
+
+    private static String cell(List<String> cells, int column) {
+        return column < cells.size() && cells.get(column) != null ? cells.get(column).trim() : "";
+    }
+
+    private static final class Week {
+        private Long id;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final boolean draft;
+        private final double[] dailyHours;
+
+        Week(Long id, LocalDate startDate, LocalDate endDate, boolean draft, double[] dailyHours) {
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.draft = draft;
+            this.dailyHours = dailyHours;
+        }
+
+        int dayIndexOf(LocalDate workDate) {
+            long day = workDate.toEpochDay() - startDate.toEpochDay();
+            return day >= 0 && day < Timesheet.DAYS_PER_WEEK && !workDate.isAfter(endDate) ? (int) day : -1;
+        }
+    }
+
+    private static final class PendingEntry {
+        private final long rowNumber;
+        private final Long employeeId;
+        private final Long projectId;
+        private final Week week;
+        private final int day;
+        private final LocalDate workDate;
+        private final double hours;
+        private final String description;
+
+        PendingEntry(long rowNumber, Long employeeId, Long projectId, Week week, int day, LocalDate workDate, double hours, String description) {
+            this.rowNumber = rowNumber;
+            this.employeeId = employeeId;
+            this.projectId = projectId;
+            this.week = week;
+            this.day = day;
+            this.workDate = workDate;
+            this.hours = hours;
+            this.description = description;
+        }
+    }
+}
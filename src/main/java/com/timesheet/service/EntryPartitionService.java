@@ -0,0 +1,262 @@
+package com.timesheet.service;
+
+import com.timesheet.entity.ArchivedEntryPartition;
+import com.timesheet.repository.ArchivedEntryPartitionRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Looks after the monthly partitions of timesheet_entries on PostgreSQL (db/migration/postgresql/V5): creates the
+// coming months ahead of time, moves rows that landed in the default partition into a month of their own, and detaches
+// old months into the timesheet_archive schema. Everything here is a no-op or refused where the table is not
+// partitioned, which includes H2.
+@Service
+public class EntryPartitionService {
+
+    private static final String DEFAULT_PARTITION = "timesheet_entries_default";
+    private static final String ARCHIVE_SCHEMA = "timesheet_archive";
+    private static final Pattern MONTH_PARTITION = Pattern.compile("timesheet_entries_y(\\d{4})m(\\d{2})");
+    private static final DateTimeFormatter MONTH_PARTITION_NAME = DateTimeFormatter.ofPattern("'timesheet_entries_y'yyyy'm'MM");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ArchivedEntryPartitionRepository archivedEntryPartitionRepository;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Value("${app.entry-partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    private volatile Boolean partitioned;
+
+    public boolean isPartitioned() {
+        if (partitioned == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            partitioned = dialect instanceof PostgreSQL81Dialect && readOnly().execute(status -> ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('timesheet_entries')").getSingleResult()).intValue() > 0);
+        }
+        return partitioned;
+    }
+
+    @Scheduled(fixedDelayString = "${app.entry-partitions.maintenance-interval-ms:21600000}")
+    public void maintainPartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        int created = ensurePartitions();
+        if (created > 0) {
+            System.out.println("Created " + created + " timesheet_entries partitions");
+        }
+    }
+
+    // The current month through monthsAhead, plus every live month that has rows waiting in the default partition
+    public int ensurePartitions() {
+        LocalDate liveFrom = archivedEntryPartitionRepository.findLiveEntriesFrom();
+        TreeSet<LocalDate> months = new TreeSet<>();
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(currentMonth.plusMonths(i));
+        }
+        readOnly().executeWithoutResult(status -> {
+            for (Object month : entityManager.createNativeQuery(
+                    "SELECT DISTINCT CAST(DATE_TRUNC('month', work_date) AS DATE) FROM " + DEFAULT_PARTITION).getResultList()) {
+                months.add(toLocalDate(month));
+            }
+        });
+        // Rows for an archived month stay in the default partition; its name is taken in the archive schema
+        months.removeIf(month -> month.isBefore(liveFrom));
+        months.removeAll(attachedMonths().keySet());
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        for (LocalDate month : months) {
+            template.executeWithoutResult(status -> createPartition(month));
+        }
+        return months.size();
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("partitioned", isPartitioned());
+        List<Map<String, Object>> partitions = new ArrayList<>();
+        if (isPartitioned()) {
+            readOnly().executeWithoutResult(status -> {
+                for (Object row : entityManager.createNativeQuery(
+                        "SELECT c.relname, c.reltuples FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass('timesheet_entries') ORDER BY c.relname").getResultList()) {
+                    Object[] columns = (Object[]) row;
+                    Map<String, Object> partition = new LinkedHashMap<>();
+                    String name = (String) columns[0];
+                    LocalDate month = monthOf(name);
+                    partition.put("name", name);
+                    partition.put("rangeStart", month);
+                    partition.put("rangeEnd", month != null ? month.plusMonths(1) : null);
+                    // Planner statistics, not a count; negative until the partition has been analyzed
+                    partition.put("estimatedRows", ((Number) columns[1]).longValue());
+                    partitions.add(partition);
+                }
+            });
+        }
+        result.put("partitions", partitions);
+        result.put("archived", archivedEntryPartitionRepository.findAllByOrderByRangeStart());
+        return result;
+    }
+
+    // Detaches every month that ends on or before the month of 'before' and moves it to the archive schema, oldest
+    // first. Reports keep the hours of archived months through the rollup; their line items are gone from the live table.
+    // Refused while a timesheet overlapping one of those months is not approved yet, since its entries could still change.
+    public List<ArchivedEntryPartition> archiveBefore(LocalDate before) {
+        if (!isPartitioned()) {
+            throw new RuntimeException("timesheet_entries is only partitioned on PostgreSQL; nothing to archive on this database");
+        }
+        LocalDate cutoff = before.withDayOfMonth(1);
+        if (cutoff.isAfter(LocalDate.now().withDayOfMonth(1))) {
+            throw new IllegalArgumentException("Only months before the current one can be archived");
+        }
+
+        // Stray rows in the default partition go to their month first, so they are archived along with it
+        ensurePartitions();
+
+        Map<LocalDate, String> months = new TreeMap<>(attachedMonths());
+        months.keySet().removeIf(month -> month.plusMonths(1).isAfter(cutoff));
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Checked up front so nothing is archived when a later month would be refused; archivePartition checks again
+        LocalDate from = months.keySet().iterator().next();
+        long unapproved = readOnly().execute(status -> countUnapprovedTimesheets(from, cutoff));
+        if (unapproved > 0) {
+            throw new RuntimeException("Cannot archive entries before " + cutoff + ": " + unapproved + " timesheets from " + from + " on are not approved");
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        List<ArchivedEntryPartition> archived = new ArrayList<>();
+        try {
+            for (Map.Entry<LocalDate, String> partition : months.entrySet()) {
+                archived.add(template.execute(status -> archivePartition(partition.getValue(), partition.getKey())));
+            }
+        } finally {
+            if (!archived.isEmpty()) {
+                reportCacheService.clear();
+                if (analyticsService.isEnabled()) {
+                    analyticsService.reload();
+                }
+                System.out.println("Archived " + archived.size() + " timesheet_entries partitions before " + cutoff);
+            }
+        }
+        return archived;
+    }
+
+    private void createPartition(LocalDate month) {
+        String name = month.format(MONTH_PARTITION_NAME);
+        LocalDate end = month.plusMonths(1);
+        // Attaching has to check the default partition holds no rows for the month, so it is locked for the whole move
+        execute("LOCK TABLE " + DEFAULT_PARTITION + " IN ACCESS EXCLUSIVE MODE");
+        execute("CREATE TABLE " + name + " (LIKE timesheet_entries INCLUDING DEFAULTS)");
+        execute("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE work_date >= DATE '" + month + "' AND work_date < DATE '" + end + "' RETURNING *) " +
+                "INSERT INTO " + name + " SELECT * FROM moved");
+        // The parent's primary key, foreign keys and indexes are created on the partition as it is attached
+        execute("ALTER TABLE timesheet_entries ATTACH PARTITION " + name + " FOR VALUES FROM ('" + month + "') TO ('" + end + "')");
+    }
+
+    private ArchivedEntryPartition archivePartition(String name, LocalDate month) {
+        // Every entry write updates its timesheet's totals, so while timesheets are share-locked no entry write for the
+        // month is in flight or can start; once this commits, writes check the new archive boundary and are refused
+        execute("LOCK TABLE timesheets IN SHARE MODE");
+        long unapproved = countUnapprovedTimesheets(month, month.plusMonths(1));
+        if (unapproved > 0) {
+            throw new RuntimeException("Cannot archive " + name + ": " + unapproved + " timesheets overlapping it are not approved");
+        }
+
+        long rows = ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM " + name).getSingleResult()).longValue();
+        execute("ALTER TABLE timesheet_entries DETACH PARTITION " + name);
+        // A detached partition keeps the parent's foreign keys as its own; archived rows must not pin timesheets and projects
+        for (Object constraint : entityManager.createNativeQuery(
+                "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(:name) AND contype = 'f'")
+                .setParameter("name", name).getResultList()) {
+            execute("ALTER TABLE " + name + " DROP CONSTRAINT \"" + constraint + "\"");
+        }
+        execute("ALTER TABLE " + name + " SET SCHEMA " + ARCHIVE_SCHEMA);
+        return archivedEntryPartitionRepository.save(new ArchivedEntryPartition(name, month, month.plusMonths(1), rows, LocalDateTime.now()));
+    }
+
+    // Timesheets with a day in [start, end) that are not approved and so may still have entries written
+    private long countUnapprovedTimesheets(LocalDate start, LocalDate end) {
+        return ((Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM timesheets WHERE week_start_date < :end AND week_end_date >= :start AND status <> 'APPROVED'")
+            .setParameter("start", start)
+            .setParameter("end", end)
+            .getSingleResult()).longValue();
+    }
+
+    // Monthly partitions currently attached, by month; the default partition is not one of them
+    private Map<LocalDate, String> attachedMonths() {
+        Map<LocalDate, String> months = new TreeMap<>();
+        readOnly().executeWithoutResult(status -> {
+            for (Object name : entityManager.createNativeQuery(
+                    "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                    "WHERE i.inhparent = to_regclass('timesheet_entries')").getResultList()) {
+                LocalDate month = monthOf((String) name);
+                if (month != null) {
+                    months.put(month, (String) name);
+                }
+            }
+        });
+        return months;
+    }
+
+    private static LocalDate monthOf(String partitionName) {
+        Matcher matcher = MONTH_PARTITION.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1);
+    }
+
+    private void execute(String sql) {
+        entityManager.createNativeQuery(sql).executeUpdate();
+    }
+
+    private TransactionTemplate readOnly() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        // Native queries return java.sql.Date or LocalDate depending on the driver
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+}
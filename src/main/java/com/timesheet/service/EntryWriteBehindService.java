@@ -0,0 +1,403 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.EntryCreateDTO;
+import com.timesheet.dto.TimesheetDTO;
+import com.timesheet.dto.TimesheetEntryDTO;
+import com.timesheet.entity.Project;
+import com.timesheet.repository.ProjectRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Optional write-behind path for autosave cell edits. An edit is validated like a direct write, then acknowledged once
+// it is in the fsync'd write-ahead log; edits are coalesced per (timesheet, project, day) and written to the database
+// in batches by a single flusher. Direct writes and workflow transitions of a timesheet go through drainAndRun, which
+// holds the timesheet's lock so no edit can be accepted between writing out the buffer and the write itself.
+@Service
+public class EntryWriteBehindService {
+
+    // Per-timesheet locks, striped so there is nothing to evict
+    private static final int LOCK_STRIPES = 64;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Value("${app.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.write-behind.directory:${java.io.tmpdir}/timesheet-write-behind}")
+    private String directory;
+
+    @Value("${app.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.write-behind.flush-threshold:500}")
+    private int flushThreshold;
+
+    @Value("${app.write-behind.segment-size-kb:4096}")
+    private int segmentSizeKb;
+
+    // timesheet id -> latest edit per (project, day); guarded by this, like the log
+    private final Map<Long, Map<CellKey, EntryCreateDTO>> pending = new HashMap<>();
+    private int pendingCells;
+
+    // The batch the flusher is writing; still visible to reads until it is committed
+    private Map<Long, Map<CellKey, EntryCreateDTO>> flushing = new HashMap<>();
+
+    private final ReentrantLock[] timesheetLocks = new ReentrantLock[LOCK_STRIPES];
+
+    private final Object flushLock = new Object();
+    private EntryEditLog log;
+    private ScheduledExecutorService flusher;
+
+    // Set on shutdown, under the monitor that guards the log; no edit is acknowledged after it
+    private boolean closed;
+    private long flushedCells;
+    private long droppedCells;
+
+    @PostConstruct
+    public void init() throws IOException {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            timesheetLocks[i] = new ReentrantLock();
+        }
+        if (!enabled) {
+            return;
+        }
+        log = new EntryEditLog(Paths.get(directory), segmentSizeKb * 1024);
+        List<EntryEditLog.LoggedEdit> replayed = log.open();
+        synchronized (this) {
+            for (EntryEditLog.LoggedEdit edit : replayed) {
+                put(edit.timesheetId, edit.cell);
+            }
+        }
+        if (!replayed.isEmpty()) {
+            System.out.println("Replayed " + replayed.size() + " buffered entry edits from the write-ahead log");
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startFlusher() {
+        if (!enabled) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "entry-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Replayed edits go out with the first run
+        flusher.scheduleWithFixedDelay(this::flushQuietly, 0, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            // Best effort; anything left over is still in the log and replayed on the next start
+            flushQuietly();
+        }
+        synchronized (this) {
+            closed = true;
+            if (log != null) {
+                log.close();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns once the edits are validated and durable in the log; the database sees them with the next flush
+    public int enqueue(Long timesheetId, List<EntryCreateDTO> cells) {
+        if (!enabled) {
+            throw new IllegalStateException("Write-behind is disabled");
+        }
+        ReentrantLock lock = lockFor(timesheetId);
+        lock.lock();
+        try {
+            // Buffered edits are read before the database, like readThrough, so an edit flushed in between is not missed
+            timesheetService.validateCellEdits(timesheetId, buffered(timesheetId).values(), cells);
+
+            boolean flushNow;
+            synchronized (this) {
+                if (closed) {
+                    throw new TransientDataAccessResourceException("Shutting down; the edits were not saved, try again shortly");
+                }
+                try {
+                    for (EntryCreateDTO cell : cells) {
+                        log.append(timesheetId, cell);
+                    }
+                    log.sync();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write to the write-ahead log", e);
+                }
+                for (EntryCreateDTO cell : cells) {
+                    put(timesheetId, cell);
+                }
+                flushNow = pendingCells >= flushThreshold;
+            }
+
+            if (flushNow && flusher != null) {
+                try {
+                    flusher.execute(this::flushQuietly);
+                } catch (RejectedExecutionException e) {
+                    // Shut down since the append; the edits are in the log and go out with the replay on the next start
+                }
+            }
+            return cells.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // For every write to a timesheet that does not go through the buffer (direct entry writes, submit): writes out the
+    // buffered edits first and keeps new ones out until the write is done
+    public <T> T drainAndRun(Long timesheetId, Supplier<T> write) {
+        if (!enabled) {
+            return write.get();
+        }
+        ReentrantLock lock = lockFor(timesheetId);
+        lock.lock();
+        try {
+            drain(timesheetId);
+            return write.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes out any buffered edits for the timesheet. Fails while some of them are still buffered, i.e. parked for
+    // retry after a failed flush, since a write that went ahead now would later be overwritten by them.
+    public void drain(Long timesheetId) {
+        if (!enabled) {
+            return;
+        }
+        if (buffered(timesheetId).isEmpty()) {
+            return;
+        }
+        flush();
+        if (!buffered(timesheetId).isEmpty()) {
+            throw new TransientDataAccessResourceException(
+                "Buffered edits for timesheet " + timesheetId + " could not be written yet; try again shortly");
+        }
+    }
+
+    // Read-your-writes for the timesheet view: buffered cells replace the stored entries for their key. The buffer is
+    // read before the database, so an edit flushed in between is seen twice rather than not at all; edits are
+    // absolute values, so seeing one twice is harmless.
+    public TimesheetDTO readThrough(Long timesheetId, Supplier<TimesheetDTO> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        Map<CellKey, EntryCreateDTO> buffered = buffered(timesheetId);
+        TimesheetDTO timesheet = read.get();
+        if (buffered.isEmpty()) {
+            return timesheet;
+        }
+        List<EntryCreateDTO> cells = new ArrayList<>(buffered.values());
+
+        Map<Long, Project> projects = projectRepository.findAllById(
+                cells.stream().map(EntryCreateDTO::getProjectId).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Project::getId, Function.identity()));
+
+        Map<CellKey, List<TimesheetEntryDTO>> entries = new LinkedHashMap<>();
+        if (timesheet.getEntries() != null) {
+            for (TimesheetEntryDTO entry : timesheet.getEntries()) {
+                entries.computeIfAbsent(new CellKey(entry.getProjectId(), entry.getWorkDate()), key -> new ArrayList<>()).add(entry);
+            }
+        }
+        for (EntryCreateDTO cell : cells) {
+            CellKey key = new CellKey(cell.getProjectId(), cell.getWorkDate());
+            entries.remove(key);
+            if (cell.getHoursWorked() > 0.0) {
+                Project project = projects.get(cell.getProjectId());
+                TimesheetEntryDTO entry = new TimesheetEntryDTO(null, cell.getProjectId(),
+                    project != null ? project.getProjectCode() : null, project != null ? project.getProjectName() : null,
+                    cell.getWorkDate(), cell.getHoursWorked(), cell.getTaskDescription());
+                entry.setTimesheetId(timesheet.getId());
+                entries.put(key, new ArrayList<>(List.of(entry)));
+            }
+        }
+
+        List<TimesheetEntryDTO> merged = entries.values().stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(TimesheetEntryDTO::getWorkDate))
+            .collect(Collectors.toList());
+        double total = 0.0;
+        List<Double> dailyHours = new ArrayList<>(timesheet.getDailyHours());
+        for (int day = 0; day < dailyHours.size(); day++) {
+            dailyHours.set(day, 0.0);
+        }
+        for (TimesheetEntryDTO entry : merged) {
+            total += entry.getHoursWorked();
+            int day = (int) ChronoUnit.DAYS.between(timesheet.getWeekStartDate(), entry.getWorkDate());
+            if (day >= 0 && day < dailyHours.size()) {
+                dailyHours.set(day, dailyHours.get(day) + entry.getHoursWorked());
+            }
+        }
+        timesheet.setEntries(merged);
+        timesheet.setTotalHours(total);
+        timesheet.setDailyHours(dailyHours);
+        return timesheet;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (this) {
+            stats.put("pendingCells", pendingCells);
+            stats.put("pendingTimesheets", pending.size());
+        }
+        synchronized (flushLock) {
+            stats.put("flushedCells", flushedCells);
+            stats.put("droppedCells", droppedCells);
+        }
+        return stats;
+    }
+
+    // Takes everything pending and seals the log segment holding it; the sealed segments are only deleted once
+    // every edit in them is in the database or carried over into the new segment
+    public int flush() {
+        synchronized (flushLock) {
+            Map<Long, Map<CellKey, EntryCreateDTO>> batch;
+            synchronized (this) {
+                try {
+                    if (pending.isEmpty() && !log.hasSealedSegments()) {
+                        return 0;
+                    }
+                    batch = new HashMap<>(pending);
+                    flushing = batch;
+                    pending.clear();
+                    pendingCells = 0;
+                    log.rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not rotate the write-ahead log", e);
+                }
+            }
+
+            int written = 0;
+            Map<Long, Map<CellKey, EntryCreateDTO>> retry = new HashMap<>();
+            for (Map.Entry<Long, Map<CellKey, EntryCreateDTO>> timesheet : batch.entrySet()) {
+                List<EntryCreateDTO> cells = new ArrayList<>(timesheet.getValue().values());
+                try {
+                    timesheetService.applyCellEdits(timesheet.getKey(), cells);
+                    written += cells.size();
+                } catch (DataAccessException | TransactionException e) {
+                    System.err.println("Buffered edits for timesheet " + timesheet.getKey() + " will be retried: " + e.getMessage());
+                    retry.put(timesheet.getKey(), timesheet.getValue());
+                } catch (RuntimeException e) {
+                    // Can never succeed (timesheet submitted, day over 24 hours, project gone); retrying would block the rest
+                    System.err.println("Dropping " + cells.size() + " buffered edits for timesheet " + timesheet.getKey() + ": " + e.getMessage());
+                    droppedCells += cells.size();
+                }
+            }
+
+            synchronized (this) {
+                try {
+                    // Newer edits that arrived during the flush win over the ones being carried over
+                    for (Map.Entry<Long, Map<CellKey, EntryCreateDTO>> timesheet : retry.entrySet()) {
+                        for (EntryCreateDTO cell : timesheet.getValue().values()) {
+                            Map<CellKey, EntryCreateDTO> cells = pending.get(timesheet.getKey());
+                            if (cells == null || !cells.containsKey(new CellKey(cell.getProjectId(), cell.getWorkDate()))) {
+                                log.append(timesheet.getKey(), cell);
+                                put(timesheet.getKey(), cell);
+                            }
+                        }
+                    }
+                    flushing = new HashMap<>();
+                    log.sync();
+                    log.deleteSealedSegments();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not write to the write-ahead log", e);
+                }
+            }
+
+            flushedCells += written;
+            return written;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Write-behind flush failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void put(long timesheetId, EntryCreateDTO cell) {
+        EntryCreateDTO previous = pending.computeIfAbsent(timesheetId, id -> new HashMap<>())
+            .put(new CellKey(cell.getProjectId(), cell.getWorkDate()), cell);
+        if (previous == null) {
+            pendingCells++;
+        }
+    }
+
+    // The timesheet's edits still to be written, the batch being flushed overlaid by newer ones
+    private synchronized Map<CellKey, EntryCreateDTO> buffered(Long timesheetId) {
+        Map<CellKey, EntryCreateDTO> buffered = new HashMap<>(flushing.getOrDefault(timesheetId, Collections.emptyMap()));
+        buffered.putAll(pending.getOrDefault(timesheetId, Collections.emptyMap()));
+        return buffered;
+    }
+
+    private ReentrantLock lockFor(Long timesheetId) {
+        return timesheetLocks[Math.floorMod(timesheetId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static final class CellKey {
+        private final Long projectId;
+        private final LocalDate workDate;
+
+        CellKey(Long projectId, LocalDate workDate) {
+            this.projectId = projectId;
+            this.workDate = workDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey)) return false;
+            CellKey other = (CellKey) o;
+            return projectId.equals(other.projectId) && workDate.equals(other.workDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, workDate);
+        }
+    }
+}
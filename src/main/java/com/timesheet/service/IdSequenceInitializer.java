@@ -0,0 +1,49 @@
+package com.timesheet.service;
+
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.repository.TimesheetEntryRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+// Runs before the sample data is created. Databases that were filled while entry ids came from an IDENTITY column
+// get a freshly created sequence starting at 1, which would hand out ids that already exist.
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class IdSequenceInitializer implements CommandLineRunner {
+
+    private static final String ENTRY_SEQUENCE = "timesheet_entries_seq";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TimesheetEntryRepository timesheetEntryRepository;
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        Long maxId = timesheetEntryRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        long next = ((Number) entityManager.createNativeQuery(dialect.getSequenceNextValString(ENTRY_SEQUENCE)).getSingleResult()).longValue();
+
+        // The pooled optimizer treats each sequence value as the top of a block of ID_ALLOCATION_SIZE ids
+        if (next - TimesheetEntry.ID_ALLOCATION_SIZE < maxId) {
+            long restart = maxId + TimesheetEntry.ID_ALLOCATION_SIZE + 1;
+            entityManager.createNativeQuery("ALTER SEQUENCE " + ENTRY_SEQUENCE + " RESTART WITH " + restart).executeUpdate();
+            System.out.println("Moved " + ENTRY_SEQUENCE + " past existing entry ids to " + restart);
+        }
+    }
+}
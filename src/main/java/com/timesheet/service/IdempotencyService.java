@@ -0,0 +1,236 @@
+package com.timesheet.service;
+
+import com.timesheet.entity.IdempotencyRecord;
+import com.timesheet.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dedupe store behind the Idempotency-Key header. The idempotency_keys table is the source of truth shared by all nodes;
+// completed responses are also kept in a local LRU so a retry storm against one node does not reach the database.
+@Service
+public class IdempotencyService {
+
+    public enum Outcome { PROCEED, REPLAY, IN_PROGRESS, KEY_REUSED }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.idempotency.claim-timeout-seconds:120}")
+    private long claimTimeoutSeconds;
+
+    @Value("${app.idempotency.max-response-chars:65536}")
+    private int maxResponseChars;
+
+    // Keys claimed by requests still running on this node; their claims are refreshed until the request finishes
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    // Access-ordered so the eldest entry is always the least recently used one; only completed responses are cached
+    private final LinkedHashMap<String, StoredResponse> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long hits;
+    private long misses;
+    private long replays;
+    private long evictions;
+
+    public static final class StoredResponse {
+        private final String requestHash;
+        private final int statusCode;
+        private final String contentType;
+        private final String body;
+        private final long expiresAt;
+
+        StoredResponse(String requestHash, int statusCode, String contentType, String body, long expiresAt) {
+            this.requestHash = requestHash;
+            this.statusCode = statusCode;
+            this.contentType = contentType;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getStatusCode() { return statusCode; }
+        public String getContentType() { return contentType; }
+        public String getBody() { return body; }
+    }
+
+    public static final class Claim {
+        private final Outcome outcome;
+        private final StoredResponse response;
+
+        Claim(Outcome outcome, StoredResponse response) {
+            this.outcome = outcome;
+            this.response = response;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+        public StoredResponse getResponse() { return response; }
+    }
+
+    // Either claims the key for this request or reports why the request must not run: a stored response to replay,
+    // another attempt still running, or the key already used for a different request
+    public Claim claim(String key, String requestHash) {
+        StoredResponse cached = getCached(key);
+        if (cached != null) {
+            return completedClaim(cached, requestHash);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            idempotencyRecordRepository.claim(key, requestHash, now);
+            inFlight.add(key);
+            return new Claim(Outcome.PROCEED, null);
+        } catch (DataIntegrityViolationException e) {
+            // Someone holds the key already; what they hold decides the answer
+        }
+
+        Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(key);
+        if (!existing.isPresent()) {
+            // Released between our insert and this read: the other attempt failed, so the caller may simply retry
+            return new Claim(Outcome.IN_PROGRESS, null);
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (!record.getCompleted()) {
+            return new Claim(record.getRequestHash().equals(requestHash) ? Outcome.IN_PROGRESS : Outcome.KEY_REUSED, null);
+        }
+
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(), record.getContentType(),
+            record.getResponseBody(), expiresAt(record.getCreatedAt()));
+        putCached(key, stored);
+        return completedClaim(stored, requestHash);
+    }
+
+    // Records the outcome of a claimed request. Only outcomes a retry would get again are stored: successes, and 422,
+    // which says the request itself can never be processed. Anything else releases the key, since a failed request
+    // left nothing a retry could duplicate, and a server error, a 409 conflict or a 400 that depends on the current
+    // state may well succeed the next time.
+    // Responses too large to store are kept without a body and replayed as status only.
+    public void complete(String key, String requestHash, int statusCode, String contentType, String body) {
+        if (!isReplayable(statusCode)) {
+            release(key);
+            return;
+        }
+
+        String storedBody = body != null && body.length() <= maxResponseChars ? body : null;
+        idempotencyRecordRepository.complete(key, statusCode, contentType, storedBody);
+        inFlight.remove(key);
+        putCached(key, new StoredResponse(requestHash, statusCode, contentType, storedBody,
+            System.currentTimeMillis() + ttlHours * 3600 * 1000));
+    }
+
+    public void release(String key) {
+        idempotencyRecordRepository.release(key);
+        inFlight.remove(key);
+        synchronized (this) {
+            cache.remove(key);
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("replays", replays);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    // A request can legitimately outlive the claim timeout (exports, large imports, lock waits), so claims are only
+    // dropped once their node has stopped refreshing them; the interval must stay well below the timeout
+    @Scheduled(fixedDelayString = "${app.idempotency.heartbeat-interval-ms:30000}")
+    public void refreshInFlightClaims() {
+        if (inFlight.isEmpty()) {
+            return;
+        }
+        idempotencyRecordRepository.heartbeat(new ArrayList<>(inFlight), LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:60000}")
+    public void removeExpiredKeys() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = idempotencyRecordRepository.deleteOlderThan(now.minusHours(ttlHours));
+        int abandoned = idempotencyRecordRepository.deleteAbandonedClaims(now.minusSeconds(claimTimeoutSeconds));
+        if (expired + abandoned > 0) {
+            System.out.println("Removed " + expired + " expired and " + abandoned + " abandoned idempotency keys");
+        }
+
+        long currentTime = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<StoredResponse> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().expiresAt < currentTime) {
+                    iterator.remove();
+                    evictions++;
+                }
+            }
+        }
+    }
+
+    private synchronized Claim completedClaim(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            return new Claim(Outcome.KEY_REUSED, null);
+        }
+        replays++;
+        return new Claim(Outcome.REPLAY, stored);
+    }
+
+    private synchronized StoredResponse getCached(String key) {
+        StoredResponse cached = cache.get(key);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (cached.expiresAt < System.currentTimeMillis()) {
+            cache.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached;
+    }
+
+    private synchronized void putCached(String key, StoredResponse response) {
+        if (maxEntries <= 0) {
+            return;
+        }
+
+        cache.put(key, response);
+
+        Iterator<String> eldest = cache.keySet().iterator();
+        while (cache.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static boolean isReplayable(int statusCode) {
+        return statusCode >= 200 && statusCode < 300 || statusCode == 422;
+    }
+
+    private long expiresAt(LocalDateTime createdAt) {
+        return createdAt.plusHours(ttlHours).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,267 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.ImportJobDTO;
+import com.timesheet.dto.ImportResultDTO;
+import com.timesheet.enums.ImportJobStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Runs entry imports in the background: the upload is spooled to disk and fingerprinted on the way, the request returns
+// the queued job straight away and the job resource reports progress and, once done, the import result. Uploading a
+// file that an unexpired job on this node already covers returns that job instead of importing the rows twice; this
+// stands in for the Idempotency-Key header, which is not accepted on multipart requests.
+@Service
+public class ImportJobService {
+
+    @Autowired
+    private EntryImportService entryImportService;
+
+    // One at a time by default: imports write the same timesheets and rollup days
+    @Value("${app.import.concurrency:1}")
+    private int concurrency;
+
+    @Value("${app.import.queue-depth:10}")
+    private int queueDepth;
+
+    @Value("${app.import.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${app.import.directory:${java.io.tmpdir}/timesheet-imports}")
+    private String directory;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    // Format and SHA-256 of the upload -> id of the job importing it; failed jobs are dropped so the file can be retried
+    private final Map<String, String> jobsByUpload = new HashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private Path uploadDirectory;
+
+    public static final class Submission {
+        private final ImportJobDTO job;
+        private final boolean duplicate;
+
+        Submission(ImportJobDTO job, boolean duplicate) {
+            this.job = job;
+            this.duplicate = duplicate;
+        }
+
+        public ImportJobDTO getJob() { return job; }
+        public boolean isDuplicate() { return duplicate; }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        uploadDirectory = Files.createDirectories(Paths.get(directory));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded queue and no caller-runs policy: a full queue rejects the import instead of using the request thread
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueDepth)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "import-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Submission submitImport(MultipartFile file, String format) throws IOException {
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "";
+        String importFormat = format != null ? format.toUpperCase() : fileName.toLowerCase().endsWith(".xlsx") ? "XLSX" : "CSV";
+        if (!importFormat.equals("CSV") && !importFormat.equals("XLSX")) {
+            throw new IllegalArgumentException("Unknown import format: " + format);
+        }
+
+        // The XLSX event reader needs random access to the zip, and the request's own copy is gone once it returns
+        String id = UUID.randomUUID().toString();
+        Path upload = uploadDirectory.resolve(id + "." + importFormat.toLowerCase());
+        String uploadHash;
+        try (DigestInputStream inputStream = new DigestInputStream(file.getInputStream(), sha256())) {
+            Files.copy(inputStream, upload);
+            uploadHash = toHex(inputStream.getMessageDigest().digest());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        ImportJob job;
+        String uploadKey = importFormat + ":" + uploadHash;
+        synchronized (jobsByUpload) {
+            ImportJob existing = jobsByUpload.containsKey(uploadKey) ? jobs.get(jobsByUpload.get(uploadKey)) : null;
+            if (existing != null) {
+                Files.deleteIfExists(upload);
+                System.out.println("Upload " + fileName + " matches import job " + existing.id + "; not imported again");
+                return new Submission(toDTO(existing), true);
+            }
+            job = new ImportJob(id, fileName, importFormat, uploadHash, upload);
+            jobs.put(job.id, job);
+            jobsByUpload.put(uploadKey, job.id);
+        }
+
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RuntimeException e) {
+            forget(job);
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        System.out.println("Queued import job " + job.id + " (" + importFormat + " " + fileName + ")");
+        return new Submission(toDTO(job), false);
+    }
+
+    public ImportJobDTO getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found with id: " + jobId);
+        }
+        return toDTO(job);
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ImportJob job : jobs.values()) {
+            if (job.expiresAt != null && job.expiresAt.isBefore(now)) {
+                forget(job);
+            }
+        }
+    }
+
+    private void runJob(ImportJob job) {
+        job.status = ImportJobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+
+        try {
+            ImportResultDTO result;
+            if (job.format.equals("CSV")) {
+                try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(job.upload))) {
+                    result = entryImportService.importCsv(inputStream, job.rowsRead);
+                }
+            } else {
+                result = entryImportService.importXlsx(job.upload.toFile(), job.rowsRead);
+            }
+
+            job.result = result;
+            markFinished(job);
+            job.status = ImportJobStatus.COMPLETED;
+            System.out.println("Import job " + job.id + " completed: " + result.getRowsImported() + " of " + result.getRowsRead() + " rows imported");
+        } catch (Exception e) {
+            // Chunks already written stay written; the file is not kept as a duplicate so it can be sent again
+            System.err.println("Import job " + job.id + " failed: " + e.getMessage());
+            job.errorMessage = e.getMessage();
+            markFinished(job);
+            job.status = ImportJobStatus.FAILED;
+            synchronized (jobsByUpload) {
+                jobsByUpload.remove(job.format + ":" + job.uploadHash, job.id);
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(job.upload);
+            } catch (IOException e) {
+                System.err.println("Could not delete import upload " + job.upload + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void markFinished(ImportJob job) {
+        job.finishedAt = LocalDateTime.now();
+        job.expiresAt = job.finishedAt.plusMinutes(ttlMinutes);
+    }
+
+    private void forget(ImportJob job) {
+        jobs.remove(job.id);
+        synchronized (jobsByUpload) {
+            jobsByUpload.remove(job.format + ":" + job.uploadHash, job.id);
+        }
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setId(job.id);
+        dto.setFileName(job.fileName);
+        dto.setFormat(job.format);
+        dto.setUploadHash(job.uploadHash);
+        dto.setStatus(job.status);
+        dto.setRowsRead(job.rowsRead.get());
+        dto.setResult(job.result);
+        dto.setErrorMessage(job.errorMessage);
+        dto.setCreatedAt(job.createdAt);
+        dto.setStartedAt(job.startedAt);
+        dto.setFinishedAt(job.finishedAt);
+        dto.setExpiresAt(job.expiresAt);
+        return dto;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final String format;
+        private final String uploadHash;
+        private final Path upload;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong rowsRead = new AtomicLong();
+
+        private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile LocalDateTime expiresAt;
+        private volatile String errorMessage;
+        private volatile ImportResultDTO result;
+
+        ImportJob(String id, String fileName, String format, String uploadHash, Path upload) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+            this.uploadHash = uploadHash;
+            this.upload = upload;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.ReportDTO;
+import com.timesheet.repository.DailyHoursRollupRepository;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.TimesheetEntryRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs the organization report as month x employee-range partitions on a dedicated pool. On PostgreSQL every partition
+// reads the same snapshot: the coordinating transaction exports it with pg_export_snapshot() and keeps it open while
+// the partitions import it with SET TRANSACTION SNAPSHOT, so the result matches a serial report at one instant. Other
+// databases cannot share a snapshot between connections; there each partition is its own REPEATABLE READ transaction
+// and a report that races with writes may mix partitions read before and after them.
+//
+// A coordinator holds its connection while its partitions wait for theirs, so coordinators and partition threads
+// together must never claim the whole connection pool or they wait on each other for good. Reports past the
+// coordinator limit, and partitions the full queue turns away, run serially in the coordinating transaction instead.
+@Service
+public class PartitionedReportService {
+
+    // Same order as the ORDER BY of the line item queries
+    private static final Comparator<ReportDTO.ReportItem> ENTRY_ORDER =
+        Comparator.comparing(ReportDTO.ReportItem::getWorkDate).thenComparing(ReportDTO.ReportItem::getId);
+
+    @Autowired
+    private DailyHoursRollupRepository rollupRepository;
+
+    @Autowired
+    private TimesheetEntryRepository timesheetEntryRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Every partition holds a connection while it runs, plus one per coordinating transaction, so keep this well below
+    // the connection pool size; 1 runs serially
+    @Value("${app.report-partitions.pool-size:4}")
+    private int poolSize;
+
+    @Value("${app.report-partitions.employee-ranges:4}")
+    private int employeeRanges;
+
+    @Value("${app.report-partitions.queue-depth:64}")
+    private int queueDepth;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    private ExecutorService executor;
+
+    // Reports allowed to coordinate partitions at once: with the partition threads this leaves at least one connection
+    // for everything else
+    private Semaphore coordinators;
+
+    private volatile Boolean snapshotExport;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueDepth)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "report-partition-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        coordinators = new Semaphore(Math.max(0, connectionPoolSize - poolSize - 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ReportDTO getOrganizationReport(LocalDate startDate, LocalDate endDate, boolean includeEntries) {
+        // Taken before the coordinating transaction claims its connection
+        boolean parallel = poolSize > 1 && coordinators.tryAcquire();
+        if (!parallel && poolSize > 1) {
+            System.out.println("Partition coordinators all busy; running organization report serially");
+        }
+        try {
+            return runReport(startDate, endDate, includeEntries, parallel);
+        } finally {
+            if (parallel) {
+                coordinators.release();
+            }
+        }
+    }
+
+    private ReportDTO runReport(LocalDate startDate, LocalDate endDate, boolean includeEntries, boolean parallel) {
+        // The coordinating transaction plans the partitions and, on PostgreSQL, holds the exported snapshot open
+        // until every partition has read from it
+        return snapshotTransaction().execute(status -> {
+            String snapshot = parallel && supportsSnapshotExport()
+                ? (String) entityManager.createNativeQuery("SELECT pg_export_snapshot()").getSingleResult()
+                : null;
+
+            List<Partition> partitions = planPartitions(startDate, endDate, parallel);
+            System.out.println("Running organization report from " + startDate + " to " + endDate + " in " + partitions.size() + " partitions"
+                + (snapshot != null ? " on snapshot " + snapshot : ""));
+
+            List<PartialReport> partials = new ArrayList<>();
+            if (partitions.size() == 1) {
+                partials.add(runPartition(partitions.get(0), includeEntries));
+            } else {
+                List<CompletableFuture<PartialReport>> futures = new ArrayList<>();
+                for (Partition partition : partitions) {
+                    try {
+                        futures.add(CompletableFuture.supplyAsync(() -> snapshotTransaction().execute(partitionStatus -> {
+                            if (snapshot != null) {
+                                // Has to be the first statement of the partition's transaction
+                                entityManager.createNativeQuery("SET TRANSACTION SNAPSHOT '" + snapshot + "'").executeUpdate();
+                            }
+                            return runPartition(partition, includeEntries);
+                        }), executor));
+                    } catch (RejectedExecutionException e) {
+                        // Queue full: the coordinating transaction reads the same snapshot, so it runs the partition
+                        // itself rather than taking another connection
+                        futures.add(CompletableFuture.completedFuture(runPartition(partition, includeEntries)));
+                    }
+                }
+                try {
+                    for (CompletableFuture<PartialReport> future : futures) {
+                        partials.add(future.join());
+                    }
+                } catch (CompletionException e) {
+                    futures.forEach(future -> future.cancel(true));
+                    throw new RuntimeException("Failed to generate organization report: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+
+            return merge(partials, startDate, endDate, includeEntries);
+        });
+    }
+
+    // Read-only REPEATABLE READ in a transaction of its own, so the snapshot is taken here and not inherited from a caller
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private boolean supportsSnapshotExport() {
+        if (snapshotExport == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            snapshotExport = dialect instanceof PostgreSQL81Dialect;
+        }
+        return snapshotExport;
+    }
+
+    // Calendar months, each split into contiguous employee id ranges. Partitions are ordered month first
+    // so the merge can keep the serial entry order.
+    private List<Partition> planPartitions(LocalDate startDate, LocalDate endDate, boolean parallel) {
+        List<Object[]> bounds = employeeRepository.findIdBounds();
+        Object[] bound = bounds.isEmpty() ? null : bounds.get(0);
+        long minId = bound != null && bound[0] != null ? ((Number) bound[0]).longValue() : 0L;
+        long maxId = bound != null && bound[1] != null ? ((Number) bound[1]).longValue() : 0L;
+
+        int ranges = Math.max(1, employeeRanges);
+        long rangeSize = Math.max(1, (maxId - minId + ranges) / ranges);
+
+        List<Partition> partitions = new ArrayList<>();
+        if (!parallel) {
+            // Serial path: one partition over the whole request
+            partitions.add(new Partition(startDate, endDate, minId, maxId));
+            return partitions;
+        }
+
+        LocalDate monthStart = startDate;
+        while (!monthStart.isAfter(endDate)) {
+            LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+            if (monthEnd.isAfter(endDate)) {
+                monthEnd = endDate;
+            }
+
+            for (long rangeStart = minId; rangeStart <= maxId; rangeStart += rangeSize) {
+                long rangeEnd = Math.min(maxId, rangeStart + rangeSize - 1);
+                partitions.add(new Partition(monthStart, monthEnd, rangeStart, rangeEnd));
+            }
+
+            monthStart = monthEnd.plusDays(1);
+        }
+        return partitions;
+    }
+
+    private PartialReport runPartition(Partition partition, boolean includeEntries) {
+        PartialReport partial = new PartialReport(partition);
+
+        List<Object[]> rows = rollupRepository.sumHoursByProjectAndEmployeeForEmployeeRange(
+            partition.minEmployeeId, partition.maxEmployeeId, partition.startDate, partition.endDate);
+        for (Object[] row : rows) {
+            double hours = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+            partial.projectHours.merge((String) row[0], hours, Double::sum);
+            partial.employeeHours.merge(row[1] + " " + row[2], hours, Double::sum);
+            partial.totalHours += hours;
+            partial.totalEntries += row[4] != null ? ((Number) row[4]).longValue() : 0L;
+        }
+
+        if (includeEntries) {
+            partial.entries = timesheetEntryRepository.findReportItemsByEmployeeIdRangeAndDateRange(
+                partition.minEmployeeId, partition.maxEmployeeId, partition.startDate, partition.endDate);
+        }
+
+        return partial;
+    }
+
+    private ReportDTO merge(List<PartialReport> partials, LocalDate startDate, LocalDate endDate, boolean includeEntries) {
+        Map<String, Double> projectHours = new HashMap<>();
+        Map<String, Double> employeeHours = new HashMap<>();
+        List<ReportDTO.ReportItem> entries = new ArrayList<>();
+        double totalHours = 0.0;
+        long totalEntries = 0;
+
+        int monthFrom = 0;
+        for (int i = 0; i < partials.size(); i++) {
+            PartialReport partial = partials.get(i);
+            partial.projectHours.forEach((key, hours) -> projectHours.merge(key, hours, Double::sum));
+            partial.employeeHours.forEach((key, hours) -> employeeHours.merge(key, hours, Double::sum));
+            totalHours += partial.totalHours;
+            totalEntries += partial.totalEntries;
+
+            if (includeEntries) {
+                entries.addAll(partial.entries);
+
+                // At each month boundary, interleave that month's already-sorted id ranges back into date order
+                boolean lastOfMonth = i == partials.size() - 1
+                    || !partials.get(i + 1).partition.startDate.equals(partial.partition.startDate);
+                if (lastOfMonth) {
+                    entries.subList(monthFrom, entries.size()).sort(ENTRY_ORDER);
+                    monthFrom = entries.size();
+                }
+            }
+        }
+
+        ReportDTO report = new ReportDTO();
+        report.setStartDate(startDate);
+        report.setEndDate(endDate);
+        report.setTotalHours(totalHours);
+        report.setTotalEntries(totalEntries);
+        report.setProjectHours(projectHours);
+        report.setEmployeeHours(employeeHours);
+        report.setEntries(entries);
+        return report;
+    }
+
+    private static final class Partition {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final long minEmployeeId;
+        private final long maxEmployeeId;
+
+        Partition(LocalDate startDate, LocalDate endDate, long minEmployeeId, long maxEmployeeId) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.minEmployeeId = minEmployeeId;
+            this.maxEmployeeId = maxEmployeeId;
+        }
+    }
+
+    private static final class PartialReport {
+        private final Partition partition;
+        private final Map<String, Double> projectHours = new HashMap<>();
+        private final Map<String, Double> employeeHours = new HashMap<>();
+        private List<ReportDTO.ReportItem> entries = new ArrayList<>();
+        private double totalHours;
+        private long totalEntries;
+
+        PartialReport(Partition partition) {
+            this.partition = partition;
+        }
+    }
+}
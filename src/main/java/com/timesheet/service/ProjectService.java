@@ -1,27 +1,45 @@
 package com.timesheet.service;
 
+import com.timesheet.dto.CursorPageDTO;
 import com.timesheet.dto.ProjectDTO;
 import com.timesheet.entity.Employee;
 import com.timesheet.entity.Project;
 import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.KeysetQuery;
 import com.timesheet.repository.ProjectRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @Transactional
 public class ProjectService {
 
+    // Sorts for the paged list; each ends with a unique column so the keyset order is total
+    private static final Map<String, List<KeysetQuery.Key<ProjectDTO>>> PAGE_SORTS = Map.of(
+        "id", List.of(KeysetQuery.key("p.id", Long.class, ProjectDTO::getId)),
+        "code", List.of(KeysetQuery.key("p.projectCode", String.class, ProjectDTO::getProjectCode)),
+        "name", List.of(KeysetQuery.key("p.projectName", String.class, ProjectDTO::getProjectName),
+                        KeysetQuery.key("p.id", Long.class, ProjectDTO::getId)));
+
     @Autowired
     private ProjectRepository projectRepository;
 
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.pagination.page-size:50}")
+    private int defaultPageSize;
+
     public ProjectDTO createProject(ProjectDTO dto) {
         if (projectRepository.existsByProjectCode(dto.getProjectCode())) {
             throw new RuntimeException("Project with code " + dto.getProjectCode() + " already exists");
@@ -51,19 +69,14 @@ public class ProjectService {
         return mapToDTO(project);
     }
 
-    public List<ProjectDTO> getAllProjects() {
-        List<Project> projects = projectRepository.findAll();
-        return projects.stream().map(this::mapToDTO).collect(Collectors.toList());
-    }
-
-    public List<ProjectDTO> getActiveProjects() {
-        List<Project> projects = projectRepository.findAllActiveProjects();
-        return projects.stream().map(this::mapToDTO).collect(Collectors.toList());
-    }
-
-    public List<ProjectDTO> getProjectsByManager(Long managerId) {
-        List<Project> projects = projectRepository.findByProjectManagerId(managerId);
-        return projects.stream().map(this::mapToDTO).collect(Collectors.toList());
+    // Lists are projected straight into DTOs, so no entities are loaded and nothing is dirty-checked
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProjectDTO> getProjectPage(Boolean active, Long managerId, String sort, String direction,
+                                                    String cursor, Integer pageSize, boolean includeTotal) {
+        return new KeysetQuery<>(entityManager, ProjectDTO.class, ProjectRepository.SUMMARY_COLUMNS, ProjectRepository.SUMMARY_FROM)
+            .where("p.isActive = :active", "active", active)
+            .where("m.id = :managerId", "managerId", managerId)
+            .page(PAGE_SORTS, sort, direction, cursor, KeysetQuery.resolvePageSize(pageSize, defaultPageSize), includeTotal);
     }
 
     public ProjectDTO updateProject(Long id, ProjectDTO dto) {
@@ -0,0 +1,227 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.ReportDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+public class ReportCacheService {
+
+    public enum Scope { EMPLOYEE, PROJECT, MANAGER, ORGANIZATION }
+
+    @Value("${app.report-cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${app.report-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Access-ordered so the eldest entry is always the least recently used one
+    private final LinkedHashMap<CacheKey, CachedReport> cache = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Bumped by every invalidation; see generation()
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public synchronized ReportDTO get(Scope scope, Long id, LocalDate startDate, LocalDate endDate, int entryLimit) {
+        CacheKey key = new CacheKey(scope, id, startDate, endDate, entryLimit);
+        CachedReport cached = cache.get(key);
+
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (cached.isExpired(System.currentTimeMillis())) {
+            cache.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return copyOf(cached.report);
+    }
+
+    // Taken before a report is computed and handed back to put. A write can commit, and invalidate, while the report is
+    // still being computed from what was there before; a changed generation means the result may already be stale.
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(Scope scope, Long id, LocalDate startDate, LocalDate endDate, int entryLimit, long computedAt, ReportDTO report) {
+        if (maxEntries <= 0 || computedAt != generation) {
+            return;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        cache.put(new CacheKey(scope, id, startDate, endDate, entryLimit), new CachedReport(copyOf(report), expiresAt));
+
+        Iterator<CacheKey> eldest = cache.keySet().iterator();
+        while (cache.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Drops every cached report a write to the given timesheet could change: the employee's own reports,
+    // reports for the touched project (or any project when it is not known) and all manager and organization roll-ups,
+    // restricted to ranges that overlap the timesheet's week.
+    public void invalidateForTimesheet(Long employeeId, Long projectId, LocalDate weekStartDate, LocalDate weekEndDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Invalidate once the write is visible, otherwise a concurrent read could re-cache the old numbers
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(employeeId, projectId, weekStartDate, weekEndDate);
+                }
+            });
+        } else {
+            invalidate(employeeId, projectId, weekStartDate, weekEndDate);
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations += cache.size();
+        cache.clear();
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("invalidations", invalidations);
+        long lookups = hits + misses;
+        stats.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+        return stats;
+    }
+
+    private synchronized void invalidate(Long employeeId, Long projectId, LocalDate weekStartDate, LocalDate weekEndDate) {
+        generation++;
+        Iterator<CacheKey> keys = cache.keySet().iterator();
+        while (keys.hasNext()) {
+            CacheKey key = keys.next();
+            if (!key.overlaps(weekStartDate, weekEndDate)) {
+                continue;
+            }
+
+            boolean affected;
+            switch (key.scope) {
+                case EMPLOYEE:
+                    affected = key.id.equals(employeeId);
+                    break;
+                case PROJECT:
+                    affected = projectId == null || key.id.equals(projectId);
+                    break;
+                default:
+                    // Any manager above the employee may be affected; resolving the chain costs more than a re-run
+                    affected = true;
+                    break;
+            }
+
+            if (affected) {
+                keys.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    // Reports go in and come out as copies: callers trim and page the lists of the report they hold, and that must not
+    // reach the cached one or the next hit
+    private static ReportDTO copyOf(ReportDTO report) {
+        ReportDTO copy = new ReportDTO();
+        copy.setEmployeeId(report.getEmployeeId());
+        copy.setProjectId(report.getProjectId());
+        copy.setManagerId(report.getManagerId());
+        copy.setStartDate(report.getStartDate());
+        copy.setEndDate(report.getEndDate());
+        copy.setTotalHours(report.getTotalHours());
+        copy.setProjectHours(copyOf(report.getProjectHours()));
+        copy.setEmployeeHours(copyOf(report.getEmployeeHours()));
+        copy.setWeeklyHours(copyOf(report.getWeeklyHours()));
+        if (report.getEntries() != null) {
+            List<ReportDTO.ReportItem> entries = new ArrayList<>(report.getEntries().size());
+            for (ReportDTO.ReportItem item : report.getEntries()) {
+                entries.add(new ReportDTO.ReportItem(item.getId(), item.getWorkDate(), item.getEmployeeName(), item.getProjectName(),
+                    item.getProjectCode(), item.getHoursWorked(), item.getTaskDescription()));
+            }
+            copy.setEntries(entries);
+        }
+        copy.setTotalEntries(report.getTotalEntries());
+        copy.setNextCursor(report.getNextCursor());
+        return copy;
+    }
+
+    private static Map<String, Double> copyOf(Map<String, Double> hours) {
+        return hours != null ? new LinkedHashMap<>(hours) : null;
+    }
+
+    private static final class CacheKey {
+        private final Scope scope;
+        private final Long id;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final int entryLimit;
+
+        CacheKey(Scope scope, Long id, LocalDate startDate, LocalDate endDate, int entryLimit) {
+            this.scope = scope;
+            this.id = id;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.entryLimit = entryLimit;
+        }
+
+        boolean overlaps(LocalDate from, LocalDate to) {
+            return !startDate.isAfter(to) && !endDate.isBefore(from);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return scope == other.scope && entryLimit == other.entryLimit
+                && Objects.equals(id, other.id)
+                && Objects.equals(startDate, other.startDate)
+                && Objects.equals(endDate, other.endDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(scope, id, startDate, endDate, entryLimit);
+        }
+    }
+
+    private static final class CachedReport {
+        private final ReportDTO report;
+        private final long expiresAt;
+
+        CachedReport(ReportDTO report, long expiresAt) {
+            this.report = report;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.timesheet.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timesheet.dto.ReportDTO;
+import com.timesheet.enums.ExportFormat;
+import com.timesheet.repository.TimesheetEntryRepository;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Service
+public class ReportExportService {
+
+    // Rows kept in memory by the SXSSF writer; everything older is flushed to a temp file
+    private static final int ROW_WINDOW = 200;
+
+    private static final String[] HEADERS = {"Date", "Employee", "Project", "Hours", "Description"};
+
+    // Fixed column widths in characters - autoSizeColumn would rescan every row
+    private static final int[] COLUMN_WIDTHS = {12, 25, 30, 8, 60};
+
+    private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TimesheetEntryRepository timesheetEntryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void writeEmployeeReport(Long employeeId, LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        try (Stream<ReportDTO.ReportItem> items = timesheetEntryRepository.streamReportItemsByEmployeeIdAndDateRange(employeeId, startDate, endDate)) {
+            writeRows(format, items.iterator(), outputStream, rowCounter);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeProjectReport(Long projectId, LocalDate startDate, LocalDate endDate, ExportFormat format, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        try (Stream<ReportDTO.ReportItem> items = timesheetEntryRepository.streamReportItemsByProjectIdAndDateRange(projectId, startDate, endDate)) {
+            writeRows(format, items.iterator(), outputStream, rowCounter);
+        }
+    }
+
+    public void writeRows(ExportFormat format, Iterator<ReportDTO.ReportItem> items, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        switch (format) {
+            case CSV:
+                writeCsv(items, outputStream, rowCounter);
+                break;
+            case NDJSON:
+                writeNdjson(items, outputStream, rowCounter);
+                break;
+            default:
+                writeExcel(items, outputStream, rowCounter);
+                break;
+        }
+    }
+
+    public void writeExcel(Iterator<ReportDTO.ReportItem> items, OutputStream outputStream) throws IOException {
+        writeExcel(items, outputStream, null);
+    }
+
+    // rowCounter is optional and is bumped per data row so callers can report progress
+    public void writeExcel(Iterator<ReportDTO.ReportItem> items, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+
+            int sheetCount = 1;
+            Sheet sheet = createSheet(workbook, "Timesheet Report", headerStyle);
+            int rowNum = 1;
+
+            while (items.hasNext()) {
+                // Roll over onto a new sheet once Excel's row limit is reached
+                if (rowNum >= MAX_ROWS_PER_SHEET) {
+                    sheetCount++;
+                    sheet = createSheet(workbook, "Timesheet Report (" + sheetCount + ")", headerStyle);
+                    rowNum = 1;
+                }
+
+                ReportDTO.ReportItem entry = items.next();
+                Row row = sheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(entry.getWorkDate() != null ? entry.getWorkDate().toString() : "");
+                row.createCell(1).setCellValue(entry.getEmployeeName());
+                row.createCell(2).setCellValue(entry.getProjectName());
+                row.createCell(3).setCellValue(entry.getHoursWorked() != null ? entry.getHoursWorked() : 0.0);
+                row.createCell(4).setCellValue(entry.getTaskDescription() != null ? entry.getTaskDescription() : "");
+
+                if (rowCounter != null) {
+                    rowCounter.incrementAndGet();
+                }
+            }
+
+            workbook.write(outputStream);
+            outputStream.flush();
+        } finally {
+            // Remove the temp files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    // Plain RFC 4180 CSV, one row per entry - no formatting, nothing buffered beyond the writer
+    public void writeCsv(Iterator<ReportDTO.ReportItem> items, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        writer.write("date,employee,project_code,project,hours,description\r\n");
+
+        while (items.hasNext()) {
+            ReportDTO.ReportItem entry = items.next();
+            writer.write(entry.getWorkDate() != null ? entry.getWorkDate().toString() : "");
+            writer.write(',');
+            writeCsvField(writer, entry.getEmployeeName());
+            writer.write(',');
+            writeCsvField(writer, entry.getProjectCode());
+            writer.write(',');
+            writeCsvField(writer, entry.getProjectName());
+            writer.write(',');
+            writer.write(entry.getHoursWorked() != null ? entry.getHoursWorked().toString() : "0.0");
+            writer.write(',');
+            writeCsvField(writer, entry.getTaskDescription());
+            writer.write("\r\n");
+
+            if (rowCounter != null) {
+                rowCounter.incrementAndGet();
+            }
+        }
+
+        writer.flush();
+    }
+
+    // One JSON object per line, written field by field through a single generator
+    public void writeNdjson(Iterator<ReportDTO.ReportItem> items, OutputStream outputStream, AtomicLong rowCounter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.setRootValueSeparator(null);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        while (items.hasNext()) {
+            ReportDTO.ReportItem entry = items.next();
+            generator.writeStartObject();
+            generator.writeStringField("workDate", entry.getWorkDate() != null ? entry.getWorkDate().toString() : null);
+            generator.writeStringField("employeeName", entry.getEmployeeName());
+            generator.writeStringField("projectCode", entry.getProjectCode());
+            generator.writeStringField("projectName", entry.getProjectName());
+            if (entry.getHoursWorked() != null) {
+                generator.writeNumberField("hoursWorked", entry.getHoursWorked());
+            } else {
+                generator.writeNullField("hoursWorked");
+            }
+            generator.writeStringField("taskDescription", entry.getTaskDescription());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+
+            if (rowCounter != null) {
+                rowCounter.incrementAndGet();
+            }
+        }
+
+        generator.flush();
+        writer.flush();
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private Sheet createSheet(Workbook workbook, String name, CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet(name);
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(HEADERS[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+        }
+
+        return sheet;
+    }
+}
@@ -0,0 +1,267 @@
+package com.timesheet.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timesheet.dto.ReportDTO;
+import com.timesheet.dto.ReportJobDTO;
+import com.timesheet.dto.ReportJobRequestDTO;
+import com.timesheet.enums.ExportFormat;
+import com.timesheet.enums.ReportJobStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ReportJobService {
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.report-jobs.concurrency:2}")
+    private int concurrency;
+
+    @Value("${app.report-jobs.queue-depth:20}")
+    private int queueDepth;
+
+    @Value("${app.report-jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${app.report-jobs.directory:${java.io.tmpdir}/timesheet-report-jobs}")
+    private String directory;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private Path artifactDirectory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        artifactDirectory = Files.createDirectories(Paths.get(directory));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded queue and no caller-runs policy: a full queue rejects the job instead of using the request thread
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueDepth)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public ReportJobDTO submitJob(ReportJobRequestDTO request) {
+        String reportType = request.getReportType().toUpperCase();
+        String format = request.getFormat() != null ? request.getFormat().toUpperCase() : "JSON";
+
+        if (!reportType.equals("EMPLOYEE") && !reportType.equals("PROJECT") && !reportType.equals("MANAGER") && !reportType.equals("ORGANIZATION")) {
+            throw new IllegalArgumentException("Unknown report type: " + request.getReportType());
+        }
+        if (!format.equals("JSON") && !format.equals("XLSX") && !format.equals("CSV") && !format.equals("NDJSON")) {
+            throw new IllegalArgumentException("Unknown report format: " + request.getFormat());
+        }
+        if (!format.equals("JSON") && (reportType.equals("MANAGER") || reportType.equals("ORGANIZATION"))) {
+            throw new IllegalArgumentException("Manager and organization reports can only be generated as JSON");
+        }
+        if (request.getTargetId() == null && !reportType.equals("ORGANIZATION")) {
+            throw new IllegalArgumentException("Target id is required");
+        }
+        if (request.getEndDate().isBefore(request.getStartDate())) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), reportType, format, request);
+        jobs.put(job.id, job);
+
+        try {
+            executor.execute(() -> runJob(job));
+        } catch (RuntimeException e) {
+            jobs.remove(job.id);
+            throw e;
+        }
+
+        System.out.println("Queued report job " + job.id + " (" + reportType + " " + format + ")");
+        return toDTO(job);
+    }
+
+    public ReportJobDTO getJob(String jobId) {
+        return toDTO(findJob(jobId));
+    }
+
+    public File getArtifact(String jobId) {
+        ReportJob job = findJob(jobId);
+        if (job.status != ReportJobStatus.COMPLETED) {
+            throw new RuntimeException("Report job " + jobId + " is not completed");
+        }
+        return job.artifact.toFile();
+    }
+
+    public String getContentType(String jobId) {
+        String format = findJob(jobId).format;
+        return format.equals("JSON") ? "application/json" : ExportFormat.valueOf(format).getResponseContentType();
+    }
+
+    @Scheduled(fixedDelayString = "${app.report-jobs.cleanup-interval-ms:60000}")
+    public void removeExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        Iterator<ReportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportJob job = iterator.next();
+            if (job.expiresAt != null && job.expiresAt.isBefore(now)) {
+                iterator.remove();
+                deleteArtifact(job);
+            }
+        }
+    }
+
+    private void runJob(ReportJob job) {
+        job.status = ReportJobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        Path target = artifactDirectory.resolve(job.id + "." + job.format.toLowerCase());
+
+        try {
+            ReportJobRequestDTO request = job.request;
+
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(target))) {
+                if (!job.format.equals("JSON")) {
+                    ExportFormat exportFormat = ExportFormat.valueOf(job.format);
+                    if (job.reportType.equals("EMPLOYEE")) {
+                        reportExportService.writeEmployeeReport(request.getTargetId(), request.getStartDate(), request.getEndDate(), exportFormat, outputStream, job.rowsProcessed);
+                    } else {
+                        reportExportService.writeProjectReport(request.getTargetId(), request.getStartDate(), request.getEndDate(), exportFormat, outputStream, job.rowsProcessed);
+                    }
+                } else {
+                    ReportDTO report;
+                    if (job.reportType.equals("EMPLOYEE")) {
+                        report = reportService.getEmployeeReport(request.getTargetId(), request.getStartDate(), request.getEndDate());
+                    } else if (job.reportType.equals("PROJECT")) {
+                        report = reportService.getProjectReport(request.getTargetId(), request.getStartDate(), request.getEndDate());
+                    } else if (job.reportType.equals("MANAGER")) {
+                        report = reportService.getManagerReport(request.getTargetId(), request.getStartDate(), request.getEndDate());
+                    } else {
+                        report = reportService.getOrganizationReport(request.getStartDate(), request.getEndDate(), ReportService.ALL_ENTRIES);
+                    }
+                    job.rowsProcessed.set(report.getEntries() != null ? report.getEntries().size() : 0);
+                    objectMapper.writeValue(outputStream, report);
+                }
+            }
+
+            // Only published once the file is closed, so a download never sees a partial artifact
+            job.artifact = target;
+            markFinished(job);
+            job.status = ReportJobStatus.COMPLETED;
+            System.out.println("Report job " + job.id + " completed with " + job.rowsProcessed.get() + " rows");
+        } catch (Exception e) {
+            System.err.println("Report job " + job.id + " failed: " + e.getMessage());
+            e.printStackTrace();
+            job.errorMessage = e.getMessage();
+            markFinished(job);
+            job.status = ReportJobStatus.FAILED;
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // A partial file is never handed out, so a leftover only costs disk space
+            }
+        }
+    }
+
+    private void markFinished(ReportJob job) {
+        job.finishedAt = LocalDateTime.now();
+        job.expiresAt = job.finishedAt.plusMinutes(ttlMinutes);
+    }
+
+    private ReportJob findJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Report job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private void deleteArtifact(ReportJob job) {
+        if (job.artifact == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.artifact);
+        } catch (IOException e) {
+            System.err.println("Could not delete report artifact " + job.artifact + ": " + e.getMessage());
+        }
+    }
+
+    private ReportJobDTO toDTO(ReportJob job) {
+        ReportJobDTO dto = new ReportJobDTO();
+        dto.setId(job.id);
+        dto.setReportType(job.reportType);
+        dto.setTargetId(job.request.getTargetId());
+        dto.setFormat(job.format);
+        dto.setStatus(job.status);
+        dto.setRowsProcessed(job.rowsProcessed.get());
+        dto.setErrorMessage(job.errorMessage);
+        dto.setCreatedAt(job.createdAt);
+        dto.setStartedAt(job.startedAt);
+        dto.setFinishedAt(job.finishedAt);
+        dto.setExpiresAt(job.expiresAt);
+
+        if (job.status == ReportJobStatus.COMPLETED) {
+            String suffix = job.request.getTargetId() != null ? "_" + job.request.getTargetId() : "";
+            dto.setFileName(job.reportType.toLowerCase() + "_report" + suffix + "." + job.format.toLowerCase());
+        }
+
+        return dto;
+    }
+
+    private static final class ReportJob {
+        private final String id;
+        private final String reportType;
+        private final String format;
+        private final ReportJobRequestDTO request;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong rowsProcessed = new AtomicLong();
+
+        private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile LocalDateTime expiresAt;
+        private volatile String errorMessage;
+        private volatile Path artifact;
+
+        ReportJob(String id, String reportType, String format, ReportJobRequestDTO request) {
+            this.id = id;
+            this.reportType = reportType;
+            this.format = format;
+            this.request = request;
+        }
+    }
+}
@@ -1,61 +1,104 @@
 package com.timesheet.service;
 
+import com.timesheet.dto.HoursSeriesDTO;
+import com.timesheet.dto.HoursSummaryDTO;
 import com.timesheet.dto.ReportDTO;
-import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.dto.ReportEntryPageDTO;
+import com.timesheet.entity.Employee;
+import com.timesheet.entity.Project;
+import com.timesheet.enums.SeriesGranularity;
+import com.timesheet.enums.SeriesSplit;
+import com.timesheet.repository.DailyHoursRollupRepository;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
 import com.timesheet.repository.TimesheetEntryRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class ReportService {
 
+    public static final int ALL_ENTRIES = -1;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private TimesheetEntryRepository timesheetEntryRepository;
 
+    @Autowired
+    private DailyHoursRollupRepository rollupRepository;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private PartitionedReportService partitionedReportService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Value("${app.reports.page-size:100}")
+    private int defaultPageSize;
+
     public ReportDTO getEmployeeReport(Long employeeId, LocalDate startDate, LocalDate endDate) {
-        System.out.println("Generating employee report for ID: " + employeeId + " from " + startDate + " to " + endDate);
+        return getEmployeeReport(employeeId, startDate, endDate, ALL_ENTRIES);
+    }
 
-        try {
-            List<TimesheetEntry> entries = timesheetEntryRepository.findByEmployeeIdAndDateRange(employeeId, startDate, endDate);
-            System.out.println("Found " + entries.size() + " timesheet entries for employee " + employeeId);
+    // entryLimit: ALL_ENTRIES for every line item, 0 for the summary only, otherwise the size of the first keyset page
+    public ReportDTO getEmployeeReport(Long employeeId, LocalDate startDate, LocalDate endDate, int entryLimit) {
+        ReportDTO cached = reportCacheService.get(ReportCacheService.Scope.EMPLOYEE, employeeId, startDate, endDate, entryLimit);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reportCacheService.generation();
 
-            Double totalHours = timesheetEntryRepository.getTotalHoursByEmployeeAndDateRange(employeeId, startDate, endDate);
-            if (totalHours == null) totalHours = 0.0;
+        System.out.println("Generating employee report for ID: " + employeeId + " from " + startDate + " to " + endDate);
 
-            Map<String, Double> projectHours = new HashMap<>();
-            if (!entries.isEmpty()) {
-                projectHours = entries.stream()
-                    .filter(entry -> entry.getProject() != null)
-                    .collect(Collectors.groupingBy(
-                        entry -> entry.getProject().getProjectName(),
-                        Collectors.summingDouble(TimesheetEntry::getHoursWorked)
-                    ));
-            }
+        try {
+            // Hours per project come from the daily rollup; the total is the sum of the groups
+            List<HoursSummaryDTO> projectSummaries = rollupRepository.sumHoursByProjectForEmployee(employeeId, startDate, endDate);
 
             ReportDTO report = new ReportDTO();
             report.setEmployeeId(employeeId);
             report.setStartDate(startDate);
             report.setEndDate(endDate);
-            report.setTotalHours(totalHours);
-            report.setProjectHours(projectHours);
-
-            List<ReportDTO.ReportItem> reportItems = entries.stream()
-                .map(this::mapEntryToReportItem)
-                .collect(Collectors.toList());
-            report.setEntries(reportItems);
+            report.setTotalHours(sumHours(projectSummaries));
+            report.setProjectHours(toHoursMap(projectSummaries));
+            report.setTotalEntries(sumEntries(projectSummaries));
+
+            if (entryLimit == ALL_ENTRIES) {
+                report.setEntries(timesheetEntryRepository.findReportItemsByEmployeeIdAndDateRange(employeeId, startDate, endDate));
+            } else if (entryLimit > 0) {
+                applyFirstPage(report, getEmployeeEntryPage(employeeId, startDate, endDate, null, entryLimit));
+            } else {
+                report.setEntries(new ArrayList<>());
+            }
 
-            System.out.println("Employee report generated successfully with " + reportItems.size() + " entries and " + totalHours + " total hours");
+            System.out.println("Employee report generated successfully with " + report.getEntries().size() + " entries and " + report.getTotalHours() + " total hours");
+            reportCacheService.put(ReportCacheService.Scope.EMPLOYEE, employeeId, startDate, endDate, entryLimit, generation, report);
             return report;
         } catch (Exception e) {
             System.err.println("Error generating employee report: " + e.getMessage());
@@ -65,132 +108,300 @@ public class ReportService {
     }
 
     public ReportDTO getProjectReport(Long projectId, LocalDate startDate, LocalDate endDate) {
+        return getProjectReport(projectId, startDate, endDate, ALL_ENTRIES);
+    }
+
+    public ReportDTO getProjectReport(Long projectId, LocalDate startDate, LocalDate endDate, int entryLimit) {
+        ReportDTO cached = reportCacheService.get(ReportCacheService.Scope.PROJECT, projectId, startDate, endDate, entryLimit);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reportCacheService.generation();
+
         System.out.println("Generating project report for ID: " + projectId + " from " + startDate + " to " + endDate);
 
         try {
-            List<TimesheetEntry> entries = timesheetEntryRepository.findByProjectIdAndDateRange(projectId, startDate, endDate);
-            System.out.println("Found " + entries.size() + " timesheet entries for project " + projectId);
+            // Hours per employee come from the daily rollup; the total is the sum of the groups
+            List<HoursSummaryDTO> employeeSummaries = rollupRepository.sumHoursByEmployeeForProject(projectId, startDate, endDate);
 
-            Double totalHours = timesheetEntryRepository.getTotalHoursByProjectAndDateRange(projectId, startDate, endDate);
-            if (totalHours == null) totalHours = 0.0;
+            ReportDTO report = new ReportDTO();
+            report.setProjectId(projectId);
+            report.setStartDate(startDate);
+            report.setEndDate(endDate);
+            report.setTotalHours(sumHours(employeeSummaries));
+            report.setEmployeeHours(toHoursMap(employeeSummaries));
+            report.setTotalEntries(sumEntries(employeeSummaries));
+
+            if (entryLimit == ALL_ENTRIES) {
+                report.setEntries(timesheetEntryRepository.findReportItemsByProjectIdAndDateRange(projectId, startDate, endDate));
+            } else if (entryLimit > 0) {
+                applyFirstPage(report, getProjectEntryPage(projectId, startDate, endDate, null, entryLimit));
+            } else {
+                report.setEntries(new ArrayList<>());
+            }
+
+            System.out.println("Project report generated successfully with " + report.getEntries().size() + " entries and " + report.getTotalHours() + " total hours");
+            reportCacheService.put(ReportCacheService.Scope.PROJECT, projectId, startDate, endDate, entryLimit, generation, report);
+            return report;
+        } catch (Exception e) {
+            System.err.println("Error generating project report: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to generate project report: " + e.getMessage());
+        }
+    }
+
+    public ReportDTO getManagerReport(Long managerId, LocalDate startDate, LocalDate endDate) {
+        ReportDTO cached = reportCacheService.get(ReportCacheService.Scope.MANAGER, managerId, startDate, endDate, 0);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reportCacheService.generation();
+
+        System.out.println("Generating manager report for ID: " + managerId + " from " + startDate + " to " + endDate);
+
+        try {
+            // One query covers every direct and indirect report under the manager, reading daily rollup rows
+            List<Object[]> rows = rollupRepository.findTeamRollups(managerId, startDate, endDate);
 
             Map<String, Double> employeeHours = new HashMap<>();
-            if (!entries.isEmpty()) {
-                employeeHours = entries.stream()
-                    .filter(entry -> entry.getTimesheet() != null && entry.getTimesheet().getEmployee() != null)
-                    .collect(Collectors.groupingBy(
-                        entry -> entry.getTimesheet().getEmployee().getFullName(),
-                        Collectors.summingDouble(TimesheetEntry::getHoursWorked)
-                    ));
+            Map<String, Double> projectHours = new HashMap<>();
+            Map<String, Double> weeklyHours = new TreeMap<>();
+            double totalHours = 0.0;
+
+            for (Object[] row : rows) {
+                String employeeName = row[1] + " " + row[2];
+                String projectName = (String) row[4];
+                String weekStart = toLocalDate(row[5]).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+                double hours = row[6] != null ? ((Number) row[6]).doubleValue() : 0.0;
+
+                employeeHours.merge(employeeName, hours, Double::sum);
+                projectHours.merge(projectName, hours, Double::sum);
+                weeklyHours.merge(weekStart, hours, Double::sum);
+                totalHours += hours;
             }
 
             ReportDTO report = new ReportDTO();
-            report.setProjectId(projectId);
+            report.setManagerId(managerId);
             report.setStartDate(startDate);
             report.setEndDate(endDate);
             report.setTotalHours(totalHours);
             report.setEmployeeHours(employeeHours);
+            report.setProjectHours(projectHours);
+            report.setWeeklyHours(weeklyHours);
+            report.setEntries(new ArrayList<>());
 
-            List<ReportDTO.ReportItem> reportItems = entries.stream()
-                .map(this::mapEntryToReportItem)
-                .collect(Collectors.toList());
-            report.setEntries(reportItems);
+            System.out.println("Manager report generated successfully for " + employeeHours.size() + " employees and " + totalHours + " total hours");
+            reportCacheService.put(ReportCacheService.Scope.MANAGER, managerId, startDate, endDate, 0, generation, report);
+            return report;
+        } catch (Exception e) {
+            System.err.println("Error generating manager report: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Failed to generate manager report: " + e.getMessage());
+        }
+    }
 
-            System.out.println("Project report generated successfully with " + reportItems.size() + " entries and " + totalHours + " total hours");
+    public ReportDTO getOrganizationReport(LocalDate startDate, LocalDate endDate, int entryLimit) {
+        ReportDTO cached = reportCacheService.get(ReportCacheService.Scope.ORGANIZATION, 0L, startDate, endDate, entryLimit);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = reportCacheService.generation();
+
+        try {
+            // Split by month and employee id range and run the partitions concurrently
+            ReportDTO report = partitionedReportService.getOrganizationReport(startDate, endDate, entryLimit == ALL_ENTRIES);
+            if (entryLimit > 0) {
+                applyFirstPage(report, getOrganizationEntryPage(startDate, endDate, null, entryLimit));
+            }
+            System.out.println("Organization report generated successfully with " + report.getEntries().size() + " entries and " + report.getTotalHours() + " total hours");
+            reportCacheService.put(ReportCacheService.Scope.ORGANIZATION, 0L, startDate, endDate, entryLimit, generation, report);
             return report;
         } catch (Exception e) {
-            System.err.println("Error generating project report: " + e.getMessage());
+            System.err.println("Error generating organization report: " + e.getMessage());
             e.printStackTrace();
-            throw new RuntimeException("Failed to generate project report: " + e.getMessage());
+            throw new RuntimeException("Failed to generate organization report: " + e.getMessage());
         }
     }
 
-    public ReportDTO getManagerReport(Long managerId, LocalDate startDate, LocalDate endDate) {
-        System.out.println("Generating manager report for ID: " + managerId + " from " + startDate + " to " + endDate);
+    public ReportEntryPageDTO getEmployeeEntryPage(Long employeeId, LocalDate startDate, LocalDate endDate, String cursor, int pageSize) {
+        EntryCursor after = decodeCursor(cursor, startDate);
+        return toEntryPage(timesheetEntryRepository.findReportItemPageByEmployeeId(employeeId, after.workDate, after.id, endDate, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
 
-        // Basic implementation - can be enhanced later
-        ReportDTO report = new ReportDTO();
-        report.setManagerId(managerId);
-        report.setStartDate(startDate);
-        report.setEndDate(endDate);
-        report.setTotalHours(0.0);
-        report.setEmployeeHours(new HashMap<>());
-        report.setEntries(new ArrayList<>());
+    public ReportEntryPageDTO getProjectEntryPage(Long projectId, LocalDate startDate, LocalDate endDate, String cursor, int pageSize) {
+        EntryCursor after = decodeCursor(cursor, startDate);
+        return toEntryPage(timesheetEntryRepository.findReportItemPageByProjectId(projectId, after.workDate, after.id, endDate, PageRequest.of(0, pageSize + 1)), pageSize);
+    }
 
-        return report;
+    public ReportEntryPageDTO getOrganizationEntryPage(LocalDate startDate, LocalDate endDate, String cursor, int pageSize) {
+        EntryCursor after = decodeCursor(cursor, startDate);
+        return toEntryPage(timesheetEntryRepository.findReportItemPage(after.workDate, after.id, endDate, PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
-    public byte[] exportToExcel(ReportDTO report) {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Timesheet Report");
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("Date");
-            headerRow.createCell(1).setCellValue("Employee");
-            headerRow.createCell(2).setCellValue("Project");
-            headerRow.createCell(3).setCellValue("Hours");
-            headerRow.createCell(4).setCellValue("Description");
-
-            // Style header
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-
-            for (int i = 0; i < 5; i++) {
-                headerRow.getCell(i).setCellStyle(headerStyle);
-            }
+    // Falls back to the configured page size and caps what a client may ask for
+    public int resolvePageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, MAX_PAGE_SIZE);
+    }
 
-            // Add data rows
-            int rowNum = 1;
-            if (report.getEntries() != null) {
-                for (ReportDTO.ReportItem entry : report.getEntries()) {
-                    Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(entry.getWorkDate().toString());
-                    row.createCell(1).setCellValue(entry.getEmployeeName());
-                    row.createCell(2).setCellValue(entry.getProjectName());
-                    row.createCell(3).setCellValue(entry.getHoursWorked());
-                    row.createCell(4).setCellValue(entry.getTaskDescription() != null ? entry.getTaskDescription() : "");
-                }
-            }
+    public HoursSeriesDTO getEmployeeSeries(Long employeeId, LocalDate startDate, LocalDate endDate, SeriesGranularity granularity, SeriesSplit splitBy) {
+        List<Object[]> rows = rollupRepository.findHoursSeriesForEmployee(employeeId, startDate, endDate, granularity.name(), splitBy.name());
+        HoursSeriesDTO series = buildSeries(rows, startDate, endDate, granularity, splitBy);
+        series.setEmployeeId(employeeId);
+        return series;
+    }
 
-            // Auto-size columns
-            for (int i = 0; i < 5; i++) {
-                sheet.autoSizeColumn(i);
-            }
+    public HoursSeriesDTO getProjectSeries(Long projectId, LocalDate startDate, LocalDate endDate, SeriesGranularity granularity, SeriesSplit splitBy) {
+        List<Object[]> rows = rollupRepository.findHoursSeriesForProject(projectId, startDate, endDate, granularity.name(), splitBy.name());
+        HoursSeriesDTO series = buildSeries(rows, startDate, endDate, granularity, splitBy);
+        series.setProjectId(projectId);
+        return series;
+    }
 
-            // Write to byte array
+    public HoursSeriesDTO getManagerSeries(Long managerId, LocalDate startDate, LocalDate endDate, SeriesGranularity granularity, SeriesSplit splitBy) {
+        List<Object[]> rows = rollupRepository.findHoursSeriesForTeam(managerId, startDate, endDate, granularity.name(), splitBy.name());
+        HoursSeriesDTO series = buildSeries(rows, startDate, endDate, granularity, splitBy);
+        series.setManagerId(managerId);
+        return series;
+    }
+
+    public byte[] exportToExcel(ReportDTO report) {
+        try {
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
+            List<ReportDTO.ReportItem> entries = report.getEntries() != null ? report.getEntries() : new ArrayList<>();
+            reportExportService.writeExcel(entries.iterator(), outputStream);
             return outputStream.toByteArray();
-
         } catch (IOException e) {
             throw new RuntimeException("Error creating Excel file", e);
         }
     }
 
-    private ReportDTO.ReportItem mapEntryToReportItem(TimesheetEntry entry) {
-        ReportDTO.ReportItem item = new ReportDTO.ReportItem();
-        item.setWorkDate(entry.getWorkDate());
-        item.setHoursWorked(entry.getHoursWorked());
-        item.setTaskDescription(entry.getTaskDescription());
+    // Rows arrive bucketed, grouped and with running totals from the database; only series names are resolved here.
+    // Buckets without hours are not returned.
+    private HoursSeriesDTO buildSeries(List<Object[]> rows, LocalDate startDate, LocalDate endDate, SeriesGranularity granularity, SeriesSplit splitBy) {
+        Set<Long> seriesIds = new LinkedHashSet<>();
+        for (Object[] row : rows) {
+            seriesIds.add(((Number) row[1]).longValue());
+        }
+
+        Map<Long, String> seriesNames = new HashMap<>();
+        if (splitBy == SeriesSplit.PROJECT) {
+            for (Project project : projectRepository.findAllById(seriesIds)) {
+                seriesNames.put(project.getId(), project.getProjectName());
+            }
+        } else if (splitBy == SeriesSplit.EMPLOYEE) {
+            for (Employee employee : employeeRepository.findAllById(seriesIds)) {
+                seriesNames.put(employee.getId(), employee.getFullName());
+            }
+        }
+
+        List<HoursSeriesDTO.SeriesBucket> buckets = new ArrayList<>();
+        double totalHours = 0.0;
+        for (Object[] row : rows) {
+            Long seriesId = splitBy != SeriesSplit.NONE ? ((Number) row[1]).longValue() : null;
+            double hours = row[2] != null ? ((Number) row[2]).doubleValue() : 0.0;
+            double cumulativeHours = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+            buckets.add(new HoursSeriesDTO.SeriesBucket(toLocalDate(row[0]), seriesId, seriesNames.get(seriesId), hours, cumulativeHours));
+            totalHours += hours;
+        }
+
+        HoursSeriesDTO series = new HoursSeriesDTO();
+        series.setStartDate(startDate);
+        series.setEndDate(endDate);
+        series.setGranularity(granularity);
+        series.setSplitBy(splitBy);
+        series.setTotalHours(totalHours);
+        series.setBuckets(buckets);
+        return series;
+    }
+
+    // One row more than the page is fetched; if it comes back there is a next page, starting after the last row shown
+    private ReportEntryPageDTO toEntryPage(List<ReportDTO.ReportItem> items, int pageSize) {
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = new ArrayList<>(items.subList(0, pageSize));
+            ReportDTO.ReportItem last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getWorkDate(), last.getId());
+        }
+        return new ReportEntryPageDTO(items, nextCursor);
+    }
+
+    private void applyFirstPage(ReportDTO report, ReportEntryPageDTO page) {
+        report.setEntries(page.getEntries());
+        report.setNextCursor(page.getNextCursor());
+    }
 
-        // Safe null checks
-        if (entry.getTimesheet() != null && entry.getTimesheet().getEmployee() != null) {
-            item.setEmployeeName(entry.getTimesheet().getEmployee().getFullName());
-        } else {
-            item.setEmployeeName("Unknown Employee");
+    // Cursors are opaque to clients: base64url of "workDate:id" for the last row of the previous page
+    private String encodeCursor(LocalDate workDate, Long id) {
+        String position = workDate + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private EntryCursor decodeCursor(String cursor, LocalDate startDate) {
+        // No cursor means the first page: every row from startDate on, as ids are always positive
+        if (cursor == null || cursor.isEmpty()) {
+            return new EntryCursor(startDate, 0L);
         }
 
-        if (entry.getProject() != null) {
-            item.setProjectName(entry.getProject().getProjectName());
-            item.setProjectCode(entry.getProject().getProjectCode());
-        } else {
-            item.setProjectName("Unknown Project");
-            item.setProjectCode("N/A");
+        EntryCursor after;
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            after = new EntryCursor(LocalDate.parse(position.substring(0, separator)), Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
         }
 
-        return item;
+        // A cursor from a wider range must not reach back past the requested start
+        return after.workDate.isBefore(startDate) ? new EntryCursor(startDate, 0L) : after;
+    }
+
+    private Long sumEntries(List<HoursSummaryDTO> summaries) {
+        long total = 0;
+        for (HoursSummaryDTO summary : summaries) {
+            if (summary.getEntryCount() != null) {
+                total += summary.getEntryCount();
+            }
+        }
+        return total;
+    }
+
+    private Double sumHours(List<HoursSummaryDTO> summaries) {
+        double total = 0.0;
+        for (HoursSummaryDTO summary : summaries) {
+            if (summary.getHours() != null) {
+                total += summary.getHours();
+            }
+        }
+        return total;
+    }
+
+    private Map<String, Double> toHoursMap(List<HoursSummaryDTO> summaries) {
+        // Labels are display names, so two groups can share one (e.g. namesakes) - merge them like the old grouping did
+        Map<String, Double> hours = new HashMap<>();
+        for (HoursSummaryDTO summary : summaries) {
+            hours.merge(summary.getLabel(), summary.getHours() != null ? summary.getHours() : 0.0, Double::sum);
+        }
+        return hours;
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        // Native queries return java.sql.Date or LocalDate depending on the driver
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private static final class EntryCursor {
+        private final LocalDate workDate;
+        private final Long id;
+
+        EntryCursor(LocalDate workDate, Long id) {
+            this.workDate = workDate;
+            this.id = id;
+        }
     }
 }
@@ -0,0 +1,170 @@
+package com.timesheet.service;
+
+import com.timesheet.repository.ArchivedEntryPartitionRepository;
+import com.timesheet.repository.DailyHoursRollupRepository;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+@Service
+@Transactional
+public class RollupService {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DailyHoursRollupRepository rollupRepository;
+
+    @Autowired
+    private ArchivedEntryPartitionRepository archivedEntryPartitionRepository;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private volatile Boolean supportsOnConflict;
+
+    // Called in the same transaction as every entry insert, update and delete
+    public void applyEntryDelta(Long employeeId, Long projectId, LocalDate workDate, double hoursDelta, int countDelta) {
+        if (countDelta > 0) {
+            // A new entry: the row for its key may not exist yet, and a concurrent first insert must not fail this one
+            if (supportsOnConflict()) {
+                rollupRepository.upsertDeltaOnConflict(employeeId, projectId, workDate, hoursDelta, countDelta);
+            } else {
+                rollupRepository.upsertDeltaMerge(employeeId, projectId, workDate, hoursDelta, countDelta);
+            }
+            return;
+        }
+
+        int updated = rollupRepository.applyDelta(employeeId, projectId, workDate, hoursDelta, countDelta);
+        if (updated == 0) {
+            // Nothing to change or take away from - the rollup is out of date and needs a rebuild
+            System.err.println("Rollup row missing for employee " + employeeId + ", project " + projectId + " on " + workDate);
+        } else if (countDelta < 0) {
+            rollupRepository.deleteIfEmpty(employeeId, projectId, workDate);
+        }
+    }
+
+    private boolean supportsOnConflict() {
+        if (supportsOnConflict == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            supportsOnConflict = dialect instanceof PostgreSQL81Dialect;
+        }
+        return supportsOnConflict;
+    }
+
+    // For bulk writers: the same upsert applyEntryDelta runs for a new entry, once per key and sent as one JDBC batch.
+    // Rows live writers upsert at the same time are added to, never recomputed over; the keys go in a fixed order so
+    // two bulk writers lock shared rows in the same sequence.
+    public void applyNewEntries(NewEntries entries) {
+        if (entries.totals.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = entries.totals.entrySet().stream()
+            .map(total -> new MapSqlParameterSource()
+                .addValue("employeeId", total.getKey().employeeId)
+                .addValue("projectId", total.getKey().projectId)
+                .addValue("workDate", Date.valueOf(total.getKey().workDate))
+                .addValue("hoursDelta", total.getValue()[0])
+                .addValue("countDelta", (int) total.getValue()[1]))
+            .toArray(SqlParameterSource[]::new);
+        namedParameterJdbcTemplate.batchUpdate(supportsOnConflict()
+            ? DailyHoursRollupRepository.UPSERT_DELTA_ON_CONFLICT
+            : DailyHoursRollupRepository.UPSERT_DELTA_MERGE, batch);
+    }
+
+    public int rebuild() {
+        System.out.println("Rebuilding daily hours rollup from timesheet entries");
+        // Archived months are no longer in the entries table; their rollup rows are all that is left of them
+        LocalDate liveFrom = archivedEntryPartitionRepository.findLiveEntriesFrom();
+        lockAgainstEntryWriters();
+        rollupRepository.deleteFrom(liveFrom);
+        int rows = rollupRepository.rebuildFromEntriesFrom(liveFrom);
+        reportCacheService.clear();
+        System.out.println("Daily hours rollup rebuilt with " + rows + " rows");
+        return rows;
+    }
+
+    // Entry writes upsert rollup rows from their own transactions. Without the lock a row upserted between the delete and
+    // the re-insert either collides with the re-insert or is deleted with its delta. With it, a writer that got in
+    // first is waited for and its entry is counted by the re-insert; a writer that comes later waits, and its entry,
+    // which the re-insert could not see yet, is added by its own delta. Readers are not blocked. H2, the in-process
+    // development database, has no table locks; there the rebuild only runs at startup or on request.
+    private void lockAgainstEntryWriters() {
+        if (supportsOnConflict()) {
+            entityManager.createNativeQuery("LOCK TABLE daily_hours_rollups IN EXCLUSIVE MODE").executeUpdate();
+        }
+    }
+
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            rebuild();
+        }
+    }
+
+    // The hours and entry count a bulk write adds, summed per rollup key
+    public static final class NewEntries {
+
+        private final Map<Key, double[]> totals = new TreeMap<>();
+
+        public void add(Long employeeId, Long projectId, LocalDate workDate, double hours) {
+            double[] total = totals.computeIfAbsent(new Key(employeeId, projectId, workDate), key -> new double[2]);
+            total[0] += hours;
+            total[1]++;
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+
+        private static final Comparator<Key> ORDER = Comparator.<Key, Long>comparing(key -> key.employeeId)
+            .thenComparing(key -> key.projectId)
+            .thenComparing(key -> key.workDate);
+
+        private final Long employeeId;
+        private final Long projectId;
+        private final LocalDate workDate;
+
+        private Key(Long employeeId, Long projectId, LocalDate workDate) {
+            this.employeeId = employeeId;
+            this.projectId = projectId;
+            this.workDate = workDate;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return employeeId.equals(key.employeeId) && projectId.equals(key.projectId) && workDate.equals(key.workDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(employeeId, projectId, workDate);
+        }
+    }
+}
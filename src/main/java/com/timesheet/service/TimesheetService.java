@@ -4,19 +4,64 @@ import com.timesheet.dto.*;
 import com.timesheet.entity.*;
 import com.timesheet.enums.*;
 import com.timesheet.repository.*;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class TimesheetService {
 
+    private static final String ENTRY_SEQUENCE = "timesheet_entries_seq";
+
+    // Sorts for the paged timesheet list; each ends with a unique column so the keyset order is total
+    private static final Map<String, List<KeysetQuery.Key<TimesheetDTO>>> PAGE_SORTS = Map.of(
+        "id", List.of(KeysetQuery.key("t.id", Long.class, TimesheetDTO::getId)),
+        "week", List.of(KeysetQuery.key("t.weekStartDate", LocalDate.class, TimesheetDTO::getWeekStartDate),
+                        KeysetQuery.key("t.id", Long.class, TimesheetDTO::getId)));
+
+    // %s is the dialect's next-value expression for the entry sequence
+    private static final String COPY_ENTRIES =
+        "INSERT INTO timesheet_entries (id, timesheet_id, project_id, work_date, hours_worked, task_description, created_at, updated_at) " +
+        "SELECT %s, :timesheetId, te.project_id, te.work_date + " + Timesheet.DAYS_PER_WEEK + ", te.hours_worked, te.task_description, :createdAt, :createdAt " +
+        "FROM timesheet_entries te JOIN projects p ON p.id = te.project_id " +
+        "WHERE te.timesheet_id = :sourceTimesheetId AND te.work_date BETWEEN :sourceStartDate AND :sourceEndDate AND p.is_active = TRUE " +
+        "ORDER BY te.work_date, te.id";
+
+    private static final String COPY_PROJECTS =
+        "INSERT INTO timesheet_entries (id, timesheet_id, project_id, work_date, hours_worked, task_description, created_at, updated_at) " +
+        "SELECT %s, :timesheetId, used.project_id, :workDate, 0, NULL, :createdAt, :createdAt " +
+        "FROM (SELECT DISTINCT te.project_id FROM timesheet_entries te JOIN projects p ON p.id = te.project_id " +
+        "      WHERE te.timesheet_id = :sourceTimesheetId AND p.is_active = TRUE) used " +
+        "ORDER BY used.project_id";
+
     @Autowired
     private TimesheetRepository timesheetRepository;
 
@@ -29,23 +74,80 @@ public class TimesheetService {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private RollupService rollupService;
+
+    @Autowired
+    private ReportCacheService reportCacheService;
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    @Autowired
+    private TimesheetTotalsService timesheetTotalsService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.pagination.page-size:50}")
+    private int defaultPageSize;
+
+    private volatile String entrySequenceNextValue;
+
     public TimesheetDTO createTimesheet(Long employeeId, TimesheetCreateDTO dto) {
-        Employee employee = employeeRepository.findById(employeeId)
-            .orElseThrow(() -> new RuntimeException("Employee not found with id: " + employeeId));
+        return mapToDTO(insertTimesheet(employeeId, dto));
+    }
 
-        // Check if timesheet already exists for this week
-        if (timesheetRepository.findByEmployeeIdAndWeekStartDate(employeeId, dto.getWeekStartDate()).isPresent()) {
-            throw new RuntimeException("Timesheet already exists for this week");
+    // Creates the timesheet for the given week and fills it from the employee's timesheet of the week before, shifted by
+    // seven days. The entries are cloned by one INSERT ... SELECT; with projectsOnly each project used last week gets a
+    // single zero-hour entry on the first day instead, which week saves treat as the project's row rather than an empty
+    // cell (see writeCells). Entries for projects that have since been deactivated are skipped.
+    public TimesheetDTO copyPreviousWeek(Long employeeId, TimesheetCreateDTO dto, boolean projectsOnly) {
+        LocalDate previousWeekStart = dto.getWeekStartDate().minusDays(Timesheet.DAYS_PER_WEEK);
+        Timesheet previous = timesheetRepository.findByEmployeeIdAndWeekStartDate(employeeId, previousWeekStart)
+            .orElseThrow(() -> new RuntimeException("No timesheet found for the week starting " + previousWeekStart));
+        // Every copied entry falls on or after the first day of the new week
+        timesheetTotalsService.checkNotArchived(Collections.singletonList(dto.getWeekStartDate()));
+
+        Timesheet timesheet = insertTimesheet(employeeId, dto);
+
+        LocalDateTime now = LocalDateTime.now();
+        Query copy = entityManager.createNativeQuery(String.format(projectsOnly ? COPY_PROJECTS : COPY_ENTRIES, entrySequenceNextValue()))
+            .setParameter("timesheetId", timesheet.getId())
+            .setParameter("sourceTimesheetId", previous.getId())
+            .setParameter("createdAt", now);
+        if (projectsOnly) {
+            copy.setParameter("workDate", timesheet.getWeekStartDate());
+        } else {
+            // Only days that still fall inside the new week; entries outside the source week are not carried over
+            copy.setParameter("sourceStartDate", previous.getWeekStartDate())
+                .setParameter("sourceEndDate", timesheet.getWeekEndDate().minusDays(Timesheet.DAYS_PER_WEEK));
         }
+        int copied = copy.executeUpdate();
 
-        Timesheet timesheet = new Timesheet();
-        timesheet.setEmployee(employee);
-        timesheet.setWeekStartDate(dto.getWeekStartDate());
-        timesheet.setWeekEndDate(dto.getWeekEndDate());
-        timesheet.setStatus(TimesheetStatus.DRAFT);
+        TimesheetDTO result = mapToSummaryDTO(timesheet);
+        if (copied == 0) {
+            result.setEntries(new ArrayList<>());
+            return result;
+        }
+
+        // One read of what the statement produced drives the totals, rollup, analytics and the response
+        List<TimesheetEntry> entries = entryRepository.findByTimesheetIdWithProject(timesheet.getId(), timesheet.getWeekStartDate(), timesheet.getWeekEndDate());
+        double[] dayDeltas = new double[Timesheet.DAYS_PER_WEEK];
+        Map<CellKey, double[]> rollupDeltas = new HashMap<>();
+        for (TimesheetEntry entry : entries) {
+            addDelta(rollupDeltas, dayDeltas, timesheet, entry.getProject().getId(), entry.getWorkDate(), entry.getHoursWorked(), 1);
+        }
+        timesheetTotalsService.applyDayDeltas(timesheet, dayDeltas);
 
-        Timesheet saved = timesheetRepository.save(timesheet);
-        return mapToDTO(saved);
+        rollupDeltas.forEach((key, delta) ->
+            rollupService.applyEntryDelta(employeeId, key.projectId, key.workDate, delta[0], (int) delta[1]));
+        reportCacheService.invalidateForTimesheet(employeeId, null, timesheet.getWeekStartDate(), timesheet.getWeekEndDate());
+        entries.forEach(analyticsService::recordEntry);
+
+        result = mapToSummaryDTO(timesheet);
+        result.setEntries(entries.stream().map(this::mapToEntryDTO).collect(Collectors.toList()));
+        return result;
     }
 
     public TimesheetEntryDTO addEntry(Long timesheetId, EntryCreateDTO dto) {
@@ -59,6 +161,12 @@ public class TimesheetService {
         Project project = projectRepository.findById(dto.getProjectId())
             .orElseThrow(() -> new RuntimeException("Project not found with id: " + dto.getProjectId()));
 
+        int day = timesheetTotalsService.dayIndex(timesheet, dto.getWorkDate());
+        timesheetTotalsService.checkNotArchived(Collections.singletonList(dto.getWorkDate()));
+        if (timesheet.getDailyHours()[day] + dto.getHoursWorked() > 24.0) {
+            throw new RuntimeException("Hours worked on " + dto.getWorkDate() + " cannot exceed 24 hours");
+        }
+
         TimesheetEntry entry = new TimesheetEntry();
         entry.setTimesheet(timesheet);
         entry.setProject(project);
@@ -67,73 +175,464 @@ public class TimesheetService {
         entry.setTaskDescription(dto.getTaskDescription());
 
         TimesheetEntry saved = entryRepository.save(entry);
+        timesheetTotalsService.applyEntryDelta(timesheet, saved.getWorkDate(), saved.getHoursWorked());
+        rollupService.applyEntryDelta(timesheet.getEmployee().getId(), project.getId(), saved.getWorkDate(), saved.getHoursWorked(), 1);
+        reportCacheService.invalidateForTimesheet(timesheet.getEmployee().getId(), project.getId(), saved.getWorkDate(), saved.getWorkDate());
+        analyticsService.recordEntry(saved);
         return mapToEntryDTO(saved);
     }
 
-    public void submitTimesheet(Long timesheetId, Long employeeId) {
+    // Saves a whole grid in one transaction: one timesheet load, one IN query for the projects and batched inserts
+    public List<TimesheetEntryDTO> addEntries(Long timesheetId, List<EntryCreateDTO> dtos) {
         Timesheet timesheet = timesheetRepository.findById(timesheetId)
             .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
 
-        if (!timesheet.getEmployee().getId().equals(employeeId)) {
-            throw new RuntimeException("You can only submit your own timesheets");
+        if (timesheet.getStatus() != TimesheetStatus.DRAFT) {
+            throw new RuntimeException("Cannot modify timesheet that is not in draft status");
         }
 
-        if (timesheet.getStatus() != TimesheetStatus.DRAFT) {
-            throw new RuntimeException("Only draft timesheets can be submitted");
+        Set<Long> projectIds = dtos.stream().map(EntryCreateDTO::getProjectId).collect(Collectors.toSet());
+        Map<Long, Project> projects = projectRepository.findAllById(projectIds).stream()
+            .collect(Collectors.toMap(Project::getId, Function.identity()));
+
+        double[] dailyHours = timesheet.getDailyHours();
+        double[] dayDeltas = new double[Timesheet.DAYS_PER_WEEK];
+        for (EntryCreateDTO dto : dtos) {
+            if (!projects.containsKey(dto.getProjectId())) {
+                throw new RuntimeException("Project not found with id: " + dto.getProjectId());
+            }
+            int day = timesheetTotalsService.dayIndex(timesheet, dto.getWorkDate());
+            dayDeltas[day] += dto.getHoursWorked();
+            if (dailyHours[day] + dayDeltas[day] > 24.0) {
+                throw new RuntimeException("Hours worked on " + dto.getWorkDate() + " cannot exceed 24 hours");
+            }
+        }
+        timesheetTotalsService.checkNotArchived(dtos.stream().map(EntryCreateDTO::getWorkDate).collect(Collectors.toSet()));
+
+        List<TimesheetEntry> entries = new ArrayList<>();
+        for (EntryCreateDTO dto : dtos) {
+            TimesheetEntry entry = new TimesheetEntry();
+            entry.setTimesheet(timesheet);
+            entry.setProject(projects.get(dto.getProjectId()));
+            entry.setWorkDate(dto.getWorkDate());
+            entry.setHoursWorked(dto.getHoursWorked());
+            entry.setTaskDescription(dto.getTaskDescription());
+            entries.add(entry);
+        }
+
+        // Ids come from the pooled sequence, so the inserts stay queued and go out as JDBC batches on flush
+        List<TimesheetEntry> saved = entryRepository.saveAll(entries);
+        timesheetTotalsService.applyDayDeltas(timesheet, dayDeltas);
+
+        // One rollup delta per project and day rather than per cell
+        Long employeeId = timesheet.getEmployee().getId();
+        Map<Long, Map<LocalDate, double[]>> deltas = new HashMap<>();
+        for (TimesheetEntry entry : saved) {
+            double[] delta = deltas.computeIfAbsent(entry.getProject().getId(), id -> new HashMap<>())
+                .computeIfAbsent(entry.getWorkDate(), date -> new double[2]);
+            delta[0] += entry.getHoursWorked();
+            delta[1]++;
         }
+        deltas.forEach((projectId, byDate) -> byDate.forEach((workDate, delta) ->
+            rollupService.applyEntryDelta(employeeId, projectId, workDate, delta[0], (int) delta[1])));
 
-        timesheet.setStatus(TimesheetStatus.SUBMITTED);
-        timesheet.setSubmittedAt(LocalDateTime.now());
-        timesheetRepository.save(timesheet);
+        reportCacheService.invalidateForTimesheet(employeeId, null, timesheet.getWeekStartDate(), timesheet.getWeekEndDate());
+        saved.forEach(analyticsService::recordEntry);
+        return saved.stream().map(this::mapToEntryDTO).collect(Collectors.toList());
     }
 
-    public void approveTimesheet(Long timesheetId, Long managerId) {
+    // Replaces the week with the given grid, writing only the difference: one read of the stored entries, then batched
+    // inserts and updates and a single delete. Cells that did not change cost nothing.
+    // With expectedVersion (may be null) a grid built from an older version of the timesheet is refused with 409.
+    public WeekSaveResultDTO saveWeek(Long timesheetId, List<EntryCreateDTO> cells, Long expectedVersion) {
+        return writeCells(timesheetId, cells, true, expectedVersion);
+    }
+
+    // Same diff, but only the given cells change; used for autosave edits and by the write-behind flush
+    public WeekSaveResultDTO applyCellEdits(Long timesheetId, List<EntryCreateDTO> cells, Long expectedVersion) {
+        return writeCells(timesheetId, cells, false, expectedVersion);
+    }
+
+    public WeekSaveResultDTO applyCellEdits(Long timesheetId, List<EntryCreateDTO> cells) {
+        return applyCellEdits(timesheetId, cells, null);
+    }
+
+    // The checks writeCells makes, for edits that are only buffered (write-behind) so a bad edit is refused before it is
+    // acknowledged: the timesheet is a draft, every day lies in its week and after the archived months, every project
+    // exists and no day goes over 24 hours once the edits still buffered and these are laid over the stored entries.
+    @Transactional(readOnly = true)
+    public void validateCellEdits(Long timesheetId, Collection<EntryCreateDTO> buffered, List<EntryCreateDTO> cells) {
         Timesheet timesheet = timesheetRepository.findById(timesheetId)
             .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
 
-        Employee manager = employeeRepository.findById(managerId)
-            .orElseThrow(() -> new RuntimeException("Manager not found with id: " + managerId));
+        if (timesheet.getStatus() != TimesheetStatus.DRAFT) {
+            throw new RuntimeException("Cannot modify timesheet that is not in draft status");
+        }
 
-        if (timesheet.getStatus() != TimesheetStatus.SUBMITTED) {
-            throw new RuntimeException("Only submitted timesheets can be approved");
+        Map<CellKey, Double> hours = new HashMap<>();
+        for (TimesheetEntry entry : entryRepository.findByTimesheetIdWithProject(timesheetId, timesheet.getWeekStartDate(), timesheet.getWeekEndDate())) {
+            hours.merge(new CellKey(entry.getProject().getId(), entry.getWorkDate()), entry.getHoursWorked(), Double::sum);
+        }
+        for (EntryCreateDTO cell : buffered) {
+            hours.put(new CellKey(cell.getProjectId(), cell.getWorkDate()), cell.getHoursWorked());
+        }
+        timesheetTotalsService.checkNotArchived(cells.stream().map(EntryCreateDTO::getWorkDate).collect(Collectors.toSet()));
+        Set<CellKey> edited = new HashSet<>();
+        Set<Long> projectIds = new HashSet<>();
+        for (EntryCreateDTO cell : cells) {
+            timesheetTotalsService.dayIndex(timesheet, cell.getWorkDate());
+            CellKey key = new CellKey(cell.getProjectId(), cell.getWorkDate());
+            if (!edited.add(key)) {
+                throw new IllegalArgumentException("Project " + cell.getProjectId() + " appears more than once on " + cell.getWorkDate());
+            }
+            hours.put(key, cell.getHoursWorked());
+            if (cell.getHoursWorked() > 0.0) {
+                projectIds.add(cell.getProjectId());
+            }
         }
 
-        timesheet.setStatus(TimesheetStatus.APPROVED);
-        timesheet.setApprovedBy(manager);
-        timesheet.setApprovedAt(LocalDateTime.now());
-        timesheetRepository.save(timesheet);
+        if (!projectIds.isEmpty()) {
+            projectRepository.findAllById(projectIds).forEach(project -> projectIds.remove(project.getId()));
+            if (!projectIds.isEmpty()) {
+                throw new RuntimeException("Project not found with id: " + projectIds.iterator().next());
+            }
+        }
+
+        double[] dailyHours = new double[Timesheet.DAYS_PER_WEEK];
+        hours.forEach((key, cellHours) -> {
+            int day = timesheet.dayIndexOf(key.workDate);
+            if (day >= 0) {
+                dailyHours[day] += cellHours;
+            }
+        });
+        for (EntryCreateDTO cell : cells) {
+            if (dailyHours[timesheet.dayIndexOf(cell.getWorkDate())] > 24.0) {
+                throw new RuntimeException("Hours worked on " + cell.getWorkDate() + " cannot exceed 24 hours");
+            }
+        }
     }
 
-    public void rejectTimesheet(Long timesheetId, Long managerId, String comment) {
-        Timesheet timesheet = timesheetRepository.findById(timesheetId)
+    // A cell with 0 hours is an empty cell: its entries are removed and nothing is inserted for it. A stored 0-hour
+    // entry is a project row with no hours yet (copyPreviousWeek with projectsOnly), not an empty cell: a 0-hour cell
+    // leaves it alone and a full-week save keeps it as long as the grid still lists its project. The timesheet row
+    // is locked before the stored entries are read, so two saves of the same week cannot diff against the same state
+    // and both insert a cell; the second waits and then sees what the first wrote.
+    private WeekSaveResultDTO writeCells(Long timesheetId, List<EntryCreateDTO> cells, boolean replaceWeek, Long expectedVersion) {
+        Timesheet timesheet = timesheetRepository.findByIdForUpdate(timesheetId)
             .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
 
-        if (timesheet.getStatus() != TimesheetStatus.SUBMITTED) {
+        if (expectedVersion != null && !expectedVersion.equals(timesheet.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Timesheet.class, timesheetId);
+        }
+
+        if (timesheet.getStatus() != TimesheetStatus.DRAFT) {
+            throw new RuntimeException("Cannot modify timesheet that is not in draft status");
+        }
+
+        Map<CellKey, EntryCreateDTO> desired = new HashMap<>();
+        Set<Long> listedProjectIds = new HashSet<>();
+        for (EntryCreateDTO cell : cells) {
+            timesheetTotalsService.dayIndex(timesheet, cell.getWorkDate());
+            if (desired.put(new CellKey(cell.getProjectId(), cell.getWorkDate()), cell) != null) {
+                throw new IllegalArgumentException("Project " + cell.getProjectId() + " appears more than once on " + cell.getWorkDate());
+            }
+            listedProjectIds.add(cell.getProjectId());
+        }
+        timesheetTotalsService.checkNotArchived(desired.keySet().stream().map(key -> key.workDate).collect(Collectors.toSet()));
+
+        // Match stored entries to cells; a cell keeps the oldest entry for its key, any other entry for the key goes
+        List<TimesheetEntry> kept = new ArrayList<>();
+        List<TimesheetEntry> updated = new ArrayList<>();
+        List<TimesheetEntry> deleted = new ArrayList<>();
+        Map<CellKey, TimesheetEntry> matched = new HashMap<>();
+        for (TimesheetEntry entry : entryRepository.findByTimesheetIdWithProject(timesheetId, timesheet.getWeekStartDate(), timesheet.getWeekEndDate())) {
+            CellKey key = new CellKey(entry.getProject().getId(), entry.getWorkDate());
+            EntryCreateDTO cell = desired.get(key);
+            boolean placeholder = entry.getHoursWorked() == 0.0;
+            if (cell == null && (!replaceWeek || placeholder && listedProjectIds.contains(key.projectId))) {
+                kept.add(entry);
+                continue;
+            }
+            if (cell == null || cell.getHoursWorked() == 0.0 && !placeholder || matched.containsKey(key)) {
+                deleted.add(entry);
+                continue;
+            }
+            matched.put(key, entry);
+            kept.add(entry);
+            if (!cell.getHoursWorked().equals(entry.getHoursWorked()) || !Objects.equals(cell.getTaskDescription(), entry.getTaskDescription())) {
+                updated.add(entry);
+            }
+        }
+
+        List<CellKey> insertedKeys = desired.entrySet().stream()
+            .filter(cell -> !matched.containsKey(cell.getKey()) && cell.getValue().getHoursWorked() > 0.0)
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toList());
+        Set<Long> newProjectIds = insertedKeys.stream().map(key -> key.projectId).collect(Collectors.toSet());
+        Map<Long, Project> projects = newProjectIds.isEmpty() ? new HashMap<>() : projectRepository.findAllById(newProjectIds).stream()
+            .collect(Collectors.toMap(Project::getId, Function.identity()));
+
+        // Deltas per project and day for the rollup, per day for the timesheet; both only see what actually changed
+        Long employeeId = timesheet.getEmployee().getId();
+        Map<CellKey, double[]> rollupDeltas = new HashMap<>();
+        double[] dayDeltas = new double[Timesheet.DAYS_PER_WEEK];
+
+        for (TimesheetEntry entry : deleted) {
+            addDelta(rollupDeltas, dayDeltas, timesheet, entry.getProject().getId(), entry.getWorkDate(), -entry.getHoursWorked(), -1);
+        }
+        for (TimesheetEntry entry : updated) {
+            EntryCreateDTO cell = desired.get(new CellKey(entry.getProject().getId(), entry.getWorkDate()));
+            addDelta(rollupDeltas, dayDeltas, timesheet, entry.getProject().getId(), entry.getWorkDate(), cell.getHoursWorked() - entry.getHoursWorked(), 0);
+            entry.setHoursWorked(cell.getHoursWorked());
+            entry.setTaskDescription(cell.getTaskDescription());
+        }
+
+        List<TimesheetEntry> inserted = new ArrayList<>();
+        for (CellKey key : insertedKeys) {
+            Project project = projects.get(key.projectId);
+            if (project == null) {
+                throw new RuntimeException("Project not found with id: " + key.projectId);
+            }
+            EntryCreateDTO cell = desired.get(key);
+            TimesheetEntry entry = new TimesheetEntry();
+            entry.setTimesheet(timesheet);
+            entry.setProject(project);
+            entry.setWorkDate(cell.getWorkDate());
+            entry.setHoursWorked(cell.getHoursWorked());
+            entry.setTaskDescription(cell.getTaskDescription());
+            inserted.add(entry);
+            addDelta(rollupDeltas, dayDeltas, timesheet, key.projectId, key.workDate, cell.getHoursWorked(), 1);
+        }
+
+        double[] dailyHours = timesheet.getDailyHours();
+        for (int day = 0; day < Timesheet.DAYS_PER_WEEK; day++) {
+            if (dayDeltas[day] > 0 && dailyHours[day] + dayDeltas[day] > 24.0) {
+                throw new RuntimeException("Hours worked on " + timesheet.getWeekStartDate().plusDays(day) + " cannot exceed 24 hours");
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            entryRepository.deleteAllInBatch(deleted);
+        }
+        // Updates are flushed by dirty checking and batched like the inserts
+        entryRepository.saveAll(inserted);
+
+        boolean changed = !inserted.isEmpty() || !updated.isEmpty() || !deleted.isEmpty();
+        if (changed) {
+            timesheetTotalsService.applyDayDeltas(timesheet, dayDeltas);
+            rollupDeltas.forEach((key, delta) -> {
+                if (delta[0] != 0.0 || delta[1] != 0) {
+                    rollupService.applyEntryDelta(employeeId, key.projectId, key.workDate, delta[0], (int) delta[1]);
+                }
+            });
+            reportCacheService.invalidateForTimesheet(employeeId, null, timesheet.getWeekStartDate(), timesheet.getWeekEndDate());
+            deleted.forEach(entry -> analyticsService.removeEntry(entry.getId()));
+            updated.forEach(analyticsService::recordEntry);
+            inserted.forEach(analyticsService::recordEntry);
+        }
+
+        List<TimesheetEntry> result = new ArrayList<>(kept);
+        result.addAll(inserted);
+        result.sort(Comparator.comparing(TimesheetEntry::getWorkDate).thenComparing(TimesheetEntry::getId));
+        return new WeekSaveResultDTO(inserted.size(), updated.size(), deleted.size(), kept.size() - updated.size(),
+            timesheet.getTotalHours(), timesheet.getVersion(), result.stream().map(this::mapToEntryDTO).collect(Collectors.toList()));
+    }
+
+    private void addDelta(Map<CellKey, double[]> rollupDeltas, double[] dayDeltas, Timesheet timesheet,
+                          Long projectId, LocalDate workDate, double hoursDelta, int countDelta) {
+        double[] delta = rollupDeltas.computeIfAbsent(new CellKey(projectId, workDate), key -> new double[2]);
+        delta[0] += hoursDelta;
+        delta[1] += countDelta;
+        // Stored entries outside the week predate the week check and are left to the totals reconciliation
+        int day = timesheet.dayIndexOf(workDate);
+        if (day >= 0) {
+            dayDeltas[day] += hoursDelta;
+        }
+    }
+
+    // Transitions are single conditional updates; the row is only read again to explain a transition that did not happen
+    public void submitTimesheet(Long timesheetId, Long employeeId) {
+        int updated = timesheetRepository.submitIfDraft(timesheetId, employeeId, LocalDateTime.now(), TimesheetStatus.DRAFT, TimesheetStatus.SUBMITTED);
+        if (updated == 0) {
+            Timesheet timesheet = timesheetRepository.findById(timesheetId)
+                .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
+            if (!timesheet.getEmployee().getId().equals(employeeId)) {
+                throw new RuntimeException("You can only submit your own timesheets");
+            }
+            throw new RuntimeException("Only draft timesheets can be submitted");
+        }
+        analyticsService.updateTimesheetStatus(timesheetId, TimesheetStatus.SUBMITTED);
+    }
+
+    public void approveTimesheet(Long timesheetId, Long managerId) {
+        int updated = timesheetRepository.approveIfSubmitted(timesheetId, employeeRepository.getReferenceById(managerId), managerId,
+            LocalDateTime.now(), TimesheetStatus.SUBMITTED, TimesheetStatus.APPROVED);
+        if (updated == 0) {
+            timesheetRepository.findById(timesheetId)
+                .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
+            if (!employeeRepository.existsById(managerId)) {
+                throw new RuntimeException("Manager not found with id: " + managerId);
+            }
+            throw new RuntimeException("Only submitted timesheets can be approved");
+        }
+        analyticsService.updateTimesheetStatus(timesheetId, TimesheetStatus.APPROVED);
+    }
+
+    public void rejectTimesheet(Long timesheetId, Long managerId, String comment) {
+        int updated = timesheetRepository.rejectIfSubmitted(timesheetId, comment, LocalDateTime.now(), TimesheetStatus.SUBMITTED, TimesheetStatus.REJECTED);
+        if (updated == 0) {
+            timesheetRepository.findById(timesheetId)
+                .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
             throw new RuntimeException("Only submitted timesheets can be rejected");
         }
+        analyticsService.updateTimesheetStatus(timesheetId, TimesheetStatus.REJECTED);
+    }
+
+    // Set-based review for a list of timesheets: one locking select, one check of which belong to the manager's direct
+    // reports and one conditional update, whatever the list size. Timesheets of anyone else fail individually.
+    public BulkReviewResultDTO approveTimesheets(List<Long> timesheetIds, Long managerId) {
+        Employee manager = employeeRepository.findById(managerId)
+            .orElseThrow(() -> new RuntimeException("Manager not found with id: " + managerId));
+        return reviewTimesheets(timesheetIds, managerId, TimesheetStatus.APPROVED, (ids, reviewedAt) ->
+            timesheetRepository.approveSubmitted(ids, manager, reviewedAt, TimesheetStatus.APPROVED, TimesheetStatus.SUBMITTED));
+    }
+
+    public BulkReviewResultDTO rejectTimesheets(List<Long> timesheetIds, Long managerId, String comment) {
+        if (comment == null || comment.trim().isEmpty()) {
+            throw new IllegalArgumentException("A comment is required to reject timesheets");
+        }
+        if (!employeeRepository.existsById(managerId)) {
+            throw new RuntimeException("Manager not found with id: " + managerId);
+        }
+        return reviewTimesheets(timesheetIds, managerId, TimesheetStatus.REJECTED, (ids, reviewedAt) ->
+            timesheetRepository.rejectSubmitted(ids, managerId, comment, reviewedAt, TimesheetStatus.REJECTED, TimesheetStatus.SUBMITTED));
+    }
 
-        timesheet.setStatus(TimesheetStatus.REJECTED);
-        timesheet.setRejectionComment(comment);
-        timesheetRepository.save(timesheet);
+    private BulkReviewResultDTO reviewTimesheets(List<Long> timesheetIds, Long managerId, TimesheetStatus targetStatus,
+                                                 BiFunction<Set<Long>, LocalDateTime, Integer> update) {
+        Set<Long> requested = new LinkedHashSet<>(timesheetIds);
+        Map<Long, Timesheet> found = timesheetRepository.findAllByIdForUpdate(requested).stream()
+            .collect(Collectors.toMap(Timesheet::getId, Function.identity()));
+        Set<Long> reviewable = found.isEmpty() ? new HashSet<>() : new HashSet<>(timesheetRepository.findIdsReviewableBy(found.keySet(), managerId));
+
+        Set<Long> submitted = found.values().stream()
+            .filter(timesheet -> reviewable.contains(timesheet.getId()) && timesheet.getStatus() == TimesheetStatus.SUBMITTED)
+            .map(Timesheet::getId)
+            .collect(Collectors.toSet());
+
+        if (!submitted.isEmpty()) {
+            // The rows are locked, so this matches every submitted id read above
+            int updated = update.apply(submitted, LocalDateTime.now());
+            if (updated != submitted.size()) {
+                throw new IllegalStateException("Expected to update " + submitted.size() + " timesheets but updated " + updated);
+            }
+        }
+
+        List<BulkReviewResultDTO.ReviewOutcome> results = new ArrayList<>();
+        for (Long timesheetId : requested) {
+            Timesheet timesheet = found.get(timesheetId);
+            if (timesheet == null) {
+                results.add(new BulkReviewResultDTO.ReviewOutcome(timesheetId, false, null, "Timesheet not found with id: " + timesheetId));
+            } else if (!reviewable.contains(timesheetId)) {
+                results.add(new BulkReviewResultDTO.ReviewOutcome(timesheetId, false, timesheet.getStatus(),
+                    "Only the timesheets of manager " + managerId + "'s direct reports can be " + targetStatus.name().toLowerCase()));
+            } else if (submitted.contains(timesheetId)) {
+                results.add(new BulkReviewResultDTO.ReviewOutcome(timesheetId, true, targetStatus, null));
+                analyticsService.updateTimesheetStatus(timesheetId, targetStatus);
+            } else {
+                results.add(new BulkReviewResultDTO.ReviewOutcome(timesheetId, false, timesheet.getStatus(),
+                    "Only submitted timesheets can be " + targetStatus.name().toLowerCase()));
+            }
+        }
+
+        System.out.println("Bulk review moved " + submitted.size() + " of " + requested.size() + " timesheets to " + targetStatus);
+        return new BulkReviewResultDTO(targetStatus, submitted.size(), requested.size() - submitted.size(), results);
     }
 
-    public List<TimesheetDTO> getEmployeeTimesheets(Long employeeId) {
-        List<Timesheet> timesheets = timesheetRepository.findByEmployeeId(employeeId);
-        return timesheets.stream().map(this::mapToDTO).collect(Collectors.toList());
+    // A page of summaries, a DTO projection without entries; with entries, the timesheets on the page are then loaded with their entries in one more statement
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TimesheetDTO> getEmployeeTimesheetPage(Long employeeId, boolean withEntries, TimesheetStatus status,
+                                                                LocalDate from, LocalDate to, String sort, String direction,
+                                                                String cursor, Integer pageSize, boolean includeTotal) {
+        CursorPageDTO<TimesheetDTO> page = new KeysetQuery<>(entityManager, TimesheetDTO.class, TimesheetRepository.SUMMARY_COLUMNS, TimesheetRepository.SUMMARY_FROM)
+            .where("e.id = :employeeId", "employeeId", employeeId)
+            .where("t.status = :status", "status", status)
+            .where("t.weekStartDate >= :from", "from", from)
+            .where("t.weekStartDate <= :to", "to", to)
+            .page(PAGE_SORTS, sort, direction, cursor, KeysetQuery.resolvePageSize(pageSize, defaultPageSize), includeTotal);
+
+        if (withEntries && !page.getItems().isEmpty()) {
+            List<Long> ids = page.getItems().stream().map(TimesheetDTO::getId).collect(Collectors.toList());
+            Map<Long, Timesheet> details = timesheetRepository.findDetailsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Timesheet::getId, Function.identity()));
+            page.setItems(ids.stream().filter(details::containsKey).map(id -> mapToDTO(details.get(id))).collect(Collectors.toList()));
+        }
+        return page;
     }
 
-    public List<TimesheetDTO> getPendingApprovalsForManager(Long managerId) {
-        List<Timesheet> timesheets = timesheetRepository.findPendingTimesheetsByManagerId(managerId, TimesheetStatus.SUBMITTED);
-        return timesheets.stream().map(this::mapToDTO).collect(Collectors.toList());
+    // Submitted timesheets of the manager's direct reports, a page of summaries at a time
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TimesheetDTO> getPendingApprovalPage(Long managerId, String sort, String direction, String cursor,
+                                                              Integer pageSize, boolean includeTotal) {
+        return new KeysetQuery<>(entityManager, TimesheetDTO.class, TimesheetRepository.SUMMARY_COLUMNS, TimesheetRepository.SUMMARY_FROM)
+            .where("e.manager.id = :managerId", "managerId", managerId)
+            .where("t.status = :status", "status", TimesheetStatus.SUBMITTED)
+            .page(PAGE_SORTS, sort, direction, cursor, KeysetQuery.resolvePageSize(pageSize, defaultPageSize), includeTotal);
     }
 
     public TimesheetDTO getTimesheetById(Long timesheetId) {
-        Timesheet timesheet = timesheetRepository.findById(timesheetId)
+        Timesheet timesheet = timesheetRepository.findDetailById(timesheetId)
             .orElseThrow(() -> new RuntimeException("Timesheet not found with id: " + timesheetId));
         return mapToDTO(timesheet);
     }
 
+    private Timesheet insertTimesheet(Long employeeId, TimesheetCreateDTO dto) {
+        Employee employee = employeeRepository.findById(employeeId)
+            .orElseThrow(() -> new RuntimeException("Employee not found with id: " + employeeId));
+
+        // Check if timesheet already exists for this week
+        if (timesheetRepository.findByEmployeeIdAndWeekStartDate(employeeId, dto.getWeekStartDate()).isPresent()) {
+            throw new RuntimeException("Timesheet already exists for this week");
+        }
+
+        Timesheet timesheet = new Timesheet();
+        timesheet.setEmployee(employee);
+        timesheet.setWeekStartDate(dto.getWeekStartDate());
+        timesheet.setWeekEndDate(dto.getWeekEndDate());
+        timesheet.setStatus(TimesheetStatus.DRAFT);
+
+        // The lookup above only gives the friendly message; two concurrent creates both pass it and the unique
+        // constraint decides, so the flush happens here where the violation can still be reported as such
+        try {
+            return timesheetRepository.saveAndFlush(timesheet);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Timesheet already exists for this week");
+        }
+    }
+
+    // Entry ids have to come from the same pooled sequence Hibernate uses. Each row takes a whole sequence value, which
+    // the pooled optimizer treats as the top of a block of ids no session will hand out, so the two never collide.
+    private String entrySequenceNextValue() {
+        if (entrySequenceNextValue == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            entrySequenceNextValue = dialect.getSelectSequenceNextValString(ENTRY_SEQUENCE);
+        }
+        return entrySequenceNextValue;
+    }
+
     private TimesheetDTO mapToDTO(Timesheet timesheet) {
+        TimesheetDTO dto = mapToSummaryDTO(timesheet);
+        if (timesheet.getEntries() != null) {
+            List<TimesheetEntryDTO> entryDTOs = timesheet.getEntries().stream()
+                .map(this::mapToEntryDTO)
+                .collect(Collectors.toList());
+            dto.setEntries(entryDTOs);
+        }
+        return dto;
+    }
+
+    // Hours come from the denormalized columns, so lists never load the entries collection
+    private TimesheetDTO mapToSummaryDTO(Timesheet timesheet) {
         TimesheetDTO dto = new TimesheetDTO();
         dto.setId(timesheet.getId());
         dto.setEmployeeId(timesheet.getEmployee().getId());
@@ -141,6 +640,7 @@ public class TimesheetService {
         dto.setWeekStartDate(timesheet.getWeekStartDate());
         dto.setWeekEndDate(timesheet.getWeekEndDate());
         dto.setStatus(timesheet.getStatus());
+        dto.setVersion(timesheet.getVersion());
         dto.setRejectionComment(timesheet.getRejectionComment());
         dto.setSubmittedAt(timesheet.getSubmittedAt());
         dto.setApprovedAt(timesheet.getApprovedAt());
@@ -150,15 +650,32 @@ public class TimesheetService {
             dto.setApprovedByName(timesheet.getApprovedBy().getFullName());
         }
 
-        if (timesheet.getEntries() != null) {
-            List<TimesheetEntryDTO> entryDTOs = timesheet.getEntries().stream()
-                .map(this::mapToEntryDTO)
-                .collect(Collectors.toList());
-            dto.setEntries(entryDTOs);
-            dto.setTotalHours(timesheet.getTotalHours());
+        dto.setTotalHours(timesheet.getTotalHours() != null ? timesheet.getTotalHours() : 0.0);
+        dto.setDailyHours(Arrays.stream(timesheet.getDailyHours()).boxed().collect(Collectors.toList()));
+        return dto;
+    }
+
+    private static final class CellKey {
+        private final Long projectId;
+        private final LocalDate workDate;
+
+        CellKey(Long projectId, LocalDate workDate) {
+            this.projectId = projectId;
+            this.workDate = workDate;
         }
 
-        return dto;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey)) return false;
+            CellKey other = (CellKey) o;
+            return projectId.equals(other.projectId) && workDate.equals(other.workDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectId, workDate);
+        }
     }
 
     private TimesheetEntryDTO mapToEntryDTO(TimesheetEntry entry) {
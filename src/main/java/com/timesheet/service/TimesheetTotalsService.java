@@ -0,0 +1,136 @@
+package com.timesheet.service;
+
+import com.timesheet.entity.Timesheet;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.repository.ArchivedEntryPartitionRepository;
+import com.timesheet.repository.TimesheetRepository;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class TimesheetTotalsService {
+
+    private static final int REPAIR_CHUNK_SIZE = 500;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private ArchivedEntryPartitionRepository archivedEntryPartitionRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Called in the same transaction as every entry insert, update and delete
+    public void applyEntryDelta(Timesheet timesheet, LocalDate workDate, double hoursDelta) {
+        double[] dayDeltas = new double[Timesheet.DAYS_PER_WEEK];
+        dayDeltas[dayIndex(timesheet, workDate)] = hoursDelta;
+        applyDayDeltas(timesheet, dayDeltas);
+    }
+
+    // One statement for any number of entries, checked against the version the timesheet was loaded with. The loaded
+    // timesheet is brought in line, new version included, so the caller sees the new totals and a later flush of the
+    // entity in the same transaction does not mistake the bump for a concurrent change.
+    public void applyDayDeltas(Timesheet timesheet, double[] dayDeltas) {
+        long version = timesheet.getVersion();
+        applyDayDeltas(timesheet.getId(), version, dayDeltas);
+        timesheet.addHours(dayDeltas);
+        syncVersion(timesheet, version + 1);
+    }
+
+    // For writers that only hold the id, such as imports; these do not conflict with other writers
+    public void applyDayDeltas(Long timesheetId, double[] dayDeltas) {
+        applyDayDeltas(timesheetId, null, dayDeltas);
+    }
+
+    private void applyDayDeltas(Long timesheetId, Long version, double[] dayDeltas) {
+        double totalDelta = 0.0;
+        for (double delta : dayDeltas) {
+            totalDelta += delta;
+        }
+
+        int updated = timesheetRepository.applyHoursDelta(timesheetId, version, TimesheetStatus.DRAFT, totalDelta,
+            dayDeltas[0], dayDeltas[1], dayDeltas[2], dayDeltas[3], dayDeltas[4], dayDeltas[5], dayDeltas[6]);
+        if (updated == 0) {
+            // Only reached when a concurrent write got in between the caller's checks and this update
+            if (timesheetRepository.findStatusById(timesheetId).orElse(null) != TimesheetStatus.DRAFT) {
+                throw new RuntimeException("Cannot modify timesheet that is not in draft status");
+            }
+            if (version != null && !version.equals(timesheetRepository.findVersionById(timesheetId).orElse(null))) {
+                // Answered with 409; the client reloads the week and applies its edit again
+                throw new ObjectOptimisticLockingFailureException(Timesheet.class, timesheetId);
+            }
+            throw new RuntimeException("Hours worked cannot exceed 24 hours per day");
+        }
+    }
+
+    // The update went around the persistence context; record the new version where Hibernate keeps the loaded one
+    private void syncVersion(Timesheet timesheet, long version) {
+        EntityEntry entry = entityManager.unwrap(SessionImplementor.class).getPersistenceContext().getEntry(timesheet);
+        if (entry == null) {
+            timesheet.setVersion(version);
+            return;
+        }
+        Object[] loadedState = entry.getLoadedState();
+        loadedState[entry.getPersister().getVersionProperty()] = version;
+        entry.postUpdate(timesheet, loadedState, version);
+    }
+
+    public int dayIndex(Timesheet timesheet, LocalDate workDate) {
+        int index = timesheet.dayIndexOf(workDate);
+        if (index < 0) {
+            throw new RuntimeException("Work date " + workDate + " is outside the timesheet week");
+        }
+        return index;
+    }
+
+    // Months before this date have been detached into the archive (EntryPartitionService); a row written there would
+    // land in the default partition, where neither the archive nor the live reports account for it
+    public void checkNotArchived(Collection<LocalDate> workDates) {
+        if (workDates.isEmpty()) {
+            return;
+        }
+        LocalDate liveFrom = archivedEntryPartitionRepository.findLiveEntriesFrom();
+        for (LocalDate workDate : workDates) {
+            if (workDate.isBefore(liveFrom)) {
+                throw new RuntimeException("Work date " + workDate + " is in an archived month; entries before " + liveFrom + " can no longer be changed");
+            }
+        }
+    }
+
+    // Catches anything written around the service (direct SQL, imports, older rows without the per-day columns)
+    @Scheduled(fixedDelayString = "${app.timesheet-totals.reconcile-interval-ms:3600000}",
+               initialDelayString = "${app.timesheet-totals.reconcile-interval-ms:3600000}")
+    public int reconcile() {
+        List<Long> drifted = timesheetRepository.findTimesheetIdsWithDriftedTotals(archivedEntryPartitionRepository.findLiveEntriesFrom()).stream()
+            .map(Number::longValue)
+            .collect(Collectors.toList());
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+
+        // Every entry write updates its timesheet's row in the same transaction. With the rows locked first, a write that
+        // got there earlier has committed before the sums are read, and a later one waits and adds its delta to the
+        // repaired totals; without the lock the update could overwrite a newer total with sums read before that write.
+        for (int from = 0; from < drifted.size(); from += REPAIR_CHUNK_SIZE) {
+            List<Long> chunk = drifted.subList(from, Math.min(from + REPAIR_CHUNK_SIZE, drifted.size()));
+            timesheetRepository.lockForRecompute(chunk);
+            timesheetRepository.recomputeTotals(chunk);
+        }
+        System.out.println("Repaired denormalized hours on " + drifted.size() + " timesheets");
+        return drifted.size();
+    }
+}
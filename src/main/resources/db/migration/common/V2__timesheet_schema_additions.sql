@@ -0,0 +1,54 @@
+-- Everything the entities gained on top of V1 while Hibernate still owned the schema: the pooled entry id sequence,
+-- the denormalized day hours and optimistic lock version on timesheets, one timesheet per employee and week, the
+-- daily hours rollup, stored idempotency keys and the keyset paging indexes. Plain SQL understood by H2 and PostgreSQL.
+
+-- Entry ids come from timesheet_entries_seq, allocated 50 at a time by Hibernate's pooled optimizer. Existing rows got
+-- theirs from the identity column; IdSequenceInitializer moves the sequence past them on startup.
+CREATE SEQUENCE timesheet_entries_seq START WITH 1 INCREMENT BY 50;
+
+-- Null day hours count as drift, so TimesheetTotalsService.reconcile fills them in for existing timesheets
+ALTER TABLE timesheets ADD COLUMN day1_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day2_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day3_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day4_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day5_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day6_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN day7_hours DOUBLE PRECISION;
+ALTER TABLE timesheets ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+
+-- Fails if an employee already has two timesheets for the same week; those have to be merged by hand first
+ALTER TABLE timesheets ADD CONSTRAINT uk_timesheets_employee_week UNIQUE (employee_id, week_start_date);
+
+CREATE INDEX idx_employees_name_id ON employees (last_name, first_name, id);
+CREATE INDEX idx_employees_manager_id ON employees (manager_id, id);
+CREATE INDEX idx_projects_name_id ON projects (project_name, id);
+CREATE INDEX idx_projects_manager_id ON projects (manager_id, id);
+CREATE INDEX idx_timesheet_entries_work_date_id ON timesheet_entries (work_date, id);
+CREATE INDEX idx_timesheet_entries_project_work_date_id ON timesheet_entries (project_id, work_date, id);
+
+-- Starts empty; RollupService.rebuildIfEmpty fills it from the entries on startup
+CREATE TABLE daily_hours_rollups (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    employee_id BIGINT NOT NULL,
+    project_id BIGINT NOT NULL,
+    work_date DATE NOT NULL,
+    total_hours DOUBLE PRECISION NOT NULL,
+    entry_count INTEGER NOT NULL,
+    CONSTRAINT pk_daily_hours_rollups PRIMARY KEY (id),
+    CONSTRAINT uk_daily_hours_rollups_employee_project_date UNIQUE (employee_id, project_id, work_date),
+    CONSTRAINT fk_daily_hours_rollups_employee FOREIGN KEY (employee_id) REFERENCES employees (id),
+    CONSTRAINT fk_daily_hours_rollups_project FOREIGN KEY (project_id) REFERENCES projects (id)
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    completed BOOLEAN NOT NULL,
+    status_code INTEGER,
+    content_type VARCHAR(100),
+    response_body VARCHAR(65536),
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_idempotency_keys PRIMARY KEY (idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,27 @@
+-- Secondary indexes matched to the repository queries. Trailing columns make the hot aggregates index-only scans.
+-- IF NOT EXISTS, so a database that was baselined with some of them already in place still migrates.
+
+-- Timesheets: the (employee_id, week_start_date) unique constraint already serves the per-employee lookups and ranges.
+-- Pending approvals: employees by manager_id, then their timesheets in the requested status
+CREATE INDEX IF NOT EXISTS idx_timesheets_status_employee ON timesheets (status, employee_id);
+-- findRecentTimesheetsByEmployee
+CREATE INDEX IF NOT EXISTS idx_timesheets_employee_updated_at ON timesheets (employee_id, updated_at);
+-- findRecentApprovalsByManager
+CREATE INDEX IF NOT EXISTS idx_timesheets_approved_by_approved_at ON timesheets (approved_by, approved_at);
+-- findTimesheetsByDateRange
+CREATE INDEX IF NOT EXISTS idx_timesheets_week_start_date ON timesheets (week_start_date);
+
+-- Entries by timesheet: loading a week, the totals reconcile, and every per-employee report sum, which reaches the
+-- entries through the employee's timesheets
+CREATE INDEX IF NOT EXISTS idx_timesheet_entries_timesheet_work_date ON timesheet_entries (timesheet_id, work_date, project_id, hours_worked);
+
+-- Entries by project and date: the keyset report pages still seek on (project_id, work_date, id); the trailing columns
+-- cover the project hour sums. Replaces the narrower index of the same leading columns.
+CREATE INDEX IF NOT EXISTS idx_timesheet_entries_project_work_date_cover ON timesheet_entries (project_id, work_date, id, timesheet_id, hours_worked);
+DROP INDEX IF EXISTS idx_timesheet_entries_project_work_date_id;
+
+-- Rollups: the unique constraint leads with (employee_id, project_id), which does not serve date ranges per employee
+CREATE INDEX IF NOT EXISTS idx_daily_hours_rollups_employee_date ON daily_hours_rollups (employee_id, work_date, project_id, total_hours, entry_count);
+CREATE INDEX IF NOT EXISTS idx_daily_hours_rollups_project_date ON daily_hours_rollups (project_id, work_date, employee_id, total_hours, entry_count);
+-- Organization-wide series and breakdowns
+CREATE INDEX IF NOT EXISTS idx_daily_hours_rollups_work_date ON daily_hours_rollups (work_date);
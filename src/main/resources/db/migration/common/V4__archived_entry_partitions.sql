@@ -0,0 +1,10 @@
+-- Catalog of the monthly timesheet_entries partitions moved out of the live table (PostgreSQL only, see V5).
+-- Empty on H2. Hours of an archived month stay in daily_hours_rollups and the timesheet totals; only the entry rows leave.
+CREATE TABLE archived_entry_partitions (
+    partition_name VARCHAR(63) NOT NULL,
+    range_start DATE NOT NULL,
+    range_end DATE NOT NULL,
+    row_count BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    CONSTRAINT pk_archived_entry_partitions PRIMARY KEY (partition_name)
+);
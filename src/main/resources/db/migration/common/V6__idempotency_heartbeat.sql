@@ -0,0 +1,5 @@
+-- Liveness of an idempotency claim, kept apart from created_at: running requests refresh heartbeat_at so their claims
+-- are not taken for abandoned ones, while the replay TTL keeps counting from created_at. Plain SQL for H2 and PostgreSQL.
+ALTER TABLE idempotency_keys ADD COLUMN heartbeat_at TIMESTAMP;
+UPDATE idempotency_keys SET heartbeat_at = created_at;
+ALTER TABLE idempotency_keys ALTER COLUMN heartbeat_at SET NOT NULL;
@@ -0,0 +1,67 @@
+-- The schema exactly as Hibernate's ddl-auto: update created it from the original entities (H2Dialect), generated
+-- constraint names included. Databases created that way have no history table and are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so every later change has to be a migration of its own.
+
+CREATE TABLE employees (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at TIMESTAMP NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    updated_at TIMESTAMP,
+    manager_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE projects (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at TIMESTAMP NOT NULL,
+    description VARCHAR(255),
+    end_date DATE,
+    is_active BOOLEAN NOT NULL,
+    project_code VARCHAR(255) NOT NULL,
+    project_name VARCHAR(255) NOT NULL,
+    start_date DATE,
+    updated_at TIMESTAMP,
+    manager_id BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE timesheet_entries (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at TIMESTAMP NOT NULL,
+    hours_worked DOUBLE NOT NULL,
+    task_description VARCHAR(500),
+    updated_at TIMESTAMP,
+    work_date DATE NOT NULL,
+    project_id BIGINT NOT NULL,
+    timesheet_id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE timesheets (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    approved_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    rejection_comment VARCHAR(255),
+    status VARCHAR(255) NOT NULL,
+    submitted_at TIMESTAMP,
+    total_hours DOUBLE,
+    updated_at TIMESTAMP,
+    week_end_date DATE NOT NULL,
+    week_start_date DATE NOT NULL,
+    approved_by BIGINT,
+    employee_id BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE employees ADD CONSTRAINT UK_j9xgmd0ya5jmus09o0b8pqrpb UNIQUE (email);
+ALTER TABLE projects ADD CONSTRAINT UK_1batb7mq0elcfcs3d6maqo6sg UNIQUE (project_code);
+ALTER TABLE employees ADD CONSTRAINT FKi4365uo9af35g7jtbc2rteukt FOREIGN KEY (manager_id) REFERENCES employees;
+ALTER TABLE projects ADD CONSTRAINT FKsg57tut2cx77vmci14sy4vbsu FOREIGN KEY (manager_id) REFERENCES employees;
+ALTER TABLE timesheet_entries ADD CONSTRAINT FK9b4mie5i1xq36af6a87iucp5t FOREIGN KEY (project_id) REFERENCES projects;
+ALTER TABLE timesheet_entries ADD CONSTRAINT FKpg9lqdjkngi7yvbx3s287nl6k FOREIGN KEY (timesheet_id) REFERENCES timesheets;
+ALTER TABLE timesheets ADD CONSTRAINT FKtj5il9gunb73x66obronrr75n FOREIGN KEY (approved_by) REFERENCES employees;
+ALTER TABLE timesheets ADD CONSTRAINT FK2hwwbmujjb8y8qqkrxx9yog38 FOREIGN KEY (employee_id) REFERENCES employees;
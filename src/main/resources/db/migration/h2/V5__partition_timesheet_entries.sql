@@ -0,0 +1,3 @@
+-- timesheet_entries is range-partitioned by month on PostgreSQL only (postgresql/V5). H2 keeps the plain table,
+-- so this version intentionally changes nothing.
+SELECT 1;
@@ -0,0 +1,71 @@
+-- Range-partitions timesheet_entries by month of work_date, so date-bounded queries only read the months they cover
+-- and old months can be detached whole. Partitions are named timesheet_entries_yYYYYmMM; rows outside every monthly
+-- partition land in timesheet_entries_default. EntryPartitionService keeps the coming months created and moves
+-- rows out of the default partition. A partitioned table's primary key has to include the partition column, so it
+-- becomes (id, work_date); ids stay unique through timesheet_entries_seq.
+--
+-- Maintenance window: every existing entry is copied into the new table in this migration's one transaction, and entry
+-- writers are locked out from the start of the copy until it commits. Stop every application instance but the one
+-- running the migration, and allow for the copy plus the three index builds at the end, with free disk and WAL room
+-- for a second copy of the table and its indexes; 2 million entries took 16 seconds on a single-core test server, so
+-- hundreds of millions take the better part of an hour or more. A failure rolls everything back and leaves the old
+-- table as it was. To keep a large table from being copied by whichever instance happens to start first, the migration
+-- stops with an error above the entryPartitionCopyMaxRows placeholder (ENTRY_PARTITION_COPY_MAX_ROWS); raise it for
+-- the instance started inside the window.
+
+DO $$
+BEGIN
+    IF (SELECT COUNT(*) FROM (SELECT 1 FROM timesheet_entries LIMIT ${entryPartitionCopyMaxRows} + 1) AS sample) > ${entryPartitionCopyMaxRows} THEN
+        RAISE EXCEPTION 'timesheet_entries has more than ${entryPartitionCopyMaxRows} rows; partitioning it needs a maintenance window, '
+            'see V5__partition_timesheet_entries.sql, then raise ENTRY_PARTITION_COPY_MAX_ROWS for that run';
+    END IF;
+END $$;
+
+-- Writers block here until the copy commits instead of adding rows the copy would miss
+LOCK TABLE timesheet_entries IN EXCLUSIVE MODE;
+
+CREATE SCHEMA IF NOT EXISTS timesheet_archive;
+
+CREATE TABLE timesheet_entries_partitioned (
+    id BIGINT NOT NULL,
+    timesheet_id BIGINT NOT NULL,
+    project_id BIGINT NOT NULL,
+    work_date DATE NOT NULL,
+    hours_worked DOUBLE PRECISION NOT NULL,
+    task_description VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+) PARTITION BY RANGE (work_date);
+
+CREATE TABLE timesheet_entries_default PARTITION OF timesheet_entries_partitioned DEFAULT;
+
+-- One partition per month from the oldest entry through three months ahead
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := CAST(DATE_TRUNC('month', CURRENT_DATE) + INTERVAL '3 months' AS DATE);
+BEGIN
+    SELECT COALESCE(CAST(DATE_TRUNC('month', MIN(work_date)) AS DATE), CAST(DATE_TRUNC('month', CURRENT_DATE) AS DATE))
+      INTO month_start FROM timesheet_entries;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF timesheet_entries_partitioned FOR VALUES FROM (%L) TO (%L)',
+                       'timesheet_entries_' || to_char(month_start, '"y"YYYY"m"MM'),
+                       month_start, CAST(month_start + INTERVAL '1 month' AS DATE));
+        month_start := CAST(month_start + INTERVAL '1 month' AS DATE);
+    END LOOP;
+END $$;
+
+INSERT INTO timesheet_entries_partitioned (id, timesheet_id, project_id, work_date, hours_worked, task_description, created_at, updated_at)
+SELECT id, timesheet_id, project_id, work_date, hours_worked, task_description, created_at, updated_at FROM timesheet_entries;
+
+DROP TABLE timesheet_entries;
+ALTER TABLE timesheet_entries_partitioned RENAME TO timesheet_entries;
+
+-- Constraints and indexes are declared once on the parent and created on every partition, including later ones
+ALTER TABLE timesheet_entries ADD CONSTRAINT pk_timesheet_entries PRIMARY KEY (id, work_date);
+ALTER TABLE timesheet_entries ADD CONSTRAINT fk_timesheet_entries_timesheet FOREIGN KEY (timesheet_id) REFERENCES timesheets (id);
+ALTER TABLE timesheet_entries ADD CONSTRAINT fk_timesheet_entries_project FOREIGN KEY (project_id) REFERENCES projects (id);
+
+CREATE INDEX idx_timesheet_entries_work_date_id ON timesheet_entries (work_date, id);
+CREATE INDEX idx_timesheet_entries_project_work_date_cover ON timesheet_entries (project_id, work_date, id, timesheet_id, hours_worked);
+CREATE INDEX idx_timesheet_entries_timesheet_work_date ON timesheet_entries (timesheet_id, work_date, project_id, hours_worked);
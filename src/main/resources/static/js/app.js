@@ -3,6 +3,7 @@ let currentUser = null;
 let currentTimesheet = null;
 let projects = [];
 let employees = [];
+let currentReportQuery = null;
 
 // API Base URL
 const API_BASE = '/timesheet/api';
@@ -278,26 +279,42 @@ async function loadDashboardData() {
 }
 
 async function loadWeeklyHours() {
-    // This would calculate current week hours for the employee
-    document.getElementById('weekHours').textContent = '40.0';
+    try {
+        // One weekly bucket for the current Monday-Sunday week
+        const today = new Date();
+        const monday = new Date(today);
+        monday.setDate(today.getDate() - ((today.getDay() + 6) % 7));
+        const sunday = new Date(monday);
+        sunday.setDate(monday.getDate() + 6);
+        const startDate = toLocalIsoDate(monday);
+        const endDate = toLocalIsoDate(sunday);
+
+        const response = await fetch(`${API_BASE}/reports/employee/${currentUser.id}/series?startDate=${startDate}&endDate=${endDate}&granularity=WEEK`);
+        if (response.ok) {
+            const series = await response.json();
+            document.getElementById('weekHours').textContent = (series.totalHours || 0).toFixed(1);
+        }
+    } catch (error) {
+        console.error('Error loading weekly hours:', error);
+    }
 }
 
 async function loadPendingCounts() {
     try {
         if (currentUser.role === 'EMPLOYEE') {
             // Load employee's timesheets
-            const response = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}`);
+            // Only the count is needed, so the page itself is a single row
+            const response = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}?status=DRAFT&pageSize=1&includeTotal=true`);
             if (response.ok) {
-                const timesheets = await response.json();
-                const pending = timesheets.filter(t => t.status === 'DRAFT').length;
-                document.getElementById('pendingSubmissions').textContent = pending;
+                const page = await response.json();
+                document.getElementById('pendingSubmissions').textContent = page.totalCount;
             }
         } else if (currentUser.role === 'MANAGER' || currentUser.role === 'ADMIN') {
             // Load manager's pending approvals
-            const response = await fetch(`${API_BASE}/timesheets/pending-approvals?managerId=${currentUser.id}`);
+            const response = await fetch(`${API_BASE}/timesheets/pending-approvals?managerId=${currentUser.id}&pageSize=1&includeTotal=true`);
             if (response.ok) {
-                const approvals = await response.json();
-                document.getElementById('pendingApprovals').textContent = approvals.length;
+                const page = await response.json();
+                document.getElementById('pendingApprovals').textContent = page.totalCount;
             }
         }
     } catch (error) {
@@ -307,12 +324,9 @@ async function loadPendingCounts() {
 
 async function loadActiveProjectsCount() {
     try {
-        const response = await fetch(`${API_BASE}/projects/active`);
-        if (response.ok) {
-            const activeProjects = await response.json();
-            document.getElementById('activeProjects').textContent = activeProjects.length;
-            projects = activeProjects; // Cache for later use
-        }
+        const activeProjects = await fetchAllPages(`${API_BASE}/projects/active`);
+        document.getElementById('activeProjects').textContent = activeProjects.length;
+        projects = activeProjects; // Cache for later use
     } catch (error) {
         console.error('Error loading projects:', error);
     }
@@ -405,10 +419,11 @@ async function loadTimesheets() {
     showLoading(true);
 
     try {
-        const response = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}`);
+        // Newest week first, one page at a time
+        const response = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}?sort=week&direction=desc`);
         if (response.ok) {
-            const timesheets = await response.json();
-            displayTimesheets(timesheets);
+            const page = await response.json();
+            displayTimesheets(page.items, page.nextCursor);
         } else {
             showToast('Failed to load timesheets', 'error');
         }
@@ -420,7 +435,7 @@ async function loadTimesheets() {
     showLoading(false);
 }
 
-function displayTimesheets(timesheets) {
+function displayTimesheets(timesheets, nextCursor) {
     const container = document.getElementById('timesheetList');
 
     if (timesheets.length === 0) {
@@ -436,7 +451,17 @@ function displayTimesheets(timesheets) {
         return;
     }
 
-    container.innerHTML = timesheets.map(timesheet => `
+    container.innerHTML = `
+        <div id="timesheetItems">${renderTimesheetItems(timesheets)}</div>
+        <div style="text-align: center; margin-top: 12px;">
+            <button class="btn btn-secondary" id="loadMoreTimesheetsBtn" data-cursor="${nextCursor || ''}"
+                    style="display: ${nextCursor ? 'inline-block' : 'none'};" onclick="loadMoreTimesheets()">Load more</button>
+        </div>
+    `;
+}
+
+function renderTimesheetItems(timesheets) {
+    return timesheets.map(timesheet => `
         <div class="timesheet-item">
             <div class="timesheet-info">
                 <h4>Week of ${formatDate(timesheet.weekStartDate)} - ${formatDate(timesheet.weekEndDate)}</h4>
@@ -455,6 +480,34 @@ function displayTimesheets(timesheets) {
     `).join('');
 }
 
+// Each further page of timesheets is fetched with the cursor of the previous one
+async function loadMoreTimesheets() {
+    const button = document.getElementById('loadMoreTimesheetsBtn');
+    const cursor = button ? button.dataset.cursor : '';
+    if (!cursor) {
+        return;
+    }
+
+    button.disabled = true;
+
+    try {
+        const response = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}?sort=week&direction=desc&cursor=${encodeURIComponent(cursor)}`);
+        if (response.ok) {
+            const page = await response.json();
+            document.getElementById('timesheetItems').insertAdjacentHTML('beforeend', renderTimesheetItems(page.items));
+            button.dataset.cursor = page.nextCursor || '';
+            button.style.display = page.nextCursor ? 'inline-block' : 'none';
+        } else {
+            showToast('Failed to load more timesheets', 'error');
+        }
+    } catch (error) {
+        console.error('Error loading timesheets:', error);
+        showToast('Failed to load more timesheets', 'error');
+    }
+
+    button.disabled = false;
+}
+
 // Timesheet Creation and Management
 function showCreateTimesheetModal() {
     document.getElementById('createTimesheetModal').classList.add('active');
@@ -462,17 +515,18 @@ function showCreateTimesheetModal() {
     // Set default week start date to current Monday
     const today = new Date();
     const monday = new Date(today.setDate(today.getDate() - today.getDay() + 1));
-    document.getElementById('weekStartDate').value = monday.toISOString().split('T')[0];
+    document.getElementById('weekStartDate').value = toLocalIsoDate(monday);
     calculateWeekEndDate();
 }
 
 function calculateWeekEndDate() {
     const startDate = document.getElementById('weekStartDate').value;
     if (startDate) {
-        const start = new Date(startDate);
+        // A bare yyyy-mm-dd parses as UTC midnight; add a time so it is read as local midnight
+        const start = new Date(startDate + 'T00:00:00');
         const end = new Date(start);
         end.setDate(start.getDate() + 6);
-        document.getElementById('weekEndDate').value = end.toISOString().split('T')[0];
+        document.getElementById('weekEndDate').value = toLocalIsoDate(end);
     }
 }
 
@@ -657,13 +711,8 @@ async function loadProjects() {
     showLoading(true);
 
     try {
-        const response = await fetch(`${API_BASE}/projects`);
-        if (response.ok) {
-            const allProjects = await response.json();
-            displayProjects(allProjects);
-        } else {
-            showToast('Failed to load projects', 'error');
-        }
+        const allProjects = await fetchAllPages(`${API_BASE}/projects`);
+        displayProjects(allProjects);
     } catch (error) {
         console.error('Error loading projects:', error);
         showToast('Failed to load projects', 'error');
@@ -720,13 +769,8 @@ async function loadPendingApprovals() {
     showLoading(true);
 
     try {
-        const response = await fetch(`${API_BASE}/timesheets/pending-approvals?managerId=${currentUser.id}`);
-        if (response.ok) {
-            const approvals = await response.json();
-            displayPendingApprovals(approvals);
-        } else {
-            showToast('Failed to load pending approvals', 'error');
-        }
+        const approvals = await fetchAllPages(`${API_BASE}/timesheets/pending-approvals?managerId=${currentUser.id}`);
+        displayPendingApprovals(approvals);
     } catch (error) {
         console.error('Error loading approvals:', error);
         showToast('Failed to load pending approvals', 'error');
@@ -840,13 +884,8 @@ async function loadEmployees() {
     showLoading(true);
 
     try {
-        const response = await fetch(`${API_BASE}/employees`);
-        if (response.ok) {
-            const allEmployees = await response.json();
-            displayEmployees(allEmployees);
-        } else {
-            showToast('Failed to load employees', 'error');
-        }
+        const allEmployees = await fetchAllPages(`${API_BASE}/employees`);
+        displayEmployees(allEmployees);
     } catch (error) {
         console.error('Error loading employees:', error);
         showToast('Failed to load employees', 'error');
@@ -913,15 +952,15 @@ function showCreateEmployeeModal() {
 
 async function loadManagersForDropdown(selectId) {
     try {
-        const response = await fetch(`${API_BASE}/employees`);
-        if (response.ok) {
-            const allEmployees = await response.json();
-            const managers = allEmployees.filter(emp => emp.role === 'MANAGER' || emp.role === 'ADMIN');
+        const [managerList, adminList] = await Promise.all([
+            fetchAllPages(`${API_BASE}/employees/role/MANAGER`),
+            fetchAllPages(`${API_BASE}/employees/role/ADMIN`)
+        ]);
+        const managers = managerList.concat(adminList);
 
-            const select = document.getElementById(selectId);
-            select.innerHTML = '<option value="">Select Manager (Optional)</option>' +
-                managers.map(manager => `<option value="${manager.id}">${manager.fullName}</option>`).join('');
-        }
+        const select = document.getElementById(selectId);
+        select.innerHTML = '<option value="">Select Manager (Optional)</option>' +
+            managers.map(manager => `<option value="${manager.id}">${manager.fullName}</option>`).join('');
     } catch (error) {
         console.error('Error loading managers:', error);
     }
@@ -1112,6 +1151,7 @@ async function generateReport() {
         if (response.ok) {
             const reportData = await response.json();
             console.log('Report data received:', reportData);
+            currentReportQuery = { reportType, entityId, startDate, endDate };
             displayReportResults(reportData, reportType);
             showToast('Report generated successfully!', 'success');
         } else {
@@ -1143,7 +1183,7 @@ function displayReportResults(reportData, reportType) {
                 </div>
                 <div class="card">
                     <div class="card-body" style="text-align: center;">
-                        <div class="stat-number text-info">${reportData.entries ? reportData.entries.length : 0}</div>
+                        <div class="stat-number text-info">${reportData.totalEntries != null ? reportData.totalEntries : (reportData.entries ? reportData.entries.length : 0)}</div>
                         <div class="stat-label">Time Entries</div>
                     </div>
                 </div>
@@ -1181,23 +1221,60 @@ function displayReportResults(reportData, reportType) {
                                 <th>Description</th>
                             </tr>
                         </thead>
-                        <tbody>
-                            ${reportData.entries.map(entry => `
-                                <tr>
-                                    <td>${formatDate(entry.workDate)}</td>
-                                    <td>${reportType === 'employee' ? entry.projectName : entry.employeeName}</td>
-                                    <td><span class="entry-hours">${entry.hoursWorked}h</span></td>
-                                    <td>${entry.taskDescription || 'N/A'}</td>
-                                </tr>
-                            `).join('')}
+                        <tbody id="reportEntriesBody">
+                            ${renderReportEntryRows(reportData.entries, reportType)}
                         </tbody>
                     </table>
+                    <div style="text-align: center; margin-top: 12px;">
+                        <button class="btn btn-secondary" id="loadMoreEntriesBtn" data-cursor="${reportData.nextCursor || ''}"
+                                style="display: ${reportData.nextCursor ? 'inline-block' : 'none'};" onclick="loadMoreReportEntries()">Load more</button>
+                    </div>
                 </div>
             ` : '<p style="text-align: center; color: #666; padding: 20px;">No time entries found for the selected criteria.</p>'}
         </div>
     `;
 }
 
+function renderReportEntryRows(entries, reportType) {
+    return entries.map(entry => `
+        <tr>
+            <td>${formatDate(entry.workDate)}</td>
+            <td>${reportType === 'employee' ? entry.projectName : entry.employeeName}</td>
+            <td><span class="entry-hours">${entry.hoursWorked}h</span></td>
+            <td>${entry.taskDescription || 'N/A'}</td>
+        </tr>
+    `).join('');
+}
+
+// Reports carry only the first page of entries; each further page is fetched with the cursor of the previous one
+async function loadMoreReportEntries() {
+    const button = document.getElementById('loadMoreEntriesBtn');
+    const cursor = button ? button.dataset.cursor : '';
+    if (!currentReportQuery || !cursor) {
+        return;
+    }
+
+    const { reportType, entityId, startDate, endDate } = currentReportQuery;
+    button.disabled = true;
+
+    try {
+        const response = await fetch(`${API_BASE}/reports/${reportType}/${entityId}/entries?startDate=${startDate}&endDate=${endDate}&cursor=${encodeURIComponent(cursor)}`);
+        if (response.ok) {
+            const page = await response.json();
+            document.getElementById('reportEntriesBody').insertAdjacentHTML('beforeend', renderReportEntryRows(page.entries, reportType));
+            button.dataset.cursor = page.nextCursor || '';
+            button.style.display = page.nextCursor ? 'inline-block' : 'none';
+        } else {
+            showToast('Failed to load more entries', 'error');
+        }
+    } catch (error) {
+        console.error('Error loading report entries:', error);
+        showToast('Failed to load more entries', 'error');
+    }
+
+    button.disabled = false;
+}
+
 async function exportReport() {
     const reportType = document.getElementById('reportType').value;
     const startDate = document.getElementById('startDate').value;
@@ -1273,8 +1350,8 @@ async function testReportEndpoint() {
     // Test with a simple date range
     const today = new Date();
     const lastMonth = new Date(today.getFullYear(), today.getMonth() - 1, 1);
-    const startDate = lastMonth.toISOString().split('T')[0];
-    const endDate = today.toISOString().split('T')[0];
+    const startDate = toLocalIsoDate(lastMonth);
+    const endDate = toLocalIsoDate(today);
 
     // First, let's check if we have any employees
     try {
@@ -1282,8 +1359,8 @@ async function testReportEndpoint() {
         console.log('Employees endpoint status:', employeesResponse.status);
 
         if (employeesResponse.ok) {
-            const employees = await employeesResponse.json();
-            console.log('Available employees:', employees);
+            const employees = (await employeesResponse.json()).items;
+            console.log('Available employees (first page):', employees);
 
             if (employees.length > 0) {
                 // Test with the first employee
@@ -1333,16 +1410,16 @@ async function checkAvailableData() {
         // Check employees
         const employeesResponse = await fetch(`${API_BASE}/employees`);
         if (employeesResponse.ok) {
-            const employees = await employeesResponse.json();
-            console.log('Employees count:', employees.length);
+            const employees = (await employeesResponse.json()).items;
+            console.log('Employees on the first page:', employees.length);
             console.log('Employees:', employees);
         }
 
         // Check projects
         const projectsResponse = await fetch(`${API_BASE}/projects`);
         if (projectsResponse.ok) {
-            const projects = await projectsResponse.json();
-            console.log('Projects count:', projects.length);
+            const projects = (await projectsResponse.json()).items;
+            console.log('Projects on the first page:', projects.length);
             console.log('Projects:', projects);
         }
 
@@ -1350,8 +1427,8 @@ async function checkAvailableData() {
         if (currentUser) {
             const timesheetsResponse = await fetch(`${API_BASE}/timesheets/employee/${currentUser.id}`);
             if (timesheetsResponse.ok) {
-                const timesheets = await timesheetsResponse.json();
-                console.log('Timesheets count:', timesheets.length);
+                const timesheets = (await timesheetsResponse.json()).items;
+                console.log('Timesheets on the first page:', timesheets.length);
                 console.log('Timesheets:', timesheets);
 
                 // Check timesheet entries
@@ -1375,6 +1452,23 @@ async function checkAvailableData() {
 }
 
 // Utility Functions
+
+// List endpoints answer one keyset page at a time ({items, nextCursor}); pickers that need every row follow the cursors
+async function fetchAllPages(url) {
+    const separator = url.includes('?') ? '&' : '?';
+    const items = [];
+    let cursor = null;
+    do {
+        const response = await fetch(`${url}${separator}pageSize=500${cursor ? '&cursor=' + encodeURIComponent(cursor) : ''}`);
+        if (!response.ok) {
+            throw new Error(`Request to ${url} failed with status ${response.status}`);
+        }
+        const page = await response.json();
+        items.push(...page.items);
+        cursor = page.nextCursor;
+    } while (cursor);
+    return items;
+}
 function showLoading(show) {
     const spinner = document.getElementById('loadingSpinner');
     if (show) {
@@ -1426,6 +1520,13 @@ function formatDate(dateString) {
     });
 }
 
+// yyyy-mm-dd of the local calendar day; toISOString() converts to UTC first and can land on the day before or after
+function toLocalIsoDate(date) {
+    const month = String(date.getMonth() + 1).padStart(2, '0');
+    const day = String(date.getDate()).padStart(2, '0');
+    return `${date.getFullYear()}-${month}-${day}`;
+}
+
 function formatDateTime(dateTimeString) {
     if (!dateTimeString) return '';
     const date = new Date(dateTimeString);
@@ -1448,27 +1549,22 @@ window.addEventListener('click', function(event) {
 // Additional functions for features
 async function loadReportData() {
     try {
-        const [employeesResponse, projectsResponse] = await Promise.all([
-            fetch(`${API_BASE}/employees`),
-            fetch(`${API_BASE}/projects`)
+        const [employeeList, projectsList] = await Promise.all([
+            fetchAllPages(`${API_BASE}/employees`),
+            fetchAllPages(`${API_BASE}/projects`)
         ]);
 
-        if (employeesResponse.ok) {
-            employees = await employeesResponse.json();
-            const employeeSelect = document.getElementById('reportEmployee');
-            if (employeeSelect) {
-                employeeSelect.innerHTML = '<option value="">Select Employee</option>' +
-                    employees.map(emp => `<option value="${emp.id}">${emp.fullName}</option>`).join('');
-            }
+        employees = employeeList;
+        const employeeSelect = document.getElementById('reportEmployee');
+        if (employeeSelect) {
+            employeeSelect.innerHTML = '<option value="">Select Employee</option>' +
+                employees.map(emp => `<option value="${emp.id}">${emp.fullName}</option>`).join('');
         }
 
-        if (projectsResponse.ok) {
-            const projectsList = await projectsResponse.json();
-            const projectSelect = document.getElementById('reportProject');
-            if (projectSelect) {
-                projectSelect.innerHTML = '<option value="">Select Project</option>' +
-                    projectsList.map(proj => `<option value="${proj.id}">${proj.projectCode} - ${proj.projectName}</option>`).join('');
-            }
+        const projectSelect = document.getElementById('reportProject');
+        if (projectSelect) {
+            projectSelect.innerHTML = '<option value="">Select Project</option>' +
+                projectsList.map(proj => `<option value="${proj.id}">${proj.projectCode} - ${proj.projectName}</option>`).join('');
         }
     } catch (error) {
         console.error('Error loading report data:', error);
@@ -0,0 +1,229 @@
+package com.timesheet.benchmark;
+
+import com.timesheet.dto.PivotResultDTO;
+import com.timesheet.entity.Employee;
+import com.timesheet.entity.Project;
+import com.timesheet.entity.Timesheet;
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.enums.PivotDimension;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.service.AnalyticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// One pivot answered by the analytics columns and by the GROUP BY over timesheet_entries it stands in for, on the
+// same entries in an in-memory H2 database. Each shape is a row and column dimension plus filters; the GROUP BY
+// mirrors the pivot's grouping, including the recursive team lookup behind the manager filter.
+//
+// mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+// java -cp target/test-classes:target/classes:$(cat target/test.classpath) com.timesheet.benchmark.AnalyticsPivotBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsPivotBenchmark {
+
+    // Seven days on five projects per weekly timesheet
+    private static final int ENTRIES_PER_TIMESHEET = 35;
+    private static final int EMPLOYEES = 500;
+    private static final int PROJECTS = 5;
+    // Employee n reports to n / 5, so manager 2 has a team three levels deep
+    private static final int SPAN = 5;
+    private static final long TEAM_MANAGER = 2L;
+    private static final LocalDate FIRST_WEEK = LocalDate.of(2020, 1, 6);
+
+    private static final String ENTRIES = " FROM timesheet_entries te JOIN timesheets ts ON ts.id = te.timesheet_id";
+    private static final String IN_RANGE = " WHERE te.work_date BETWEEN ? AND ?";
+
+    private static final String TEAM =
+        "WITH RECURSIVE team(id) AS (" +
+        "  SELECT id FROM employees WHERE manager_id = " + TEAM_MANAGER +
+        "  UNION" +
+        "  SELECT e.id FROM employees e JOIN team ON e.manager_id = team.id" +
+        ") ";
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    @Param({"EMPLOYEE_BY_MONTH", "PROJECT_BY_STATUS", "TEAM_BY_WEEK"})
+    private String shape;
+
+    private AnalyticsService analyticsService;
+    private Connection connection;
+    private PreparedStatement groupBy;
+    private PivotDimension rowDimension;
+    private PivotDimension columnDimension;
+    private Long managerId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void load() throws SQLException {
+        analyticsService = new AnalyticsService();
+        ReflectionTestUtils.setField(analyticsService, "enabled", true);
+        ReflectionTestUtils.setField(analyticsService, "parallelThreshold", 100_000);
+
+        // Without OPTIMIZE_REUSE_RESULTS=FALSE H2 answers a repeated query on unchanged tables from its last result
+        connection = DriverManager.getConnection("jdbc:h2:mem:pivot-" + rows + "-" + shape + ";OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE employees (id BIGINT PRIMARY KEY, first_name VARCHAR(50), last_name VARCHAR(50), manager_id BIGINT)");
+            statement.execute("CREATE TABLE timesheets (id BIGINT PRIMARY KEY, employee_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL)");
+            statement.execute("CREATE TABLE timesheet_entries (id BIGINT PRIMARY KEY, timesheet_id BIGINT NOT NULL, project_id BIGINT NOT NULL, " +
+                "work_date DATE NOT NULL, hours_worked DOUBLE PRECISION NOT NULL)");
+            statement.execute("CREATE INDEX idx_entries_work_date ON timesheet_entries (work_date)");
+            statement.execute("CREATE INDEX idx_employees_manager ON employees (manager_id)");
+        }
+
+        Employee[] employees = new Employee[EMPLOYEES];
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO employees VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < EMPLOYEES; i++) {
+                long id = i + 1;
+                employees[i] = new Employee();
+                employees[i].setId(id);
+                employees[i].setFirstName("Employee");
+                employees[i].setLastName(String.valueOf(id));
+                Long manager = id >= SPAN ? id / SPAN : null;
+                if (manager != null) {
+                    employees[i].setManager(employees[(int) (manager - 1)]);
+                }
+                insert.setLong(1, id);
+                insert.setString(2, "Employee");
+                insert.setString(3, String.valueOf(id));
+                insert.setObject(4, manager);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        Project[] projects = new Project[PROJECTS];
+        for (int i = 0; i < PROJECTS; i++) {
+            projects[i] = new Project();
+            projects[i].setId((long) i + 1);
+            projects[i].setProjectName("Project " + (i + 1));
+        }
+
+        int timesheets = rows / ENTRIES_PER_TIMESHEET;
+        TimesheetStatus[] statuses = TimesheetStatus.values();
+        long entryId = 1;
+        try (PreparedStatement insertTimesheet = connection.prepareStatement("INSERT INTO timesheets VALUES (?, ?, ?)");
+             PreparedStatement insertEntry = connection.prepareStatement("INSERT INTO timesheet_entries VALUES (?, ?, ?, ?, ?)")) {
+            for (int t = 0; t < timesheets; t++) {
+                Timesheet timesheet = new Timesheet();
+                timesheet.setId((long) t + 1);
+                timesheet.setEmployee(employees[t % EMPLOYEES]);
+                timesheet.setStatus(statuses[t % statuses.length]);
+                insertTimesheet.setLong(1, timesheet.getId());
+                insertTimesheet.setLong(2, timesheet.getEmployee().getId());
+                insertTimesheet.setString(3, timesheet.getStatus().name());
+                insertTimesheet.addBatch();
+
+                LocalDate weekStart = FIRST_WEEK.plusWeeks(t / EMPLOYEES);
+                for (int day = 0; day < 7; day++) {
+                    for (Project project : projects) {
+                        TimesheetEntry entry = new TimesheetEntry();
+                        entry.setId(entryId++);
+                        entry.setTimesheet(timesheet);
+                        entry.setProject(project);
+                        entry.setWorkDate(weekStart.plusDays(day));
+                        entry.setHoursWorked(1.5);
+                        analyticsService.recordEntry(entry);
+
+                        insertEntry.setLong(1, entry.getId());
+                        insertEntry.setLong(2, timesheet.getId());
+                        insertEntry.setLong(3, project.getId());
+                        insertEntry.setDate(4, Date.valueOf(entry.getWorkDate()));
+                        insertEntry.setDouble(5, entry.getHoursWorked());
+                        insertEntry.addBatch();
+                    }
+                }
+                insertEntry.executeBatch();
+            }
+            insertTimesheet.executeBatch();
+        }
+        ReflectionTestUtils.setField(analyticsService, "loaded", true);
+
+        // Every entry is in range, as in an unbounded pivot
+        startDate = FIRST_WEEK;
+        endDate = FIRST_WEEK.plusWeeks(timesheets / EMPLOYEES + 1);
+        switch (shape) {
+            case "EMPLOYEE_BY_MONTH":
+                rowDimension = PivotDimension.EMPLOYEE;
+                columnDimension = PivotDimension.MONTH;
+                groupBy = connection.prepareStatement(
+                    "SELECT ts.employee_id, YEAR(te.work_date), MONTH(te.work_date), SUM(te.hours_worked), COUNT(*)" + ENTRIES + IN_RANGE +
+                    " GROUP BY ts.employee_id, YEAR(te.work_date), MONTH(te.work_date)");
+                break;
+            case "PROJECT_BY_STATUS":
+                rowDimension = PivotDimension.PROJECT;
+                columnDimension = PivotDimension.STATUS;
+                groupBy = connection.prepareStatement(
+                    "SELECT te.project_id, ts.status, SUM(te.hours_worked), COUNT(*)" + ENTRIES + IN_RANGE +
+                    " GROUP BY te.project_id, ts.status");
+                break;
+            default:
+                rowDimension = PivotDimension.PROJECT;
+                columnDimension = PivotDimension.WEEK;
+                managerId = TEAM_MANAGER;
+                groupBy = connection.prepareStatement(
+                    TEAM + "SELECT te.project_id, ISO_YEAR(te.work_date), ISO_WEEK(te.work_date), SUM(te.hours_worked), COUNT(*)" + ENTRIES +
+                    " JOIN team ON team.id = ts.employee_id" + IN_RANGE +
+                    " GROUP BY te.project_id, ISO_YEAR(te.work_date), ISO_WEEK(te.work_date)");
+                break;
+        }
+        groupBy.setDate(1, Date.valueOf(startDate));
+        groupBy.setDate(2, Date.valueOf(endDate));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public PivotResultDTO pivot() {
+        return analyticsService.pivot(rowDimension, columnDimension, startDate, endDate, null, managerId, null, null);
+    }
+
+    // Reads every grouped row, as the pivot builds every cell
+    @Benchmark
+    public double groupBy() throws SQLException {
+        double hours = 0.0;
+        try (ResultSet resultSet = groupBy.executeQuery()) {
+            int hoursColumn = resultSet.getMetaData().getColumnCount() - 1;
+            while (resultSet.next()) {
+                hours += resultSet.getDouble(hoursColumn);
+            }
+        }
+        return hours;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AnalyticsPivotBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.timesheet.benchmark;
+
+import com.timesheet.entity.Employee;
+import com.timesheet.entity.Project;
+import com.timesheet.entity.Timesheet;
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.service.AnalyticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Cost of approving or submitting one timesheet while the analytics columns hold 'rows' entries. Without a
+// transaction the change is applied straight away, so this times the work done under the write lock.
+//
+// mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+// java -cp target/test-classes:target/classes:$(cat target/test.classpath) com.timesheet.benchmark.AnalyticsStatusUpdateBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsStatusUpdateBenchmark {
+
+    // Seven days on five projects per weekly timesheet
+    private static final int ENTRIES_PER_TIMESHEET = 35;
+    private static final int EMPLOYEES = 500;
+    private static final int PROJECTS = 5;
+
+    @Param({"10000", "1000000"})
+    private int rows;
+
+    private AnalyticsService analyticsService;
+    private int timesheets;
+    private long nextTimesheet;
+    private boolean approve;
+
+    @Setup(Level.Trial)
+    public void load() {
+        analyticsService = new AnalyticsService();
+        ReflectionTestUtils.setField(analyticsService, "enabled", true);
+
+        Employee[] employees = new Employee[EMPLOYEES];
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees[i] = new Employee();
+            employees[i].setId((long) i + 1);
+            employees[i].setFirstName("Employee");
+            employees[i].setLastName(String.valueOf(i + 1));
+        }
+        Project[] projects = new Project[PROJECTS];
+        for (int i = 0; i < PROJECTS; i++) {
+            projects[i] = new Project();
+            projects[i].setId((long) i + 1);
+            projects[i].setProjectName("Project " + (i + 1));
+        }
+
+        timesheets = rows / ENTRIES_PER_TIMESHEET;
+        LocalDate firstWeek = LocalDate.of(2020, 1, 6);
+        long entryId = 1;
+        for (int t = 0; t < timesheets; t++) {
+            Timesheet timesheet = new Timesheet();
+            timesheet.setId((long) t + 1);
+            timesheet.setEmployee(employees[t % EMPLOYEES]);
+            timesheet.setStatus(TimesheetStatus.SUBMITTED);
+            LocalDate weekStart = firstWeek.plusWeeks(t / EMPLOYEES);
+            for (int day = 0; day < 7; day++) {
+                for (Project project : projects) {
+                    TimesheetEntry entry = new TimesheetEntry();
+                    entry.setId(entryId++);
+                    entry.setTimesheet(timesheet);
+                    entry.setProject(project);
+                    entry.setWorkDate(weekStart.plusDays(day));
+                    entry.setHoursWorked(1.5);
+                    analyticsService.recordEntry(entry);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void updateTimesheetStatus() {
+        long timesheetId = nextTimesheet++ % timesheets + 1;
+        approve = !approve;
+        analyticsService.updateTimesheetStatus(timesheetId, approve ? TimesheetStatus.APPROVED : TimesheetStatus.SUBMITTED);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AnalyticsStatusUpdateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
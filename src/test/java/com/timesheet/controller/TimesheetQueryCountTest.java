@@ -0,0 +1,149 @@
+package com.timesheet.controller;
+
+import com.timesheet.dto.EntryCreateDTO;
+import com.timesheet.dto.TimesheetCreateDTO;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
+import com.timesheet.service.TimesheetService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Query budget of the timesheet list and detail endpoints: each must cost the same fixed number of SQL statements
+// however many timesheets and entries it returns. Statements are counted per thread, and MockMvc serves the request on
+// the test thread, so the scheduled jobs running in the background do not count against an endpoint.
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "spring.datasource.url=jdbc:h2:mem:querycount",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.timesheet.controller.TimesheetQueryCountTest$StatementCounter"
+})
+@AutoConfigureMockMvc
+class TimesheetQueryCountTest {
+
+    private static final int ENTRIES_PER_WEEK = 6;
+
+    // Each test gets weeks of its own, well clear of the sample data
+    private static final AtomicInteger NEXT_WEEK = new AtomicInteger();
+    private static final LocalDate FIRST_WEEK = LocalDate.of(2041, 1, 7);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    private Long employeeId;
+    private Long managerId;
+    private List<Long> projectIds;
+
+    @BeforeEach
+    void setUp() {
+        employeeId = employeeRepository.findByEmail("employee2@timesheet.com").orElseThrow().getId();
+        managerId = employeeRepository.findByEmail("manager@timesheet.com").orElseThrow().getId();
+        projectIds = new ArrayList<>();
+        for (String code : new String[] { "PROJ001", "PROJ002", "PROJ003" }) {
+            projectIds.add(projectRepository.findByProjectCode(code).orElseThrow().getId());
+        }
+    }
+
+    @Test
+    void employeeListCostsOneStatement() throws Exception {
+        String url = "/api/timesheets/employee/" + employeeId;
+        addWeeks(3, false);
+        assertThat(statementsFor(url)).isEqualTo(1);
+        addWeeks(20, false);
+        assertThat(statementsFor(url)).isEqualTo(1);
+    }
+
+    @Test
+    void employeeDetailPageCostsTwoStatements() throws Exception {
+        // One for the page of summaries, one for the entries of the timesheets on it
+        String url = "/api/timesheets/employee/" + employeeId + "?view=detail";
+        addWeeks(3, false);
+        assertThat(statementsFor(url)).isEqualTo(2);
+        addWeeks(30, false);
+        assertThat(statementsFor(url)).isEqualTo(2);
+        assertThat(statementsFor(url + "&pageSize=5")).isEqualTo(2);
+        assertThat(statementsFor(url + "&pageSize=25")).isEqualTo(2);
+    }
+
+    @Test
+    void pendingApprovalsCostOneStatement() throws Exception {
+        String url = "/api/timesheets/pending-approvals?managerId=" + managerId;
+        addWeeks(3, true);
+        assertThat(statementsFor(url)).isEqualTo(1);
+        addWeeks(20, true);
+        assertThat(statementsFor(url)).isEqualTo(1);
+    }
+
+    @Test
+    void timesheetDetailCostsOneStatement() throws Exception {
+        List<Long> ids = addWeeks(2, true);
+        assertThat(statementsFor("/api/timesheets/" + ids.get(0))).isEqualTo(1);
+        assertThat(statementsFor("/api/timesheets/" + ids.get(1))).isEqualTo(1);
+    }
+
+    private int statementsFor(String url) throws Exception {
+        StatementCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return StatementCounter.count();
+    }
+
+    // Weeks with entries spread over every project; submitted ones show up in the manager's pending approvals
+    private List<Long> addWeeks(int weeks, boolean submit) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < weeks; i++) {
+            LocalDate weekStart = FIRST_WEEK.plusWeeks(NEXT_WEEK.getAndIncrement());
+            Long timesheetId = timesheetService.createTimesheet(employeeId, new TimesheetCreateDTO(weekStart, weekStart.plusDays(6))).getId();
+            List<EntryCreateDTO> entries = new ArrayList<>();
+            for (int entry = 0; entry < ENTRIES_PER_WEEK; entry++) {
+                entries.add(new EntryCreateDTO(projectIds.get(entry % projectIds.size()), weekStart.plusDays(entry), 2.0, "Entry " + entry));
+            }
+            timesheetService.addEntries(timesheetId, entries);
+            if (submit) {
+                timesheetService.submitTimesheet(timesheetId, employeeId);
+            }
+            ids.add(timesheetId);
+        }
+        return ids;
+    }
+
+    // Registered with Hibernate by class name; sees every statement Hibernate prepares, native queries included
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.EntryCreateDTO;
+import com.timesheet.dto.ImportResultDTO;
+import com.timesheet.dto.TimesheetCreateDTO;
+import com.timesheet.entity.ArchivedEntryPartition;
+import com.timesheet.repository.ArchivedEntryPartitionRepository;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Archiving monthly timesheet_entries partitions on a real PostgreSQL, the only database where the table is
+// partitioned. Skipped where Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+@ActiveProfiles("prod")
+@SpringBootTest
+class EntryPartitionArchiveTest {
+
+    private static final LocalDate ARCHIVED_MONTH = LocalDate.of(2020, 1, 1);
+    private static final LocalDate CUTOFF = ARCHIVED_MONTH.plusMonths(1);
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private EntryPartitionService entryPartitionService;
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private EntryImportService entryImportService;
+
+    @Autowired
+    private ArchivedEntryPartitionRepository archivedEntryPartitionRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long employeeId;
+    private Long managerId;
+    private Long projectId;
+
+    @BeforeEach
+    void setUp() {
+        employeeId = employeeRepository.findByEmail("employee1@timesheet.com").orElseThrow().getId();
+        managerId = employeeRepository.findByEmail("manager@timesheet.com").orElseThrow().getId();
+        projectId = projectRepository.findByProjectCode("PROJ001").orElseThrow().getId();
+    }
+
+    // One scenario, since archiving cannot be undone and every step depends on the archive boundary the one before left
+    @Test
+    void archivingAMonthWaitsForApprovalDropsItsForeignKeysAndClosesItToWrites() throws Exception {
+        assertThat(entryPartitionService.isPartitioned()).isTrue();
+
+        LocalDate weekStart = LocalDate.of(2020, 1, 13);
+        Long timesheetId = newTimesheet(weekStart);
+        timesheetService.addEntries(timesheetId, Arrays.asList(
+            new EntryCreateDTO(projectId, weekStart, 8.0, "Archived"),
+            new EntryCreateDTO(projectId, weekStart.plusDays(1), 6.5, "Archived")));
+
+        // A draft overlapping the month could still change its entries
+        assertThatThrownBy(() -> entryPartitionService.archiveBefore(CUTOFF)).hasMessageContaining("not approved");
+        assertThat(archivedEntryPartitionRepository.findAll()).isEmpty();
+
+        timesheetService.submitTimesheet(timesheetId, employeeId);
+        assertThatThrownBy(() -> entryPartitionService.archiveBefore(CUTOFF)).hasMessageContaining("not approved");
+
+        timesheetService.approveTimesheet(timesheetId, managerId);
+        List<ArchivedEntryPartition> archived = entryPartitionService.archiveBefore(CUTOFF);
+
+        String partition = "timesheet_entries_y2020m01";
+        assertThat(archived).extracting(ArchivedEntryPartition::getPartitionName).containsExactly(partition);
+        assertThat(archived.get(0).getRowCount()).isEqualTo(2L);
+        assertThat(archivedEntryPartitionRepository.findLiveEntriesFrom()).isEqualTo(CUTOFF);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM timesheet_archive." + partition, Long.class)).isEqualTo(2L);
+        assertThat(foreignKeysOf("timesheet_archive." + partition)).isEmpty();
+        assertThat(foreignKeysOf("timesheet_entries")).isNotEmpty();
+
+        // The archived rows no longer hold their timesheet in place
+        assertThat(jdbcTemplate.update("DELETE FROM timesheets WHERE id = ?", timesheetId)).isEqualTo(1);
+
+        // Nothing can be written into the archived month any more, through the service or the import
+        LocalDate lateWeek = LocalDate.of(2020, 1, 20);
+        Long lateTimesheetId = newTimesheet(lateWeek);
+        EntryCreateDTO lateEntry = new EntryCreateDTO(projectId, lateWeek, 4.0, "Too late");
+        assertThatThrownBy(() -> timesheetService.addEntry(lateTimesheetId, lateEntry)).hasMessageContaining("archived month");
+        assertThatThrownBy(() -> timesheetService.saveWeek(lateTimesheetId, Collections.singletonList(lateEntry), null))
+            .hasMessageContaining("archived month");
+
+        String csv = "employee_email,project_code,work_date,hours\nemployee1@timesheet.com,PROJ001," + lateWeek.plusDays(1) + ",2\n";
+        ImportResultDTO result = entryImportService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), new AtomicLong());
+        assertThat(result.getRowsImported()).isZero();
+        assertThat(result.getRowsFailed()).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM timesheet_entries WHERE work_date < ?", Long.class, CUTOFF)).isZero();
+    }
+
+    private Long newTimesheet(LocalDate weekStart) {
+        return timesheetService.createTimesheet(employeeId, new TimesheetCreateDTO(weekStart, weekStart.plusDays(6))).getId();
+    }
+
+    private List<String> foreignKeysOf(String table) {
+        return jdbcTemplate.queryForList(
+            "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'f'", String.class, table);
+    }
+}
@@ -0,0 +1,283 @@
+package com.timesheet.service;
+
+import com.timesheet.dto.EntryCreateDTO;
+import com.timesheet.dto.TimesheetCreateDTO;
+import com.timesheet.entity.Timesheet;
+import com.timesheet.entity.TimesheetEntry;
+import com.timesheet.enums.TimesheetStatus;
+import com.timesheet.repository.EmployeeRepository;
+import com.timesheet.repository.ProjectRepository;
+import com.timesheet.repository.TimesheetEntryRepository;
+import com.timesheet.repository.TimesheetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Races workflow transitions and entry edits against each other on the in-memory database and checks that no
+// transition is lost or applied twice and that the stored hours always match the entries.
+@SpringBootTest(properties = { "spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=WARN" })
+class TimesheetConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    // Each test gets weeks of its own, well clear of the sample data
+    private static final AtomicInteger NEXT_WEEK = new AtomicInteger();
+    private static final LocalDate FIRST_WEEK = LocalDate.of(2031, 1, 6);
+
+    @Autowired
+    private TimesheetService timesheetService;
+
+    @Autowired
+    private TimesheetRepository timesheetRepository;
+
+    @Autowired
+    private TimesheetEntryRepository entryRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    private ExecutorService executor;
+    private Long employeeId;
+    private Long managerId;
+    private List<Long> projectIds;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        employeeId = employeeRepository.findByEmail("employee1@timesheet.com").orElseThrow().getId();
+        managerId = employeeRepository.findByEmail("manager@timesheet.com").orElseThrow().getId();
+        projectIds = new ArrayList<>();
+        for (String code : new String[] { "PROJ001", "PROJ002", "PROJ003" }) {
+            projectIds.add(projectRepository.findByProjectCode(code).orElseThrow().getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void concurrentSubmitsSucceedExactlyOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long timesheetId = newTimesheet();
+
+            int submitted = race(THREADS, thread -> {
+                timesheetService.submitTimesheet(timesheetId, employeeId);
+                return true;
+            });
+
+            Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+            assertThat(submitted).isEqualTo(1);
+            assertThat(timesheet.getStatus()).isEqualTo(TimesheetStatus.SUBMITTED);
+            assertThat(timesheet.getVersion()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void approveRacingRejectHasOneWinner() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long timesheetId = newTimesheet();
+            timesheetService.submitTimesheet(timesheetId, employeeId);
+
+            List<TimesheetStatus> winners = Collections.synchronizedList(new ArrayList<>());
+            int reviewed = race(THREADS, thread -> {
+                if (thread % 2 == 0) {
+                    timesheetService.approveTimesheet(timesheetId, managerId);
+                    winners.add(TimesheetStatus.APPROVED);
+                } else {
+                    timesheetService.rejectTimesheet(timesheetId, managerId, "Race " + thread);
+                    winners.add(TimesheetStatus.REJECTED);
+                }
+                return true;
+            });
+
+            Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+            assertThat(reviewed).isEqualTo(1);
+            assertThat(winners).containsExactly(timesheet.getStatus());
+            assertThat(timesheet.getVersion()).isEqualTo(2L);
+        }
+    }
+
+    @Test
+    void submitRacingEntryEditsLeavesConsistentHours() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long timesheetId = newTimesheet();
+            LocalDate weekStart = timesheetRepository.findById(timesheetId).orElseThrow().getWeekStartDate();
+
+            AtomicInteger submits = new AtomicInteger();
+            int succeeded = race(THREADS, thread -> {
+                if (thread == THREADS / 2) {
+                    timesheetService.submitTimesheet(timesheetId, employeeId);
+                    submits.incrementAndGet();
+                    return true;
+                }
+                EntryCreateDTO cell = new EntryCreateDTO(projectIds.get(thread % projectIds.size()),
+                    weekStart.plusDays(thread % Timesheet.DAYS_PER_WEEK), 1.0, null);
+                return editWithRetry(timesheetId, cell);
+            });
+
+            Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+            assertThat(submits.get()).isEqualTo(1);
+            assertThat(timesheet.getStatus()).isEqualTo(TimesheetStatus.SUBMITTED);
+            // One version per applied edit plus the submit, so no edit was applied after the submit or twice
+            assertThat(timesheet.getVersion()).isEqualTo((long) succeeded);
+            assertHoursMatchEntries(timesheet);
+        }
+    }
+
+    @Test
+    void concurrentCellEditsAreAllAppliedAfterRetries() throws Exception {
+        Long timesheetId = newTimesheet();
+        LocalDate weekStart = timesheetRepository.findById(timesheetId).orElseThrow().getWeekStartDate();
+        int cells = projectIds.size() * Timesheet.DAYS_PER_WEEK;
+
+        int applied = race(cells, thread -> editWithRetry(timesheetId, new EntryCreateDTO(
+            projectIds.get(thread % projectIds.size()), weekStart.plusDays(thread / projectIds.size()), 2.5, "Cell " + thread)));
+
+        Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+        assertThat(applied).isEqualTo(cells);
+        assertThat(entryRepository.findByTimesheetId(timesheetId)).hasSize(cells);
+        assertThat(timesheet.getTotalHours()).isEqualTo(cells * 2.5);
+        assertThat(timesheet.getVersion()).isEqualTo((long) cells);
+        assertHoursMatchEntries(timesheet);
+    }
+
+    @Test
+    void concurrentWeekSavesWriteEachCellOnce() throws Exception {
+        Long timesheetId = newTimesheet();
+        LocalDate weekStart = timesheetRepository.findById(timesheetId).orElseThrow().getWeekStartDate();
+        List<EntryCreateDTO> grid = Arrays.asList(
+            new EntryCreateDTO(projectIds.get(0), weekStart, 4.0, null),
+            new EntryCreateDTO(projectIds.get(1), weekStart.plusDays(1), 2.0, null));
+
+        // Every save waits for the one before it and finds the grid already stored
+        int saved = race(THREADS, thread -> {
+            timesheetService.saveWeek(timesheetId, grid, null);
+            return true;
+        });
+
+        Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+        assertThat(saved).isEqualTo(THREADS);
+        assertThat(entryRepository.findByTimesheetId(timesheetId)).hasSize(2);
+        assertThat(timesheet.getVersion()).isEqualTo(1L);
+        assertHoursMatchEntries(timesheet);
+    }
+
+    @Test
+    void weekSaveFromAStaleVersionIsRefused() {
+        Long timesheetId = newTimesheet();
+        LocalDate weekStart = timesheetRepository.findById(timesheetId).orElseThrow().getWeekStartDate();
+        timesheetService.applyCellEdits(timesheetId, Collections.singletonList(new EntryCreateDTO(projectIds.get(0), weekStart, 8.0, null)), 0L);
+
+        assertThatThrownBy(() -> timesheetService.saveWeek(timesheetId, Collections.emptyList(), 0L))
+            .isInstanceOf(ConcurrencyFailureException.class);
+        assertThat(entryRepository.findByTimesheetId(timesheetId)).hasSize(1);
+    }
+
+    @Test
+    void concurrentEntriesCannotPushADayOverTwentyFourHours() throws Exception {
+        Long timesheetId = newTimesheet();
+        LocalDate day = timesheetRepository.findById(timesheetId).orElseThrow().getWeekStartDate();
+
+        int added = race(THREADS, thread -> {
+            EntryCreateDTO entry = new EntryCreateDTO(projectIds.get(thread % projectIds.size()), day, 5.0, null);
+            while (true) {
+                try {
+                    timesheetService.addEntry(timesheetId, entry);
+                    return true;
+                } catch (ConcurrencyFailureException e) {
+                    // Lost the race against another writer; reload and try again
+                }
+            }
+        });
+
+        Timesheet timesheet = timesheetRepository.findById(timesheetId).orElseThrow();
+        assertThat(added).isEqualTo(4);
+        assertThat(timesheet.getDailyHours()[0]).isEqualTo(20.0);
+        assertHoursMatchEntries(timesheet);
+    }
+
+    // An autosave edit the way a client retries it: a 409 means reload and send the cell again
+    private boolean editWithRetry(Long timesheetId, EntryCreateDTO cell) {
+        while (true) {
+            try {
+                timesheetService.applyCellEdits(timesheetId, Collections.singletonList(cell));
+                return true;
+            } catch (ConcurrencyFailureException e) {
+                // Another edit committed first
+            }
+        }
+    }
+
+    private Long newTimesheet() {
+        LocalDate weekStart = FIRST_WEEK.plusWeeks(NEXT_WEEK.getAndIncrement());
+        return timesheetService.createTimesheet(employeeId, new TimesheetCreateDTO(weekStart, weekStart.plusDays(6))).getId();
+    }
+
+    // Runs the task on that many threads released at the same moment; returns how many returned true. Tasks that
+    // throw a RuntimeException lost the race and count as not applied.
+    private int race(int threads, RaceTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            Callable<Boolean> attempt = () -> {
+                start.await();
+                try {
+                    return task.run(thread);
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            };
+            futures.add(executor.submit(attempt));
+        }
+        start.countDown();
+
+        int succeeded = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS)) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    private void assertHoursMatchEntries(Timesheet timesheet) {
+        double[] expected = new double[Timesheet.DAYS_PER_WEEK];
+        for (TimesheetEntry entry : entryRepository.findByTimesheetId(timesheet.getId())) {
+            expected[timesheet.dayIndexOf(entry.getWorkDate())] += entry.getHoursWorked();
+        }
+        assertThat(timesheet.getDailyHours()).containsExactly(expected);
+        assertThat(timesheet.getTotalHours()).isEqualTo(Arrays.stream(expected).sum());
+    }
+
+    @FunctionalInterface
+    private interface RaceTask {
+        boolean run(int thread);
+    }
+}